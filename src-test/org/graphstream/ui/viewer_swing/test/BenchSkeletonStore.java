@@ -0,0 +1,155 @@
+/*
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ *
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ *
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+
+package org.graphstream.ui.viewer_swing.test;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.graphstream.ui.graphicGraph.GraphicEdge;
+import org.graphstream.ui.graphicGraph.GraphicGraph;
+import org.graphstream.ui.swing.SwingCamera;
+import org.graphstream.ui.swing.SwingGraphRenderer;
+import org.graphstream.ui.swing.renderer.AreaSkeleton;
+import org.graphstream.ui.swing.renderer.ConnectorSkeleton;
+import org.graphstream.ui.swing.renderer.Skeleton;
+import org.graphstream.ui.swing.renderer.SkeletonStore;
+
+/**
+ * Measures the cost of the skeleton lookups made at each frame.
+ *
+ * A graphic graph with one million edges (by default) is rendered off-screen, then
+ * the skeletons are stored for all the edges and their nodes, first in the element
+ * attributes as was done before the skeleton store, then in a new store. Storing an
+ * attribute sends an event to the sinks of the graphic graph, among them the ones of
+ * the renderer. Last the lookups made when drawing an edge (the edge skeleton and the
+ * skeletons of its two nodes) are timed for all the edges, in the attributes and in
+ * the store filled by the renderer. The best of several passes is kept.
+ *
+ * Usage: BenchSkeletonStore [nodes] [edges] [frames], where frames is the number of
+ * frames rendered. Run it with a large heap, for example -Xmx4g.
+ */
+public class BenchSkeletonStore {
+	public static void main(String[] args) {
+		int nodes = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		int edges = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+		int frames = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+
+		new BenchSkeletonStore().run(nodes, edges, frames);
+	}
+
+	public void run(int nodeCount, int edgeCount, int frames) {
+		GraphicGraph graph = new GraphicGraph("bench");
+		Random random = new Random(1);
+
+		graph.setAttribute("ui.stylesheet", "node { size: 3px; } edge { fill-color: #0004; }");
+
+		for(int i = 0; i < nodeCount; i++)
+			graph.addNode("n"+i).setAttribute("xyz", random.nextDouble(), random.nextDouble(), 0);
+
+		for(int i = 0; i < edgeCount; i++)
+			graph.addEdge("e"+i, "n"+random.nextInt(nodeCount), "n"+random.nextInt(nodeCount));
+
+		System.out.printf("%d nodes, %d edges%n", nodeCount, edgeCount);
+
+		// Rendering, the renderer fills its skeleton store during the first frame.
+
+		SwingGraphRenderer renderer = new SwingGraphRenderer();
+		BufferedImage image = new BufferedImage(800, 600, BufferedImage.TYPE_INT_ARGB);
+
+		renderer.open(graph, null);
+
+		for(int i = 0; i < frames; i++) {
+			Graphics2D g2 = image.createGraphics();
+			g2.setColor(Color.WHITE);
+			g2.fillRect(0, 0, 800, 600);
+			long t = System.nanoTime();
+			renderer.render(g2, 0, 0, 800, 600);
+			System.out.printf("frame %d: %.1f ms%n", i, (System.nanoTime() - t) / 1e6);
+			g2.dispose();
+		}
+
+		// Lookups, the same skeletons are stored in the attributes for comparison.
+
+		SkeletonStore rendered = ((SwingCamera)renderer.getCamera()).getSkeletons();
+		SkeletonStore store = new SkeletonStore(graph);
+		ArrayList<GraphicEdge> all = new ArrayList<>();
+
+		graph.edges().forEach(edge -> all.add((GraphicEdge)edge));
+
+		long t = System.nanoTime();
+
+		for(GraphicEdge edge : all) {
+			edge.setAttribute(Skeleton.attributeName, rendered.get(edge));
+			edge.from.setAttribute(Skeleton.attributeName, rendered.get(edge.from));
+			edge.to.setAttribute(Skeleton.attributeName, rendered.get(edge.to));
+		}
+
+		long attributes = System.nanoTime() - t;
+		t = System.nanoTime();
+
+		for(GraphicEdge edge : all) {
+			store.put(edge, rendered.get(edge));
+			store.put(edge.from, rendered.get(edge.from));
+			store.put(edge.to, rendered.get(edge.to));
+		}
+
+		System.out.printf("storing: attributes %.1f ms, store %.1f ms%n", attributes / 1e6, (System.nanoTime() - t) / 1e6);
+
+		long bestAttributes = Long.MAX_VALUE, bestSkeletons = Long.MAX_VALUE;
+		int found = 0;
+
+		for(int i = 0; i < 10; i++) {
+			t = System.nanoTime();
+
+			for(GraphicEdge edge : all) {
+				ConnectorSkeleton skel = (ConnectorSkeleton)edge.getAttribute(Skeleton.attributeName);
+				AreaSkeleton from = (AreaSkeleton)edge.from.getAttribute(Skeleton.attributeName);
+				AreaSkeleton to = (AreaSkeleton)edge.to.getAttribute(Skeleton.attributeName);
+				if(skel != null && from != null && to != null) found++;
+			}
+
+			bestAttributes = Math.min(bestAttributes, System.nanoTime() - t);
+			t = System.nanoTime();
+
+			for(GraphicEdge edge : all) {
+				ConnectorSkeleton skel = (ConnectorSkeleton)rendered.get(edge);
+				AreaSkeleton from = (AreaSkeleton)rendered.get(edge.from);
+				AreaSkeleton to = (AreaSkeleton)rendered.get(edge.to);
+				if(skel != null && from != null && to != null) found--;
+			}
+
+			bestSkeletons = Math.min(bestSkeletons, System.nanoTime() - t);
+		}
+
+		System.out.printf("lookups per frame: attributes %.1f ms, store %.1f ms (%d)%n",
+				bestAttributes / 1e6, bestSkeletons / 1e6, found);
+
+		renderer.close();
+	}
+}
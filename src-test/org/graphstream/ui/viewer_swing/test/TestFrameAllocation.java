@@ -0,0 +1,172 @@
+/*
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ *
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ *
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+
+package org.graphstream.ui.viewer_swing.test;
+
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import org.graphstream.ui.graphicGraph.GraphicEdge;
+import org.graphstream.ui.graphicGraph.GraphicGraph;
+import org.graphstream.ui.graphicGraph.GraphicSprite;
+import org.graphstream.ui.graphicGraph.stylesheet.StyleConstants.Units;
+import org.graphstream.ui.swing.SwingGraphRenderer;
+import org.junit.Test;
+
+/**
+ * Measures the memory allocated to draw all the elements of a frame again.
+ *
+ * A graphic graph with labelled nodes, edges with arrows and labels, and sprites with
+ * shadows, some attached to edges, is rendered off-screen. After some frames to warm
+ * up, the bytes allocated by the rendering thread are measured over several runs of
+ * frames, the smallest run is kept so that the compilations made during a run do not
+ * count. The test fails when a frame allocates more than the budget per drawn element,
+ * so that it guards the render loop against allocation regressions.
+ *
+ * A back layer that draws nothing disables the cache of the renderer, so that all the
+ * elements are drawn at each frame.
+ *
+ * A frame is not free of allocations: styles read through gs-core and the transforms
+ * saved by Java2D still allocate for each element, about 150 bytes in this graph, and
+ * the measures vary from one run to the other. The budget, {@link #BUDGET}, leaves room
+ * for this variation, it fails when an allocation is added for each element.
+ *
+ * It can also be run as a program: TestFrameAllocation [nodes] [frames] [budget].
+ */
+public class TestFrameAllocation {
+	/** Bytes a frame may allocate per drawn element. */
+	public static final int BUDGET = 240;
+
+	/** Number of runs of frames measured. */
+	protected static final int RUNS = 5;
+
+	public static void main(String[] args) {
+		int nodes = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+		int frames = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+		int budget = args.length > 2 ? Integer.parseInt(args[2]) : BUDGET;
+		double perElement = new TestFrameAllocation().run(nodes, frames);
+
+		System.out.printf("%.0f bytes per element and frame%n", perElement);
+
+		if(perElement > budget) {
+			System.out.println("the frames allocate more than the budget");
+			System.exit(1);
+		}
+	}
+
+	@Test
+	public void testFrameAllocation() {
+		double perElement = run(1000, 20);
+
+		assertTrue(String.format("%.0f bytes allocated per element and frame, the budget is %d", perElement, BUDGET),
+				perElement <= BUDGET);
+	}
+
+	/** Render the frames, and return the bytes allocated per frame and element, zero if
+	 * this cannot be measured by the JVM. */
+	public double run(int nodeCount, int frames) {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+
+		if(!threads.isThreadAllocatedMemorySupported())
+			return 0;
+
+		GraphicGraph graph = new GraphicGraph("bench");
+		Random random = new Random(1);
+		int edgeCount = nodeCount * 2;
+		int spriteCount = nodeCount / 10;
+
+		graph.setAttribute("ui.stylesheet", "node { size: 10px; fill-color: red; stroke-mode: plain; text-size: 9; } "
+				+ "edge { fill-color: #555; } edge.directed { arrow-shape: arrow; arrow-size: 8px, 4px; } "
+				+ "sprite { size: 6px; fill-color: blue; shadow-mode: plain; shadow-offset: 2px, -2px; }");
+
+		for(int i = 0; i < nodeCount; i++) {
+			graph.addNode("n"+i).setAttribute("xyz", random.nextDouble() * 100, random.nextDouble() * 100, 0);
+
+			if(i % 5 == 0)
+				graph.getNode("n"+i).setAttribute("ui.label", "N"+i);
+		}
+
+		for(int i = 0; i < edgeCount; i++) {
+			graph.addEdge("e"+i, "n"+random.nextInt(nodeCount), "n"+random.nextInt(nodeCount), i % 2 == 0);
+
+			if(i % 2 == 0)
+				graph.getEdge("e"+i).setAttribute("ui.class", "directed");
+			if(i % 13 == 0)
+				graph.getEdge("e"+i).setAttribute("ui.label", "E"+i);
+		}
+
+		for(int i = 0; i < spriteCount; i++) {
+			graph.setAttribute("ui.sprite.s"+i, random.nextDouble() * 100, random.nextDouble() * 100, 0.0);
+
+			if(i % 2 == 0) {
+				GraphicSprite sprite = graph.getSprite("s"+i);
+				sprite.attachToEdge((GraphicEdge)graph.getEdge("e"+i));
+				sprite.setPosition(0.3, i % 4 == 0 ? 2 : 0, 0, Units.GU);
+				sprite.setAttribute("ui.label", "S"+i);
+			}
+		}
+
+		int elements = nodeCount + edgeCount + spriteCount;
+
+		SwingGraphRenderer renderer = new SwingGraphRenderer();
+		BufferedImage image = new BufferedImage(1000, 800, BufferedImage.TYPE_INT_ARGB);
+
+		renderer.open(graph, null);
+		renderer.setBackLayerRenderer((g, gg, px, w, h, minx, miny, maxx, maxy) -> {});
+
+		// Warm up, the skeletons, icons and texts are built during the first frames.
+
+		for(int i = 0; i < 20; i++)
+			render(renderer, image);
+
+		double perFrame = Double.MAX_VALUE;
+
+		for(int run = 0; run < RUNS; run++) {
+			long allocated = threads.getCurrentThreadAllocatedBytes();
+
+			for(int i = 0; i < frames; i++)
+				render(renderer, image);
+
+			perFrame = Math.min(perFrame, (threads.getCurrentThreadAllocatedBytes() - allocated) / (double)frames);
+		}
+
+		renderer.close();
+
+		return perFrame / elements;
+	}
+
+	protected void render(SwingGraphRenderer renderer, BufferedImage image) {
+		Graphics2D g2 = image.createGraphics();
+		g2.setColor(Color.WHITE);
+		g2.fillRect(0, 0, image.getWidth(), image.getHeight());
+		renderer.render(g2, 0, 0, image.getWidth(), image.getHeight());
+		g2.dispose();
+	}
+}
@@ -0,0 +1,760 @@
+/*
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ *
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ *
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+
+ /**
+  * @author Antoine Dutot <antoine.dutot@graphstream-project.org>
+  * @author Guilhelm Savin <guilhelm.savin@graphstream-project.org>
+  * @author Hicham Brahimi <hicham.brahimi@graphstream-project.org>
+  */
+
+package org.graphstream.ui.swing;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import org.graphstream.graph.Element;
+import org.graphstream.ui.geom.Point3;
+import org.graphstream.ui.graphicGraph.GraphicEdge;
+import org.graphstream.ui.graphicGraph.GraphicElement;
+import org.graphstream.ui.graphicGraph.GraphicGraph;
+import org.graphstream.ui.graphicGraph.GraphicNode;
+import org.graphstream.ui.graphicGraph.GraphicSprite;
+import org.graphstream.ui.graphicGraph.StyleGroup;
+import org.graphstream.ui.graphicGraph.StyleGroup.ElementEvents;
+import org.graphstream.ui.graphicGraph.stylesheet.Selector;
+import org.graphstream.ui.graphicGraph.stylesheet.StyleConstants;
+import org.graphstream.ui.graphicGraph.stylesheet.Values;
+import org.graphstream.ui.swing.renderer.AreaSkeleton;
+import org.graphstream.ui.swing.renderer.ConnectorSkeleton;
+import org.graphstream.ui.swing.renderer.Skeleton;
+import org.graphstream.ui.swing.renderer.SkeletonStore;
+import org.graphstream.ui.swing.util.FrameSnapshot;
+import org.graphstream.ui.swing.util.ImageCache;
+import org.graphstream.ui.swing.util.LevelOfDetail;
+import org.graphstream.ui.swing.util.SpatialIndex;
+import org.graphstream.ui.view.camera.DefaultCamera2D;
+import org.graphstream.ui.view.util.InteractiveElement;
+
+/**
+ * Camera of the Swing renderer.
+ *
+ * This camera answers the picking requests (element under the mouse, elements in
+ * a selection rectangle) using a {@link SpatialIndex} instead of testing every
+ * element of the graph. The pixel area of the request is enlarged by the largest
+ * element size found in the style groups and converted in graph units to query the
+ * index, then the candidates are tested exactly as the default camera does.
+ *
+ * Elements whose size cannot be known from their style group (groups whose size
+ * mode is "fit", sprites whose size is given by their "ui.size" attribute and
+ * elements with events) are always tested.
+ *
+ * When the view is not auto-fitted, the visibility check made at each frame also
+ * uses the index: only the nodes around the visible area are tested, and the
+ * visible nodes and edges are kept per style group so that the style renderers
+ * only browse what is on screen (see {@link #visibleElements(StyleGroup)}). As
+ * with the default camera, an edge is visible if one of its nodes is visible. The
+ * visible nodes are kept in a bit set indexed by their slot in the snapshot, the
+ * visibility of an edge is read from the bits of the slots of its nodes. The nodes are
+ * tested with their position and "ui.size" in the snapshot and their size in their
+ * skeleton, without allocation.
+ *
+ * The skeletons of the elements are read in the {@link SkeletonStore} of the
+ * renderer rather than in the element attributes. When the frames are rendered in
+ * tiles, the skeletons used for picking are read in the stores of the tiles.
+ *
+ * The camera gives the style renderers the {@link FrameSnapshot} of the frame, the
+ * positions and styles of the elements copied in primitive arrays.
+ *
+ * The camera also holds the {@link LevelOfDetail} telling the style renderers which
+ * groups are drawn with a reduced level of detail at the current zoom.
+ *
+ * When the camera loads the images in the background, {@link #getImage(String)} does
+ * not wait for the images to be read, the style renderers then draw a placeholder and
+ * the renderer draws the frame again when the images arrive.
+ */
+public class SwingCamera extends DefaultCamera2D {
+	/** Told when the centre, zoom, rotation, graph viewport or auto-fit of the camera is
+	 * changed by its setters, for example to show the change at once. */
+	public interface ViewListener {
+		void viewChanged(SwingCamera camera);
+	}
+
+	protected SpatialIndex index;
+
+	protected SkeletonStore skeletons;
+
+	/** Snapshot of the nodes and edges, updated by the renderer at each frame. */
+	protected FrameSnapshot snapshot;
+
+	/** Level of detail of the style groups, configured by the renderer at each frame. */
+	protected LevelOfDetail levelOfDetail = new LevelOfDetail();
+
+	/** Candidates not covered by the index margins, rebuilt at each request. */
+	protected ArrayList<GraphicElement> unindexed = new ArrayList<>();
+
+	/** Best candidate of the current request. */
+	protected GraphicElement found = null;
+
+	/** Corners of the request area in graph units. */
+	protected double lo[] = new double[2], hi[] = new double[2];
+
+	private Point3 corner = new Point3();
+
+	/** Position in pixels of the element tested by the visibility check. */
+	private Point3 position = new Point3();
+
+	/** Half size in pixels of the element tested by the visibility check, see {@link #halfSizePx}. */
+	private double halfWidth, halfHeight;
+
+	/** Visible nodes by slot in the snapshot, only used when the view is not auto-fitted. */
+	protected BitSet visibleNodes = new BitSet();
+
+	/** Visible edges by slot in the snapshot, only used when the view is not auto-fitted. */
+	protected BitSet visibleEdges = new BitSet();
+
+	/** Layout of the node slots of the snapshot when the visible nodes were computed. */
+	protected int visibleLayout = -1;
+
+	/** Visible nodes and edges by style group, only used when the view is not auto-fitted. */
+	protected HashMap<StyleGroup,ArrayList<GraphicElement>> visibleByGroup = new HashMap<>();
+
+	/** Used for groups without visible elements. */
+	protected static final ArrayList<GraphicElement> NOTHING_VISIBLE = new ArrayList<>();
+
+	/** Skeleton stores of the tiles when the frames are rendered in tiles, else null. */
+	protected List<SkeletonStore> tileSkeletons = null;
+
+	/** True if the images are read in the background, see {@link #getImage(String)}. */
+	protected boolean backgroundImages = false;
+
+	/** Told when the view is changed, or null. */
+	protected ViewListener viewListener = null;
+
+	/** Incremented each time the style sheet of the graph changes, see {@link #getStyleVersion()}. */
+	protected final AtomicInteger styleVersion = new AtomicInteger();
+
+	/** Number of values of the view state, see {@link #viewState(double[])}. */
+	public static final int VIEW_STATE_SIZE = 17;
+
+	public SwingCamera(GraphicGraph graph, SpatialIndex index, SkeletonStore skeletons, FrameSnapshot snapshot) {
+		super(graph);
+		this.index = index;
+		this.skeletons = skeletons;
+		this.snapshot = snapshot;
+	}
+
+// Access
+
+	public SpatialIndex getIndex() {
+		return index;
+	}
+
+	public SkeletonStore getSkeletons() {
+		return skeletons;
+	}
+
+	/** The snapshot of the nodes and edges of the current frame. */
+	public FrameSnapshot getSnapshot() {
+		return snapshot;
+	}
+
+	public LevelOfDetail getLevelOfDetail() {
+		return levelOfDetail;
+	}
+
+	/** Version of the style sheet of the graph, the icons, texts and stamps kept for the
+	 * elements are built anew when it changes. */
+	public int getStyleVersion() {
+		return styleVersion.get();
+	}
+
+	/** The version of the style sheet for the camera if it is a Swing camera, else zero. */
+	public static int getStyleVersion(DefaultCamera2D camera) {
+		if(camera instanceof SwingCamera)
+			return ((SwingCamera)camera).getStyleVersion();
+
+		return 0;
+	}
+
+	/** True if the images are read in the background rather than when first drawn. */
+	public boolean isLoadingImagesInBackground() {
+		return backgroundImages;
+	}
+
+	/** The image of the given name, or null while it is read in the background. */
+	public BufferedImage getImage(String fileNameOrUrl) {
+		if(isLoadingImagesInBackground())
+			return ImageCache.requestImage(fileNameOrUrl);
+
+		return ImageCache.loadImage(fileNameOrUrl);
+	}
+
+	/** The image of the given name for the camera if it is a Swing camera, else the image
+	 * read at once. */
+	public static BufferedImage getImage(DefaultCamera2D camera, String fileNameOrUrl) {
+		if(camera instanceof SwingCamera)
+			return ((SwingCamera)camera).getImage(fileNameOrUrl);
+
+		return ImageCache.loadImage(fileNameOrUrl);
+	}
+
+	/** The size of the element, used to pick it. The visibility check made at each frame reads
+	 * the size with {@link #halfSizePx(GraphicElement, int)} instead. */
+	@Override
+	public Values getNodeOrSpriteSize(GraphicElement elt) {
+		AreaSkeleton info = (AreaSkeleton)skeletonOf(elt);
+
+		if(info != null)
+			return new Values(StyleConstants.Units.GU, info.theSize().x, info.theSize().y);
+
+		return elt.getStyle().getSize();
+	}
+
+	@Override
+	public Point3 getSpritePositionEdge(GraphicSprite sprite, Point3 position, StyleConstants.Units units) {
+		ConnectorSkeleton info = (ConnectorSkeleton)skeletonOf(sprite.getEdgeAttachment());
+
+		if(info == null)
+			return super.getSpritePositionEdge(sprite, position, units);
+
+		Point3 pos = position != null ? position : new Point3();
+		double o = metrics.lengthToGu(sprite.getY(), sprite.getUnits());
+		double z = pos.z;
+
+		if(o == 0)
+			info.pointOnShape(sprite.getX(), pos);
+		else
+			info.pointOnShapeAndPerpendicular(sprite.getX(), o, pos);
+
+		pos.z = z;
+
+		if(units == StyleConstants.Units.PX)
+			bck.transform(pos);
+
+		return pos;
+	}
+
+	/** The skeleton of the element, read in the stores of the tiles first if any. */
+	protected Skeleton skeletonOf(GraphicElement element) {
+		if(tileSkeletons != null) {
+			for(SkeletonStore store : tileSkeletons) {
+				Skeleton skeleton = store.get(element);
+
+				if(skeleton != null)
+					return skeleton;
+			}
+		}
+
+		return skeletons.get(element);
+	}
+
+	/**
+	 * The visible elements of a node or edge style group, in the order of their slots in the
+	 * snapshot, as computed by the last visibility check. This is null if all the elements of
+	 * the group must be browsed, that is when the view is auto-fitted or for other kinds of
+	 * groups.
+	 */
+	public List<GraphicElement> visibleElements(StyleGroup group) {
+		if(autoFit || (group.getType() != Selector.Type.NODE && group.getType() != Selector.Type.EDGE))
+			return null;
+
+		return visibleByGroup.getOrDefault(group, NOTHING_VISIBLE);
+	}
+
+	/**
+	 * Store in the array the values the view transform is computed from when the view is
+	 * pushed: auto-fit, centre (computed from the bounds when auto-fitted), zoom, rotation,
+	 * graph viewport, graph bounds and viewport. Two frames with the same view state have
+	 * the same view. The array must hold {@link #VIEW_STATE_SIZE} values.
+	 */
+	public void viewState(double state[]) {
+		state[0] = autoFit ? 1 : 0;
+		state[1] = autoFit ? 0 : center.x;
+		state[2] = autoFit ? 0 : center.y;
+		state[3] = zoom;
+		state[4] = rotation;
+
+		for(int i = 0; i < 4; i++) {
+			state[5 + i] = gviewport != null ? gviewport[i] : Double.NaN;
+			state[9 + i] = metrics.viewport[i];
+		}
+
+		state[13] = metrics.lo.x;
+		state[14] = metrics.lo.y;
+		state[15] = metrics.hi.x;
+		state[16] = metrics.hi.y;
+	}
+
+	@Override
+	public boolean isVisible(GraphicElement element) {
+		if(!autoFit && element.getSelectorType() == Selector.Type.NODE)
+			return isNodeVisible((GraphicNode)element);
+
+		return super.isVisible(element);
+	}
+
+	@Override
+	public boolean isEdgeVisible(GraphicEdge edge) {
+		if(!edge.from.positionned || !edge.to.positionned || edge.hidden)
+			return false;
+
+		if(visibleLayout == snapshot.nodeLayout()) {
+			int slot = snapshot.edgeSlot(edge);
+
+			if(slot >= 0)
+				return visibleNodes.get(snapshot.from(slot)) || visibleNodes.get(snapshot.to(slot));
+		}
+
+		return isNodeVisible(edge.from) || isNodeVisible(edge.to);
+	}
+
+	/**
+	 * True if the node was visible at the last visibility check. When nodes were removed
+	 * since then, the slots changed and the node is tested again.
+	 */
+	protected boolean isNodeVisible(GraphicNode node) {
+		if(visibleLayout == snapshot.nodeLayout()) {
+			int slot = snapshot.nodeSlot(node);
+			return slot >= 0 && visibleNodes.get(slot);
+		}
+
+		double X = metrics.viewport[0];
+		double Y = metrics.viewport[1];
+
+		return !node.hidden && node.positionned && isNodeIn(node, X, Y, X + metrics.viewport[2], Y + metrics.viewport[3]);
+	}
+
+// Command
+
+	/** Read the images in the background if on, the renderer must then draw the frame again
+	 * when they arrive, see {@link ImageCache#addListener(ImageCache.Listener)}. */
+	public void setLoadingImagesInBackground(boolean on) {
+		backgroundImages = on;
+	}
+
+	/** Signal a change of the style sheet of the graph. */
+	public void styleChanged() {
+		styleVersion.incrementAndGet();
+	}
+
+	/** Tell the given listener, or nobody if null, when the view is changed. */
+	public void setViewListener(ViewListener listener) {
+		viewListener = listener;
+	}
+
+	@Override
+	public void setViewCenter(double x, double y, double z) {
+		super.setViewCenter(x, y, z);
+		viewChanged();
+	}
+
+	@Override
+	public void setViewPercent(double percent) {
+		super.setViewPercent(percent);
+		viewChanged();
+	}
+
+	@Override
+	public void setViewRotation(double theta) {
+		super.setViewRotation(theta);
+		viewChanged();
+	}
+
+	@Override
+	public void setZoom(double z) {
+		super.setZoom(z);
+		viewChanged();
+	}
+
+	@Override
+	public void setAutoFitView(boolean on) {
+		super.setAutoFitView(on);
+		viewChanged();
+	}
+
+	@Override
+	public void setGraphViewport(double minx, double miny, double maxx, double maxy) {
+		super.setGraphViewport(minx, miny, maxx, maxy);
+		viewChanged();
+	}
+
+	@Override
+	public void removeGraphViewport() {
+		super.removeGraphViewport();
+		viewChanged();
+	}
+
+	protected void viewChanged() {
+		ViewListener listener = viewListener;
+
+		if(listener != null)
+			listener.viewChanged(this);
+	}
+
+	/** The node moved without events, the skeletons of its edges must be computed again in the
+	 * store of the renderer and the ones of the tiles. */
+	public void nodeMoved(GraphicNode node) {
+		skeletons.nodeMoved(node);
+
+		if(tileSkeletons != null)
+			tileSkeletons.forEach(store -> store.nodeMoved(node));
+	}
+
+	/** Use the skeleton stores of the tiles for picking, or the store of the renderer if null. */
+	public void setTileSkeletons(List<SkeletonStore> stores) {
+		tileSkeletons = stores;
+	}
+
+	/** Set up the view transform as {@link #pushView(GraphicGraph)} does, without checking the
+	 * visibility of the elements again. Used when the view and the graph did not change since
+	 * the last frame, the visible elements are then still valid. */
+	public void pushLastView(GraphicGraph graph) {
+		bck.pushTransform();
+		setPadding(graph);
+
+		if(autoFit)
+			autoFitView();
+		else
+			userView();
+	}
+
+	/** Use the same view as the given camera: auto-fit, centre, zoom, rotation and graph viewport. */
+	public void copyView(SwingCamera camera) {
+		autoFit = camera.autoFit;
+		center.copy(camera.center);
+		zoom = camera.zoom;
+		rotation = camera.rotation;
+		gviewport = camera.gviewport != null ? camera.gviewport.clone() : null;
+	}
+
+	/** Use the view given by {@link #viewState(double[])}: auto-fit, centre, zoom, rotation and
+	 * graph viewport. The metrics are computed at the next frame. */
+	public void setViewState(double state[]) {
+		autoFit = state[0] != 0;
+		center.set(state[1], state[2], center.z);
+		zoom = state[3];
+		rotation = state[4];
+		gviewport = Double.isNaN(state[5]) ? null : new double[] { state[5], state[6], state[7], state[8] };
+	}
+
+	@Override
+	public void checkVisibility(GraphicGraph graph) {
+		nodeInvisible.clear();
+		spriteInvisible.clear();
+		visibleNodes.clear();
+		visibleEdges.clear();
+
+		if(visibleByGroup.size() > graph.getStyleGroups().getGroupCount())
+			visibleByGroup.clear();
+		else
+			visibleByGroup.values().forEach(ArrayList::clear);
+
+		if(!autoFit) {
+			double X = metrics.viewport[0];
+			double Y = metrics.viewport[1];
+			double W = metrics.viewport[2];
+			double H = metrics.viewport[3];
+
+			areaInGu(Selector.Type.NODE, X, Y, X + W, Y + H);
+			index.nodesIn(lo[0], lo[1], hi[0], hi[1], node -> checkNodeVisibility(node, X, Y, W, H));
+			unindexed.forEach(node -> checkNodeVisibility((GraphicNode)node, X, Y, W, H));
+
+			for(int slot = visibleNodes.nextSetBit(0); slot >= 0; slot = visibleNodes.nextSetBit(slot + 1))
+				addVisibleEdges(snapshot.nodeAt(slot));
+
+			// The elements are kept by group in the order of their slots, that is the order of the
+			// graph, rather than in the order of the grid cells, so that overlapping elements are
+			// always drawn in the same order when they move.
+			for(int slot = visibleNodes.nextSetBit(0); slot >= 0; slot = visibleNodes.nextSetBit(slot + 1))
+				keepVisible(snapshot.nodeAt(slot));
+			for(int slot = visibleEdges.nextSetBit(0); slot >= 0; slot = visibleEdges.nextSetBit(slot + 1))
+				keepVisible(snapshot.edgeAt(slot));
+
+			visibleLayout = snapshot.nodeLayout();
+
+			graph.sprites().forEach(sprite -> {
+				if(!(isSpriteIn(sprite, X, Y, X + W, Y + H) && !sprite.hidden))
+					spriteInvisible.add(sprite.getId());
+			});
+		}
+	}
+
+	protected void checkNodeVisibility(GraphicNode node, double X, double Y, double W, double H) {
+		int slot = snapshot.nodeSlot(node);
+
+		if(slot >= 0 && !visibleNodes.get(slot) && snapshot.isNodeShown(slot) && isNodeIn(node, slot, X, Y, X + W, Y + H))
+			visibleNodes.set(slot);
+	}
+
+	/** True if the node at the given slot of the snapshot is in the given area in pixels. Same
+	 * as {@link #isNodeIn(GraphicNode, double, double, double, double)}, but with the position
+	 * and the "ui.size" of the snapshot. */
+	protected boolean isNodeIn(GraphicNode node, int slot, double X1, double Y1, double X2, double Y2) {
+		halfSizePx(node, slot);
+		position.set(snapshot.x(slot), snapshot.y(slot), 0);
+		bck.transform(position);
+
+		return isIn(X1, Y1, X2, Y2);
+	}
+
+	@Override
+	public boolean isSpriteIn(GraphicSprite sprite, double X1, double Y1, double X2, double Y2) {
+		halfSizePx(sprite, -1);
+		getSpritePosition(sprite, position, StyleConstants.Units.PX);
+
+		return isIn(X1, Y1, X2, Y2);
+	}
+
+	/** True if the box of the last position and half size computed intersects the given area. */
+	private boolean isIn(double X1, double Y1, double X2, double Y2) {
+		return position.x + halfWidth >= X1 && position.y + halfHeight >= Y1
+			&& position.x - halfWidth <= X2 && position.y - halfHeight <= Y2;
+	}
+
+	/** Compute the half size in pixels of the node or sprite, without allocation. The size is the
+	 * one of the skeleton if any, else the "ui.size" of the node in the snapshot for the groups
+	 * of dynamic size, else the size of the style. The slot is the one of the node in the snapshot,
+	 * -1 for sprites. */
+	protected void halfSizePx(GraphicElement element, int slot) {
+		AreaSkeleton info = (AreaSkeleton)skeletonOf(element);
+
+		if(info != null) {
+			halfWidth = metrics.lengthToPx(info.theSize().x, StyleConstants.Units.GU) / 2;
+			halfHeight = metrics.lengthToPx(info.theSize().y, StyleConstants.Units.GU) / 2;
+		}
+		else if(slot >= 0 && !Float.isNaN(snapshot.size(slot))
+		&& element.getStyle().getSizeMode() == StyleConstants.SizeMode.DYN_SIZE) {
+			halfWidth = metrics.lengthToPx(snapshot.size(slot), snapshot.sizeUnits(slot)) / 2;
+			halfHeight = halfWidth;
+		}
+		else {
+			Values size = element.getStyle().getSize();
+
+			halfWidth = metrics.lengthToPx(size, 0) / 2;
+			halfHeight = size.size() > 1 ? metrics.lengthToPx(size, 1) / 2 : halfWidth;
+		}
+	}
+
+	/** Mark the shown edges of a visible node as visible. */
+	protected void addVisibleEdges(GraphicNode node) {
+		if(node.getDegree() > 0) {
+			node.edges().forEach(e -> {
+				int slot = snapshot.edgeSlot((GraphicEdge)e);
+
+				if(slot >= 0 && snapshot.isEdgeShown(slot))
+					visibleEdges.set(slot);
+			});
+		}
+	}
+
+	/** Add a visible element at the end of the visible elements of its group. */
+	protected void keepVisible(GraphicElement element) {
+		visibleByGroup.computeIfAbsent(element.getStyle(), g -> new ArrayList<>()).add(element);
+	}
+
+	@Override
+	public GraphicElement findGraphicElementAt(GraphicGraph graph, EnumSet<InteractiveElement> types, double x, double y) {
+		if(bck == null)
+			return super.findGraphicElementAt(graph, types, x, y);
+
+		double xT = x + metrics.viewport[0];
+		double yT = y + metrics.viewport[1];
+
+		if(types.contains(InteractiveElement.NODE)) {
+			GraphicElement node = find(Selector.Type.NODE, xT, yT, n -> nodeContains(n, xT, yT));
+
+			if(node != null && isVisible(node))
+				return node;
+		}
+
+		if(types.contains(InteractiveElement.EDGE)) {
+			GraphicElement edge = find(Selector.Type.EDGE, xT, yT, e -> edgeContains(e, xT, yT));
+
+			if(edge != null && isVisible(edge))
+				return edge;
+		}
+
+		if(types.contains(InteractiveElement.SPRITE)) {
+			GraphicElement sprite = find(Selector.Type.SPRITE, xT, yT, s -> spriteContains(s, xT, yT));
+
+			if(sprite != null && isVisible(sprite))
+				return sprite;
+		}
+
+		return null;
+	}
+
+	@Override
+	public Collection<GraphicElement> allGraphicElementsIn(GraphicGraph graph, EnumSet<InteractiveElement> types, double x1, double y1, double x2, double y2) {
+		if(bck == null)
+			return super.allGraphicElementsIn(graph, types, x1, y1, x2, y2);
+
+		double x1T = x1 + metrics.viewport[0];
+		double y1T = y1 + metrics.viewport[1];
+		double x2T = x2 + metrics.viewport[0];
+		double y2T = y2 + metrics.viewport[1];
+		LinkedHashSet<GraphicElement> elts = new LinkedHashSet<>();
+
+		if(types.contains(InteractiveElement.NODE)) {
+			areaInGu(Selector.Type.NODE, x1T, y1T, x2T, y2T);
+			index.nodesIn(lo[0], lo[1], hi[0], hi[1], n -> {
+				if(isNodeIn(n, x1T, y1T, x2T, y2T))
+					elts.add(n);
+			});
+			unindexed.forEach(n -> {
+				if(isNodeIn((GraphicNode)n, x1T, y1T, x2T, y2T))
+					elts.add(n);
+			});
+		}
+
+		if(types.contains(InteractiveElement.EDGE)) {
+			areaInGu(Selector.Type.EDGE, x1T, y1T, x2T, y2T);
+			index.edgesIn(lo[0], lo[1], hi[0], hi[1], e -> {
+				if(isEdgeIn(e, x1T, y1T, x2T, y2T))
+					elts.add(e);
+			});
+			unindexed.forEach(e -> {
+				if(isEdgeIn((GraphicEdge)e, x1T, y1T, x2T, y2T))
+					elts.add(e);
+			});
+		}
+
+		if(types.contains(InteractiveElement.SPRITE)) {
+			areaInGu(Selector.Type.SPRITE, x1T, y1T, x2T, y2T);
+			index.spritesIn(lo[0], lo[1], hi[0], hi[1], s -> {
+				if(isSpriteIn(s, x1T, y1T, x2T, y2T))
+					elts.add(s);
+			});
+			unindexed.forEach(s -> {
+				if(isSpriteIn((GraphicSprite)s, x1T, y1T, x2T, y2T))
+					elts.add(s);
+			});
+		}
+
+		return new ArrayList<>(elts);
+	}
+
+	/**
+	 * The candidate of the given type accepted by the test at the given pixel. Visible
+	 * candidates are preferred.
+	 */
+	protected GraphicElement find(Selector.Type type, double x, double y, Predicate<GraphicElement> test) {
+		found = null;
+		areaInGu(type, x, y, x, y);
+
+		if(type == Selector.Type.NODE)
+			index.nodesIn(lo[0], lo[1], hi[0], hi[1], n -> keepFirst(n, test));
+		else if(type == Selector.Type.SPRITE)
+			index.spritesIn(lo[0], lo[1], hi[0], hi[1], s -> keepFirst(s, test));
+		else
+			index.edgesIn(lo[0], lo[1], hi[0], hi[1], e -> keepFirst(e, test));
+
+		unindexed.forEach(e -> keepFirst(e, test));
+
+		return found;
+	}
+
+	private void keepFirst(GraphicElement element, Predicate<GraphicElement> test) {
+		if((found == null || (!isVisible(found) && isVisible(element))) && test.test(element))
+			found = element;
+	}
+
+	/**
+	 * Compute in {@link #lo} and {@link #hi} the graph units box to query the index for
+	 * elements of the given type that may touch the given pixel area. Also fill
+	 * {@link #unindexed} with the elements that must be tested anyway.
+	 */
+	protected void areaInGu(Selector.Type type, double x1, double y1, double x2, double y2) {
+		double margin = marginPx(type);
+		double px1 = Math.min(x1, x2) - margin, py1 = Math.min(y1, y2) - margin;
+		double px2 = Math.max(x1, x2) + margin, py2 = Math.max(y1, y2) + margin;
+
+		lo[0] = lo[1] = Double.MAX_VALUE;
+		hi[0] = hi[1] = -Double.MAX_VALUE;
+
+		// The view may be rotated, all the corners are needed.
+		cornerInGu(px1, py1);
+		cornerInGu(px2, py1);
+		cornerInGu(px1, py2);
+		cornerInGu(px2, py2);
+	}
+
+	private void cornerInGu(double x, double y) {
+		corner.set(x, y, 0);
+		bck.inverseTransform(corner);
+		lo[0] = Math.min(lo[0], corner.x);
+		lo[1] = Math.min(lo[1], corner.y);
+		hi[0] = Math.max(hi[0], corner.x);
+		hi[1] = Math.max(hi[1], corner.y);
+	}
+
+	/** Half of the largest size in pixels of the elements of the given type. */
+	protected double marginPx(Selector.Type type) {
+		double margin = 0;
+
+		unindexed.clear();
+
+		for(StyleGroup group : graph.getStyleGroups().groups()) {
+			if(group.getType() == type) {
+				if((type == Selector.Type.NODE && group.getSizeMode() == StyleConstants.SizeMode.FIT)
+						|| (type == Selector.Type.SPRITE && group.getSizeMode() != StyleConstants.SizeMode.NORMAL)) {
+					for(Element element : group.elements())
+						unindexed.add((GraphicElement)element);
+				} else {
+					margin = Math.max(margin, halfSizePx(group.getSize()));
+
+					if(type == Selector.Type.NODE && group.getSizeMode() == StyleConstants.SizeMode.DYN_SIZE) {
+						for(StyleConstants.Units units : StyleConstants.Units.values())
+							margin = Math.max(margin, metrics.lengthToPx(index.maxDynSize(units), units) / 2);
+					}
+
+					if(group.hasEventElements()) {
+						for(ElementEvents events : group.elementsEvents())
+							unindexed.add((GraphicElement)events.getElement());
+					}
+				}
+			}
+		}
+
+		return margin;
+	}
+
+	private double halfSizePx(Values size) {
+		double w = metrics.lengthToPx(size, 0);
+
+		if(size.size() > 1)
+			w = Math.max(w, metrics.lengthToPx(size, 1));
+
+		return w / 2;
+	}
+}
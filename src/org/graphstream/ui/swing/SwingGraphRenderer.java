@@ -33,11 +33,14 @@ package org.graphstream.ui.swing;
 
 import java.awt.Container;
 import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.EnumSet;
+import java.util.List;
 import java.util.logging.Logger;
 
 import javax.imageio.ImageIO;
@@ -52,13 +55,21 @@ import org.graphstream.ui.graphicGraph.GraphicNode;
 import org.graphstream.ui.graphicGraph.StyleGroup;
 import org.graphstream.ui.graphicGraph.StyleGroupListener;
 import org.graphstream.ui.graphicGraph.StyleGroupSet;
+import org.graphstream.ui.graphicGraph.stylesheet.Rule;
 import org.graphstream.ui.graphicGraph.stylesheet.Selector;
+import org.graphstream.ui.graphicGraph.stylesheet.StyleSheetListener;
 import org.graphstream.ui.swing.renderer.GraphBackgroundRenderer;
 import org.graphstream.ui.swing.renderer.JComponentRenderer;
+import org.graphstream.ui.swing.renderer.LayerCache;
 import org.graphstream.ui.swing.renderer.SelectionRenderer;
+import org.graphstream.ui.swing.renderer.SkeletonStore;
 import org.graphstream.ui.swing.renderer.StyleRenderer;
 import org.graphstream.ui.swing.util.FPSLogger;
+import org.graphstream.ui.swing.util.FrameSnapshot;
+import org.graphstream.ui.swing.util.ImageCache;
+import org.graphstream.ui.swing.util.LevelOfDetail;
 import org.graphstream.ui.swing.util.Selection;
+import org.graphstream.ui.swing.util.SpatialIndex;
 import org.graphstream.ui.swing_viewer.DefaultView;
 import org.graphstream.ui.swing_viewer.util.Graphics2DOutput;
 import org.graphstream.ui.view.GraphRenderer;
@@ -85,6 +96,14 @@ import org.graphstream.ui.view.util.InteractiveElement;
  * render each style group once for the shadows, and once for the real rendering
  * in Z order.
  * 
+ * The frames are kept in a {@link LayerCache}. When nothing changed since the last
+ * frame, the cached frame is drawn as is; when only some style groups changed, the
+ * groups under them in Z order are taken from the cache. The back layer is not cached,
+ * setting a back layer renderer disables the cache.
+ * 
+ * When the "ui.tiles" graph attribute is set, the style groups drawn through the cache
+ * are rendered in tiles, in parallel, by a {@link TiledRenderer}.
+ * 
  * This class also handles a "selection" object that represents the current selection
  * and renders it.
  * 
@@ -110,6 +129,40 @@ public class SwingGraphRenderer implements GraphRenderer<Container, Graphics2D>,
 	
 	protected FPSLogger fpsLogger = null ;
 	
+	/** Spatial index of the nodes and edges, used for picking. */
+	protected SpatialIndex index = null ;
+	
+	/** Skeletons of the elements drawn by this renderer. */
+	protected SkeletonStore skeletons = null ;
+	
+	/** Level of detail of the style groups, shared with the camera. */
+	protected LevelOfDetail levelOfDetail = null ;
+	
+	/** Last rendered frame and unchanged layers. */
+	protected LayerCache layers = null ;
+	
+	/** Style groups of the frame in Z order and their level of detail, kept between the frames. */
+	protected ArrayList<StyleGroup> retainedGroups = new ArrayList<>() ;
+	protected boolean retainedReduced[] = new boolean[0] ;
+	
+	/** Positions and styles of the nodes and edges, updated at the start of each frame. */
+	protected FrameSnapshot snapshot = null ;
+	
+	/** Renders the style groups in tiles when asked by the "ui.tiles" attribute. */
+	protected TiledRenderer tiles = null ;
+	
+	/** Set when images requested in the background arrived, the frame is then drawn anew. */
+	protected volatile boolean imagesChanged = false ;
+	
+	/** Asks the drawing surface for a new frame when images requested in the background arrive. */
+	protected ImageCache.Listener imageListener = null ;
+	
+	/** Invalidates the icons and texts kept on the skeletons when the style sheet changes. */
+	protected StyleSheetListener styleSheetListener = new StyleSheetListener() {
+		public void styleAdded(Rule oldRule, Rule newRule) { ((SwingCamera)camera).styleChanged(); layers.invalidate(); }
+		public void styleSheetCleared() { ((SwingCamera)camera).styleChanged(); layers.invalidate(); }
+	};
+	
 // Construction
 
 	@Override
@@ -117,9 +170,31 @@ public class SwingGraphRenderer implements GraphRenderer<Container, Graphics2D>,
 		if( this.graph == null ) {
 			this.graph   = graph;
 			this.backend = new BackendJ2D();		// choose it according to some setting
-		  	this.camera  = new DefaultCamera2D(graph);
+			this.index   = new SpatialIndex(graph);
+			this.skeletons = new SkeletonStore(graph);
+			this.layers  = new LayerCache(graph);
+			this.snapshot = new FrameSnapshot(graph);
+		  	SwingCamera swingCamera = new SwingCamera(graph, index, skeletons, snapshot);
+		  	this.levelOfDetail = swingCamera.getLevelOfDetail();
+		  	this.camera  = swingCamera;
+		  	this.tiles   = new TiledRenderer(this, graph, swingCamera);
+		  	graph.addSink(index);
+		  	graph.addSink(skeletons);
+		  	graph.addSink(layers);
+		  	graph.addSink(snapshot);
 		  	graph.getStyleGroups().addListener(this);
+		  	graph.getStyleSheet().addListener(styleSheetListener);
 		  	backend.open(drawingSurface);
+		  	
+		  	// Images are only read in the background when a surface can be asked for a new frame.
+		  	if(drawingSurface != null) {
+		  		swingCamera.setLoadingImagesInBackground(true);
+		  		imageListener = url -> {
+		  			imagesChanged = true;
+		  			drawingSurface.repaint();
+		  		};
+		  		ImageCache.addListener(imageListener);
+		  	}
 	  	}
 		else {
 	  		throw new RuntimeException("renderer already open, use close() first");
@@ -135,9 +210,28 @@ public class SwingGraphRenderer implements GraphRenderer<Container, Graphics2D>,
 			}
    
 			removeRenderers();
+			
+			if(imageListener != null) {
+				ImageCache.removeListener(imageListener);
+				imageListener = null;
+			}
+			
 			backend.close();
 			graph.getStyleGroups().removeListener(this);
+			graph.getStyleSheet().removeListener(styleSheetListener);
+			graph.removeSink(index);
+			graph.removeSink(skeletons);
+			graph.removeSink(layers);
+			graph.removeSink(snapshot);
+			layers.clear();
+			tiles.clear();
 			graph   = null;
+			index   = null;
+			skeletons = null;
+			layers  = null;
+			snapshot = null;
+			tiles   = null;
+			levelOfDetail = null;
 			backend = null;
 			camera  = null;
 		}
@@ -206,12 +300,44 @@ public class SwingGraphRenderer implements GraphRenderer<Container, Graphics2D>,
     public void moveElementAtPx(GraphicElement element, double x, double y) {
   		Point3 p = camera.transformPxToGu(x, y);
   		element.move(p.x, p.y, element.getZ());
+  		
+  		if(element instanceof GraphicNode) {
+  			index.nodeMoved((GraphicNode)element);
+  			snapshot.nodeMoved((GraphicNode)element);
+  			((SwingCamera)camera).nodeMoved((GraphicNode)element);
+  		}
   	}
  
+    /**
+     * Set the camera up for the given area as a frame rendered now would, without drawing: the
+     * view transform, the bounds of the graph and the visible elements. Picking and the
+     * conversions between pixels and graph units then work while the graph is drawn by another
+     * renderer (see {@link org.graphstream.ui.swing_viewer.ThreadedView}). The sizes of the nodes
+     * and sprites that fit their content are measured when they are drawn, they must be put in
+     * the skeleton store of the camera by the caller.
+     */
+    public void prepare(Graphics2D g, int x, int y, int width, int height) {
+    	if(graph != null) {
+    		backend.prepareNewFrame(g);
+    		camera.setBackend(backend);
+    		snapshot.update();
+    		snapshot.computeBounds();
+    		camera.setBounds(graph);
+    		camera.setViewport(x, y, width, height);
+    		camera.pushView(graph);
+    		camera.popView();
+    	}
+    }
+
 // Commands -- Rendering
     
     @Override
     public void render(Graphics2D g, int x, int y, int width, int height) {
+    	render(g, x, y, width, height, true);
+    }
+    
+    /** Render the graph, using the layer cache if retained is true and the graphics allows it. */
+    protected void render(Graphics2D g, int x, int y, int width, int height, boolean retained) {
     	if(graph != null) {
   	        startFrame();
   	        
@@ -223,28 +349,24 @@ public class SwingGraphRenderer implements GraphRenderer<Container, Graphics2D>,
   		    backend.prepareNewFrame(g);
   		    camera.setBackend(backend);
   		        
-  			StyleGroupSet sgs = graph.getStyleGroups();
-  			
   			setupGraphics();
-  			graph.computeBounds();
+  			
+  			if(imagesChanged) {
+  				imagesChanged = false;
+  				layers.invalidate();
+  			}
+  			
+  			snapshot.update();
+  			snapshot.computeBounds();
   			camera.setBounds(graph);
   			camera.setViewport(x, y, width, height);
-  			getStyleRenderer(graph).render(backend, camera, width, height);
-  			renderBackLayer();
-
-  			camera.pushView(graph);
-  			sgs.shadows().forEach( s -> getStyleRenderer(s).renderShadow(backend, camera));
   			
+  			// The back layer may change at any time, it is not cached.
+  			if(retained && backRenderer == null && layers.accepts(g))
+  				renderRetainedGraph(g, width, height);
+  			else
+  				renderGraph(width, height);
   			
-  			sgs.getZIndex().forEach( groups -> {
-  				groups.forEach( group -> {
-  					if(group.getType() != Selector.Type.GRAPH) {
-  						getStyleRenderer(group).render(backend, camera);
-		  	  		}
-  				});
-  			});
- 
-  			camera.popView();
   			renderForeLayer();
   
   			if( selection.getRenderer() == null ) 
@@ -255,6 +377,159 @@ public class SwingGraphRenderer implements GraphRenderer<Container, Graphics2D>,
   	    }
     }
     
+    /** Render the background, the back layer and the style groups. */
+    protected void renderGraph(int width, int height) {
+		StyleGroupSet sgs = graph.getStyleGroups();
+		
+		getStyleRenderer(graph).render(backend, camera, width, height);
+		renderBackLayer();
+
+		camera.pushView(graph);
+		levelOfDetail.configure(graph, camera.getMetrics(), index);
+		sgs.shadows().forEach( s -> getStyleRenderer(s).renderShadow(backend, camera));
+		
+		
+		sgs.getZIndex().forEach( groups -> {
+			groups.forEach( group -> {
+				if(group.getType() != Selector.Type.GRAPH) {
+					getStyleRenderer(group).render(backend, camera);
+	  	  		}
+			});
+		});
+
+		camera.popView();
+    }
+    
+    /**
+     * Render the background and the style groups through the layer cache: only the groups that
+     * changed and the groups above them are drawn again, then the cached frame is drawn on the
+     * graphics.
+     */
+    protected void renderRetainedGraph(Graphics2D g, int width, int height) {
+    	AffineTransform base = g.getTransform();
+    	
+    	if(layers.beginFrame(g, (SwingCamera)camera, width, height)) {
+    		StyleGroupSet sgs = graph.getStyleGroups();
+    		ArrayList<StyleGroup> groups = retainedGroups;
+    		
+    		groups.clear();
+    		sgs.getZIndex().forEach( z -> z.forEach( group -> {
+    			if(group.getType() != Selector.Type.GRAPH)
+    				groups.add(group);
+    		}));
+    		
+    		camera.pushView(graph);
+    		levelOfDetail.configure(graph, camera.getMetrics(), index);
+    		
+    		AffineTransform view = g.getTransform();
+    		
+    		if(retainedReduced.length < groups.size())
+    			retainedReduced = new boolean[groups.size()];
+    		
+    		boolean reduced[] = retainedReduced;
+    		
+    		for(int i = 0; i < groups.size(); i++)
+    			reduced[i] = levelOfDetail.isReduced(groups.get(i));
+    		
+    		int first = layers.firstChanged(groups, reduced, sgs.shadows());
+    		
+    		if(first == 0 && layers.isChanging()) {
+    			// Everything changed, draw directly on the graphics.
+    			renderGroups(g, base, groups, 0, groups.size(), true, width, height);
+    			layers.discardFrame();
+    		}
+    		else {
+    			renderLayers(groups, first, view, base, width, height);
+    			useGraphics(g, view);
+    		}
+    		
+    		g.setTransform(base);
+    	}
+    	else {
+    		// The fore layer, the selection and picking use the view transform of the backend,
+    		// reset by the new frame.
+    		((SwingCamera)camera).pushLastView(graph);
+    		camera.popView();
+    	}
+    	
+    	layers.drawFrame(g);
+    }
+    
+    /**
+     * Render the style groups from the first changed one in the frame image of the layer cache,
+     * the groups under it come from the under image, updated if needed. The view and base are
+     * the transforms of the graphics the frame is drawn on.
+     */
+    protected void renderLayers(ArrayList<StyleGroup> groups, int first, AffineTransform view, AffineTransform base, int width, int height) {
+    	AffineTransform imageView = AffineTransform.getTranslateInstance(-base.getTranslateX(), -base.getTranslateY());
+    	Graphics2D frame;
+    	
+    	imageView.concatenate(view);
+    	
+    	if(first > 0) {
+    		int cached = layers.underCount();
+    		Graphics2D under = layers.underGraphics(cached < 0);
+    		AffineTransform imageBase = under.getTransform();
+    		
+    		useGraphics(under, imageView);
+    		renderGroups(under, imageBase, groups, Math.max(cached, 0), first, cached < 0, width, height);
+    		under.dispose();
+    		layers.setUnderCount(first);
+    		layers.copyUnder();
+    		frame = layers.frameGraphics(false);
+    	}
+    	else {
+    		frame = layers.frameGraphics(true);
+    	}
+    	
+    	AffineTransform imageBase = frame.getTransform();
+    	
+    	useGraphics(frame, imageView);
+    	renderGroups(frame, imageBase, groups, first, groups.size(), first == 0, width, height);
+    	frame.dispose();
+    }
+    
+    /**
+     * Render the style groups from first to last (excluded) on the graphics, whose transform is the
+     * view and base transform is given, after the background and the shadows if background is true.
+     * The groups are rendered in tiles if asked by the "ui.tiles" attribute.
+     */
+    protected void renderGroups(Graphics2D g, AffineTransform base, List<StyleGroup> groups, int first, int last, boolean background, int width, int height) {
+    	if(tiles.isEnabled()) {
+    		tiles.render(g, base, groups, first, last, background, width, height);
+    	}
+    	else {
+    		tiles.clear();
+    		
+    		if(background) {
+    			renderBackground(g, base, width, height);
+    			graph.getStyleGroups().shadows().forEach( s -> getStyleRenderer(s).renderShadow(backend, camera));
+    		}
+    		
+    		for(int i = first; i < last; i++)
+    			getStyleRenderer(groups.get(i)).render(backend, camera);
+    	}
+    }
+    
+    /** Continue the frame on another graphics, with the given view transform if not null. */
+    protected void useGraphics(Graphics2D g, AffineTransform view) {
+    	backend.prepareNewFrame(g);
+    	setupGraphics();
+    	
+    	if(view != null) {
+    		g.setTransform(view);
+    		backend.endTransform();
+    	}
+    }
+    
+    /** Render the graph background on a graphics whose transform is the view, using the base transform. */
+    protected void renderBackground(Graphics2D g, AffineTransform base, int width, int height) {
+    	AffineTransform view = g.getTransform();
+    	g.setTransform(base);
+    	getStyleRenderer(graph).render(backend, camera, width, height);
+    	g.setTransform(view);
+    }
+    
     protected void startFrame() {
   	    if((fpsLogger == null) && graph.hasLabel("ui.log")) {
   	    	fpsLogger = new FPSLogger(graph.getLabel("ui.log").toString());
@@ -299,9 +574,26 @@ public class SwingGraphRenderer implements GraphRenderer<Container, Graphics2D>,
 	}
 	
 	public void screenshot(String filename, int width, int height) {
+		// A screenshot waits for its images rather than drawing placeholders.
+		SwingCamera swingCamera = (SwingCamera)camera;
+		boolean background = swingCamera != null && swingCamera.isLoadingImagesInBackground();
+		
+		if(background)
+			swingCamera.setLoadingImagesInBackground(false);
+		
+		try {
+			writeScreenshot(filename, width, height);
+		}
+		finally {
+			if(background)
+				swingCamera.setLoadingImagesInBackground(true);
+		}
+	}
+	
+	protected void writeScreenshot(String filename, int width, int height) {
 		if(filename.toLowerCase().endsWith("png")) {
 			BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
-			render(img.createGraphics(), 0, 0, width, height);
+			render(img.createGraphics(), 0, 0, width, height, false);
 			File file = new File(filename);
 			try {
 				ImageIO.write(img, "png", file);
@@ -310,7 +602,7 @@ public class SwingGraphRenderer implements GraphRenderer<Container, Graphics2D>,
 		else if(filename.toLowerCase().endsWith("bmp")) {
 			// Who, in the world, is still using BMP ???
 			BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-			render(img.createGraphics(), 0, 0, width, height);
+			render(img.createGraphics(), 0, 0, width, height, false);
 			File file = new File(filename);
 			try {
 				ImageIO.write(img, "bmp", file);
@@ -318,7 +610,7 @@ public class SwingGraphRenderer implements GraphRenderer<Container, Graphics2D>,
 		}
 		else if(filename.toLowerCase().endsWith("jpg") || filename.toLowerCase().endsWith("jpeg")) {
 			BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-			render(img.createGraphics(), 0, 0, width, height);
+			render(img.createGraphics(), 0, 0, width, height, false);
 			File file = new File(filename);
 			try {
 				ImageIO.write(img, "jpg", file);
@@ -332,7 +624,7 @@ public class SwingGraphRenderer implements GraphRenderer<Container, Graphics2D>,
 				if(o instanceof Graphics2DOutput) {
 					Graphics2DOutput out = (Graphics2DOutput)o;
 					Graphics2D g2 = out.getGraphics();
-					render(g2, 0, 0, width, height);
+					render(g2, 0, 0, width, height, false);
 					out.outputTo(filename);
 				} 
 				else {
@@ -343,7 +635,7 @@ public class SwingGraphRenderer implements GraphRenderer<Container, Graphics2D>,
 		else {
 		    Logger.getLogger(this.getClass().getSimpleName()).warning("Unknown screenshot filename extension "+filename+", saving to jpeg.");
 		    BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-			render(img.createGraphics(), 0, 0, width, height);
+			render(img.createGraphics(), 0, 0, width, height, false);
 			File file = new File(filename+".jpg");
 			try {
 				ImageIO.write(img, "jpg", file);
@@ -351,7 +643,12 @@ public class SwingGraphRenderer implements GraphRenderer<Container, Graphics2D>,
 		}
 	}
 	
-	public void setBackLayerRenderer(LayerRenderer<Graphics2D> renderer) { backRenderer = renderer; }
+	public void setBackLayerRenderer(LayerRenderer<Graphics2D> renderer) {
+		backRenderer = renderer;
+		
+		if(layers != null)
+			layers.invalidate();
+	}
 
 	public void setForeLayoutRenderer(LayerRenderer<Graphics2D> renderer) { foreRenderer = renderer; }
 	
@@ -359,6 +656,8 @@ public class SwingGraphRenderer implements GraphRenderer<Container, Graphics2D>,
     public void elementStyleChanged(Element element, StyleGroup oldStyle, StyleGroup style) {
     	// XXX The element renderer should be the listener, not this. ... XXX
 
+    	layers.elementStyleChanged(element, oldStyle, style);
+    	
     	if(oldStyle != null) {
     		SwingElementRenderer renderer = oldStyle.getRenderer(SwingGraphRenderer.DEFAULT_RENDERER);
 
@@ -0,0 +1,414 @@
+/*
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ *
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ *
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+
+ /**
+  * @author Antoine Dutot <antoine.dutot@graphstream-project.org>
+  * @author Guilhelm Savin <guilhelm.savin@graphstream-project.org>
+  * @author Hicham Brahimi <hicham.brahimi@graphstream-project.org>
+  */
+
+
+package org.graphstream.ui.swing;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.graphstream.graph.Element;
+import org.graphstream.ui.geom.Point3;
+import org.graphstream.ui.graphicGraph.GraphicEdge;
+import org.graphstream.ui.graphicGraph.GraphicElement;
+import org.graphstream.ui.graphicGraph.GraphicGraph;
+import org.graphstream.ui.graphicGraph.GraphicNode;
+import org.graphstream.ui.graphicGraph.StyleGroup;
+import org.graphstream.ui.graphicGraph.stylesheet.Selector;
+import org.graphstream.ui.graphicGraph.stylesheet.StyleConstants;
+import org.graphstream.ui.graphicGraph.stylesheet.Values;
+import org.graphstream.ui.swing.renderer.SkeletonStore;
+import org.graphstream.ui.swing.util.SpatialIndex;
+import org.graphstream.ui.view.util.GraphMetrics;
+
+/**
+ * Camera of a tile, when the frames are rendered in tiles (see {@link TiledRenderer}).
+ *
+ * The tile camera uses the same view as the camera of the renderer, on a graphics
+ * whose origin is the corner of the tile. It does not look for the visible elements
+ * by itself: it keeps, among the elements visible for the camera of the renderer,
+ * those whose bounding box touches the tile. The boxes are enlarged by the stroke,
+ * shadow, arrows, label and icon of the elements (see {@link Extent}) so that what
+ * is drawn around an element is not cut at the border of the tiles. The boxes of
+ * curved edges and loops also hold their control points.
+ *
+ * The end nodes of the kept edges and the edges the sprites are attached to are
+ * kept too, so that their skeletons, read when the edges and sprites are drawn, are
+ * updated in the tile as they would be without tiles. Sprites, edges with control
+ * points and elements with events (clicked, selected...) are kept in all the tiles.
+ *
+ * Each tile camera has its own skeleton store and only reads the camera of the
+ * renderer, so that the tiles can be rendered in parallel.
+ */
+public class TileCamera extends SwingCamera {
+	/** Camera of the renderer, giving the view and the visible elements. */
+	protected SwingCamera main;
+
+	/** Size of the tile in pixels of the device. */
+	protected int width, height;
+
+	/** Extents of the style groups for the current frame, shared by the tiles. */
+	protected Map<StyleGroup,Extent> extents;
+
+	private Point3 from = new Point3(), to = new Point3();
+
+	public TileCamera(GraphicGraph graph, SwingCamera main, SkeletonStore skeletons) {
+		super(graph, main.getIndex(), skeletons, main.getSnapshot());
+		this.main = main;
+		this.levelOfDetail = main.getLevelOfDetail();
+	}
+
+// Access
+
+	@Override
+	public List<GraphicElement> visibleElements(StyleGroup group) {
+		if(group.getType() != Selector.Type.NODE && group.getType() != Selector.Type.EDGE)
+			return null;
+
+		return visibleByGroup.getOrDefault(group, NOTHING_VISIBLE);
+	}
+
+	@Override
+	public boolean isVisible(GraphicElement element) {
+		switch(element.getSelectorType()) {
+			case NODE: return isKept(visibleNodes, snapshot.nodeSlot(element));
+			case EDGE: return isKept(visibleEdges, snapshot.edgeSlot(element));
+			default: return main.isVisible(element);
+		}
+	}
+
+	@Override
+	public int getStyleVersion() {
+		return main.getStyleVersion();
+	}
+
+	@Override
+	public boolean isLoadingImagesInBackground() {
+		return main.isLoadingImagesInBackground();
+	}
+
+	@Override
+	public boolean isEdgeVisible(GraphicEdge edge) {
+		return isKept(visibleEdges, snapshot.edgeSlot(edge));
+	}
+
+	protected static boolean isKept(BitSet kept, int slot) {
+		return slot >= 0 && kept.get(slot);
+	}
+
+	/**
+	 * The extents of the node and edge style groups with the current view of the camera.
+	 * The scale gives the number of pixels of the device per pixel. This reads the style
+	 * of the groups and must not be called while the tiles are rendered, as the events of
+	 * the elements change the style of their group.
+	 */
+	public static Map<StyleGroup,Extent> extents(GraphicGraph graph, SwingCamera camera, double scale) {
+		HashMap<StyleGroup,Extent> extents = new HashMap<>();
+
+		for(StyleGroup group : graph.getStyleGroups().groups()) {
+			if(group.getType() == Selector.Type.NODE || group.getType() == Selector.Type.EDGE)
+				extents.put(group, new Extent(group, camera, scale));
+		}
+
+		return extents;
+	}
+
+	protected boolean isIn(GraphicNode node) {
+		Extent extent = extents.get(node.getStyle());
+
+		if(extent == null)
+			return true;
+
+		from.set(node.getX(), node.getY(), 0);
+		bck.transform(from);
+
+		return isIn(from.x, from.y, from.x, from.y, extent.radius(node));
+	}
+
+	protected boolean isIn(GraphicEdge edge) {
+		Extent extent = extents.get(edge.getStyle());
+
+		if(extent == null || edge.isCurve())
+			return true;
+
+		double radius = extent.radius(edge);
+		int count = edge.getGroup() != null ? edge.getGroup().getCount() : 1;
+
+		from.set(edge.from.getX(), edge.from.getY(), 0);
+		to.set(edge.to.getX(), edge.to.getY(), 0);
+		bck.transform(from);
+		bck.transform(to);
+
+		if(edge.isLoop()) {
+			Extent node = extents.get(edge.from.getStyle());
+
+			if(node == null)
+				return true;
+
+			radius += 10 * node.half * (1 + 0.2 * count);
+		}
+		else if(extent.curved || count > 1) {
+			radius += Math.hypot(to.x - from.x, to.y - from.y) * (1 + 0.1 * count);
+		}
+
+		return isIn(Math.min(from.x, to.x), Math.min(from.y, to.y), Math.max(from.x, to.x), Math.max(from.y, to.y), radius);
+	}
+
+	/** True if the box enlarged by the radius touches the tile. */
+	protected boolean isIn(double x1, double y1, double x2, double y2, double radius) {
+		return x2 + radius >= 0 && y2 + radius >= 0 && x1 - radius <= width && y1 - radius <= height;
+	}
+
+// Command
+
+	/** Prepare the camera for a frame, the size of the tile is in pixels of the device. */
+	public void beginFrame(int width, int height, Map<StyleGroup,Extent> extents) {
+		this.width = width;
+		this.height = height;
+		this.extents = extents;
+
+		copyView(main);
+	}
+
+	@Override
+	public void checkVisibility(GraphicGraph graph) {
+		nodeInvisible.clear();
+		spriteInvisible.clear();
+		visibleNodes.clear();
+		visibleEdges.clear();
+
+		if(visibleByGroup.size() > graph.getStyleGroups().getGroupCount())
+			visibleByGroup.clear();
+		else
+			visibleByGroup.values().forEach(ArrayList::clear);
+
+		for(StyleGroup group : graph.getStyleGroups().groups()) {
+			if(group.getType() == Selector.Type.NODE) {
+				mainVisible(group, node -> {
+					if(group.elementHasEvents(node) || isIn((GraphicNode)node))
+						keep(visibleNodes, snapshot.nodeSlot(node));
+				});
+			}
+			else if(group.getType() == Selector.Type.EDGE) {
+				mainVisible(group, edge -> {
+					if(group.elementHasEvents(edge) || isIn((GraphicEdge)edge))
+						keepEdge((GraphicEdge)edge);
+				});
+			}
+		}
+
+		graph.sprites().forEach(sprite -> {
+			if(sprite.isAttachedToEdge() && main.isVisible(sprite) && main.isVisible(sprite.getEdgeAttachment()))
+				keepEdge(sprite.getEdgeAttachment());
+			else if(sprite.isAttachedToNode() && main.isVisible(sprite))
+				keepNode(sprite.getNodeAttachment());
+		});
+
+		// Keep the order of the renderer camera so that overlapping elements are drawn in the same order.
+		for(StyleGroup group : graph.getStyleGroups().groups()) {
+			if(group.getType() == Selector.Type.NODE || group.getType() == Selector.Type.EDGE) {
+				List<GraphicElement> visible = main.visibleElements(group);
+
+				if(visible != null) {
+					visible.forEach(element -> keepInOrder(group, element));
+				}
+				else {
+					group.bulkElements().forEach(element -> keepInOrder(group, (GraphicElement)element));
+
+					if(group.hasDynamicElements())
+						group.dynamicElements().forEach(element -> keepInOrder(group, (GraphicElement)element));
+				}
+			}
+		}
+	}
+
+	/** Call the action on the elements of the group visible for the camera of the renderer. */
+	protected void mainVisible(StyleGroup group, Consumer<GraphicElement> action) {
+		List<GraphicElement> visible = main.visibleElements(group);
+
+		if(visible != null) {
+			visible.forEach(action);
+		}
+		else {
+			for(Element element : group.elements()) {
+				if(main.isVisible((GraphicElement)element))
+					action.accept((GraphicElement)element);
+			}
+		}
+	}
+
+	protected void keepEdge(GraphicEdge edge) {
+		keep(visibleEdges, snapshot.edgeSlot(edge));
+		keepNode(edge.from);
+		keepNode(edge.to);
+	}
+
+	protected void keepNode(GraphicNode node) {
+		if(main.isVisible(node))
+			keep(visibleNodes, snapshot.nodeSlot(node));
+	}
+
+	protected static void keep(BitSet kept, int slot) {
+		if(slot >= 0)
+			kept.set(slot);
+	}
+
+	protected void keepInOrder(StyleGroup group, GraphicElement element) {
+		if(isVisible(element))
+			visibleByGroup.computeIfAbsent(group, g -> new ArrayList<>()).add(element);
+	}
+
+	/**
+	 * How far the elements of a style group may be drawn around their position (around
+	 * the line between their end points for edges), in pixels of the device.
+	 */
+	public static class Extent {
+		/** Half the size of the nodes, or width of the edges. */
+		protected double half;
+
+		/** Stroke, shadow and arrows. */
+		protected double decor;
+
+		/** Offset and padding of the labels, and width allowed for one of their characters. */
+		protected double text, character;
+
+		/** Size of the icon when it does not depend on the element. */
+		protected double icon;
+
+		/** True if the icon depends on the element. */
+		protected boolean dynamicIcon;
+
+		/** True if the width of the edges depends on the element. */
+		protected boolean dynamicSize;
+
+		/** True if the edges are not drawn as straight lines. */
+		protected boolean curved;
+
+		protected GraphMetrics metrics;
+
+		/** Camera reading the icons. */
+		protected SwingCamera camera;
+
+		protected double scale;
+
+		public Extent(StyleGroup group, SwingCamera camera, double scale) {
+			SpatialIndex index = camera.getIndex();
+
+			this.metrics = camera.getMetrics();
+			this.camera = camera;
+			this.scale = scale;
+
+			half = maxPx(group.getSize());
+
+			if(group.getSizeMode() == StyleConstants.SizeMode.DYN_SIZE) {
+				if(group.getType() == Selector.Type.NODE) {
+					for(StyleConstants.Units units : StyleConstants.Units.values())
+						half = Math.max(half, metrics.lengthToPx(index.maxDynSize(units), units));
+				}
+				else {
+					dynamicSize = true;
+				}
+			}
+
+			half /= 2;
+
+			if(group.getStrokeMode() != StyleConstants.StrokeMode.NONE)
+				decor += metrics.lengthToPx(group.getStrokeWidth());
+
+			if(group.getShadowMode() != StyleConstants.ShadowMode.NONE)
+				decor += metrics.lengthToPx(group.getShadowWidth()) + maxPx(group.getShadowOffset());
+
+			if(group.getType() == Selector.Type.EDGE) {
+				if(group.getArrowShape() != StyleConstants.ArrowShape.NONE)
+					decor += maxPx(group.getArrowSize());
+
+				curved = group.getShape() != StyleConstants.Shape.LINE;
+			}
+
+			if(group.getTextMode() != StyleConstants.TextMode.HIDDEN) {
+				text = maxPx(group.getTextOffset()) + 2 * maxPx(group.getTextPadding()) + 2 * maxPx(group.getPadding()) + 2;
+				character = group.getTextSize().value;
+			}
+
+			if(group.getIconMode() != StyleConstants.IconMode.NONE) {
+				if(group.getIcon().equals("dynamic"))
+					dynamicIcon = true;
+				else
+					icon = iconSize(group.getIcon());
+			}
+
+			half *= scale;
+			decor *= scale;
+			text *= scale;
+			character *= scale;
+		}
+
+		/** How far the element may be drawn around its position. */
+		public double radius(GraphicElement element) {
+			double radius = half;
+
+			if(dynamicSize && element.hasAttribute("ui.size"))
+				radius = Math.max(radius, metrics.lengthToPx(StyleConstants.convertValue(element.getAttribute("ui.size"))) * scale / 2);
+
+			radius += decor;
+
+			if(character > 0 && element.label != null)
+				radius += text + element.label.length() * character;
+
+			if(dynamicIcon && element.hasAttribute("ui.icon"))
+				radius += iconSize(element.getAttribute("ui.icon").toString());
+			else
+				radius += icon;
+
+			return radius;
+		}
+
+		protected double iconSize(String url) {
+			BufferedImage image = camera.getImage(url);
+
+			return image != null ? Math.max(image.getWidth(), image.getHeight()) * scale : 0;
+		}
+
+		protected double maxPx(Values values) {
+			double px = 0;
+
+			for(int i = 0; i < values.size(); i++)
+				px = Math.max(px, Math.abs(metrics.lengthToPx(values, i)));
+
+			return px;
+		}
+	}
+}
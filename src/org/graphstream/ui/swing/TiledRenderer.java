@@ -0,0 +1,333 @@
+/*
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ *
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ *
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+
+ /**
+  * @author Antoine Dutot <antoine.dutot@graphstream-project.org>
+  * @author Guilhelm Savin <guilhelm.savin@graphstream-project.org>
+  * @author Hicham Brahimi <hicham.brahimi@graphstream-project.org>
+  */
+
+
+package org.graphstream.ui.swing;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+
+import org.graphstream.ui.graphicGraph.GraphicGraph;
+import org.graphstream.ui.graphicGraph.StyleGroup;
+import org.graphstream.ui.graphicGraph.stylesheet.StyleConstants;
+import org.graphstream.ui.swing.renderer.GraphBackgroundRenderer;
+import org.graphstream.ui.swing.renderer.SkeletonStore;
+import org.graphstream.ui.swing.renderer.StyleRenderer;
+
+/**
+ * Rendering of the style groups in tiles, in parallel.
+ *
+ * Tiled rendering is enabled by the "ui.tiles" graph attribute, whose value is the
+ * number of tiles, or the number of processors if it is not a number. The frame is
+ * split in a grid of tiles, each tile is rendered in its own image with its own
+ * backend, {@link TileCamera}, skeleton store and style renderers. The tiles are then
+ * drawn on the graphics.
+ *
+ * The style groups are rendered one after the other in Z order, each group being
+ * rendered in all the tiles in parallel by tasks of the common fork-join pool. The
+ * groups whose elements have events are rendered in one tile at a time, as the events
+ * change the style of the group while the element is drawn, and the style of a group
+ * may be read when drawing another one (the edges read the style of their nodes).
+ * Tiled rendering is not used when some nodes are Swing components.
+ */
+public class TiledRenderer {
+	protected SwingGraphRenderer renderer;
+
+	protected GraphicGraph graph;
+
+	/** Camera of the renderer. */
+	protected SwingCamera camera;
+
+	protected Tile tiles[] = new Tile[0];
+
+	/** Size of the frame in pixels of the device, and number of columns of the grid. */
+	protected int deviceWidth = -1, deviceHeight = -1, columns = 0;
+
+	/** Size of the frame in pixels, scale of the device and viewport of the camera for the current frame. */
+	protected int width, height;
+	protected double scaleX, scaleY;
+	protected double viewport[] = new double[4];
+
+	public TiledRenderer(SwingGraphRenderer renderer, GraphicGraph graph, SwingCamera camera) {
+		this.renderer = renderer;
+		this.graph = graph;
+		this.camera = camera;
+	}
+
+// Access
+
+	/** Number of tiles asked by the "ui.tiles" graph attribute, 0 if not set. */
+	public int tileCount() {
+		if(graph.hasAttribute("ui.tiles")) {
+			double count = graph.getNumber("ui.tiles");
+
+			return Double.isNaN(count) ? Runtime.getRuntime().availableProcessors() : (int)count;
+		}
+
+		return 0;
+	}
+
+	/** True if the frames must be rendered in tiles. */
+	public boolean isEnabled() {
+		if(tileCount() < 2)
+			return false;
+
+		for(StyleGroup group : graph.getStyleGroups().groups()) {
+			if(group.getShape() == StyleConstants.Shape.JCOMPONENT)
+				return false;
+		}
+
+		return true;
+	}
+
+// Command
+
+	/**
+	 * Render the style groups from first to last (excluded) in tiles, then draw the tiles on the
+	 * graphics. The background and the shadows are rendered first if background is true. The
+	 * base is the transform of the graphics without the view, a translation and a scale. The
+	 * view must be pushed on the camera of the renderer, which gives the visible elements.
+	 */
+	public void render(Graphics2D g, AffineTransform base, List<StyleGroup> groups, int first, int last, boolean background, int width, int height) {
+		this.width = width;
+		this.height = height;
+		this.scaleX = base.getScaleX();
+		this.scaleY = base.getScaleY();
+
+		System.arraycopy(camera.getMetrics().viewport, 0, viewport, 0, 4);
+		layout((int)Math.ceil(width * scaleX), (int)Math.ceil(height * scaleY));
+
+		Map<StyleGroup,TileCamera.Extent> extents = TileCamera.extents(graph, camera, Math.max(scaleX, scaleY));
+
+		for(Tile tile : tiles)
+			tile.camera.beginFrame(tile.width, tile.height, extents);
+
+		inTiles(Tile::begin, true);
+
+		if(background) {
+			boolean events = false;
+
+			for(StyleGroup group : graph.getStyleGroups().shadows())
+				events |= group.hasEventElements();
+
+			inTiles(Tile::renderBackground, ! events);
+		}
+
+		for(int i = first; i < last; i++) {
+			StyleGroup group = groups.get(i);
+			inTiles(tile -> tile.render(group), ! group.hasEventElements());
+		}
+
+		inTiles(Tile::end, false);
+
+		AffineTransform transform = g.getTransform();
+		g.setTransform(AffineTransform.getTranslateInstance(base.getTranslateX(), base.getTranslateY()));
+
+		for(Tile tile : tiles)
+			g.drawImage(tile.image, tile.x, tile.y, null);
+
+		g.setTransform(transform);
+	}
+
+	/** Run the action on all the tiles, in parallel or not. */
+	protected void inTiles(Consumer<Tile> action, boolean parallel) {
+		if(parallel) {
+			ForkJoinPool.commonPool().invoke(new RenderTiles(0, tiles.length, action));
+		}
+		else {
+			for(Tile tile : tiles)
+				action.accept(tile);
+		}
+	}
+
+	/** Split the frame of the given size in tiles, if not already done. The tiles are laid out
+	 * in rows of the same height, the last row holds the remaining tiles, which share its whole
+	 * width, so that the tiles cover the frame whatever their count. */
+	protected void layout(int deviceWidth, int deviceHeight) {
+		int count = tileCount();
+		int columns = (int)Math.ceil(Math.sqrt(count));
+		int rows = (count + columns - 1) / columns;
+
+		if(deviceWidth != this.deviceWidth || deviceHeight != this.deviceHeight || count != tiles.length || columns != this.columns) {
+			ArrayList<SkeletonStore> stores = new ArrayList<>();
+
+			clear();
+
+			tiles = new Tile[count];
+
+			for(int i = 0; i < count; i++) {
+				int row = i / columns;
+				int column = i % columns;
+				int inRow = row < rows - 1 ? columns : count - columns * (rows - 1);
+				int x = (int)((long)column * deviceWidth / inRow);
+				int y = (int)((long)row * deviceHeight / rows);
+				int x2 = (int)((long)(column + 1) * deviceWidth / inRow);
+				int y2 = (int)((long)(row + 1) * deviceHeight / rows);
+
+				tiles[i] = new Tile(x, y, Math.max(1, x2 - x), Math.max(1, y2 - y));
+				stores.add(tiles[i].skeletons);
+			}
+
+			this.deviceWidth = deviceWidth;
+			this.deviceHeight = deviceHeight;
+			this.columns = columns;
+			camera.setTileSkeletons(stores);
+		}
+	}
+
+	/** Remove the tiles. */
+	public void clear() {
+		if(tiles.length > 0) {
+			for(Tile tile : tiles)
+				graph.removeSink(tile.skeletons);
+
+			tiles = new Tile[0];
+			deviceWidth = deviceHeight = -1;
+			camera.setTileSkeletons(null);
+		}
+	}
+
+	/** Run an action on a range of tiles, splitting it in two tasks until one tile remains. */
+	protected class RenderTiles extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		protected int from, to;
+
+		protected Consumer<Tile> action;
+
+		public RenderTiles(int from, int to, Consumer<Tile> action) {
+			this.from = from;
+			this.to = to;
+			this.action = action;
+		}
+
+		@Override
+		protected void compute() {
+			if(to - from == 1) {
+				action.accept(tiles[from]);
+			}
+			else {
+				int middle = (from + to) / 2;
+				invokeAll(new RenderTiles(from, middle, action), new RenderTiles(middle, to, action));
+			}
+		}
+	}
+
+	/** A tile, its image and what is needed to render it independently of the other tiles. */
+	protected class Tile {
+		/** Position and size of the tile in the frame, in pixels of the device. */
+		protected int x, y, width, height;
+
+		protected BufferedImage image;
+
+		protected BackendJ2D backend = new BackendJ2D();
+
+		protected SkeletonStore skeletons;
+
+		protected TileCamera camera;
+
+		protected HashMap<StyleGroup,StyleRenderer> renderers = new HashMap<>();
+
+		/** Graphics of the image and its transform without the view, during a frame. */
+		protected Graphics2D g;
+
+		protected AffineTransform base;
+
+		public Tile(int x, int y, int width, int height) {
+			this.x = x;
+			this.y = y;
+			this.width = width;
+			this.height = height;
+			this.image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+			this.skeletons = new SkeletonStore(graph);
+			this.camera = new TileCamera(graph, TiledRenderer.this.camera, skeletons);
+
+			graph.addSink(skeletons);
+		}
+
+		/** Begin the frame: clear the image, set up the graphics and push the view, which
+		 * selects the elements of the tile. */
+		protected void begin() {
+			g = image.createGraphics();
+
+			g.setComposite(AlphaComposite.Clear);
+			g.fillRect(0, 0, width, height);
+			g.setComposite(AlphaComposite.SrcOver);
+			g.translate(-x, -y);
+			g.scale(scaleX, scaleY);
+
+			base = g.getTransform();
+
+			if(renderers.size() > graph.getStyleGroups().getGroupCount())
+				renderers.clear();
+
+			backend.prepareNewFrame(g);
+			backend.setAntialias(graph.hasAttribute("ui.antialias"));
+			backend.setQuality(graph.hasAttribute("ui.quality"));
+			camera.setBackend(backend);
+			camera.setBounds(graph);
+			camera.setViewport(viewport[0], viewport[1], viewport[2], viewport[3]);
+			camera.pushView(graph);
+		}
+
+		protected void renderBackground() {
+			AffineTransform view = g.getTransform();
+
+			g.setTransform(base);
+			new GraphBackgroundRenderer(graph, graph.getStyle()).render(backend, camera, TiledRenderer.this.width, TiledRenderer.this.height);
+			g.setTransform(view);
+			graph.getStyleGroups().shadows().forEach(group -> rendererFor(group).renderShadow(backend, camera));
+		}
+
+		protected void render(StyleGroup group) {
+			rendererFor(group).render(backend, camera);
+		}
+
+		protected void end() {
+			camera.popView();
+			g.dispose();
+			g = null;
+		}
+
+		protected StyleRenderer rendererFor(StyleGroup group) {
+			return renderers.computeIfAbsent(group, gr -> StyleRenderer.apply(gr, renderer));
+		}
+	}
+}
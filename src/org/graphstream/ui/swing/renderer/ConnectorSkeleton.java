@@ -31,9 +31,12 @@
   
 package org.graphstream.ui.swing.renderer;
 
+import org.graphstream.ui.geom.Point2;
 import org.graphstream.ui.geom.Point3;
 import org.graphstream.ui.geom.Vector2;
 import org.graphstream.ui.geom.Vector3;
+import org.graphstream.ui.graphicGraph.GraphicNode;
+import org.graphstream.ui.graphicGraph.stylesheet.StyleConstants.ShapeKind;
 import org.graphstream.ui.swing.util.AttributeUtils;
 import org.graphstream.ui.swing.util.CubicCurve;
 import org.graphstream.ui.swing.util.EdgePoints;
@@ -49,6 +52,17 @@ import org.graphstream.ui.swing.util.EdgePoints;
  *     - A polyline (points are in absolute coordinates).
  *     - A polycurve (in absolute coordinates).
  *     - A vector representation (points are relative to an origin and the whole may be rotated).  
+ *
+ * The skeleton counts the changes of its points, {@link #getVersion()}. The lengths of its
+ * segments, or the arc-length table of its curve, are only computed again when the points
+ * changed. The intersection of its curve with the shape of the target node is kept in a
+ * {@link CurveEnd} and only computed again when the curve or the target node changed.
+ *
+ * The points computed from the nodes, before the shapes change them, are kept as the base of
+ * the skeleton. They are computed again only when the skeleton is marked dirty, see
+ * {@link #setDirty()}, by the {@link SkeletonStore} when a node of the edge moves, when the
+ * "ui.points" or "ui.size" attributes of the edge change or when its group of parallel edges
+ * changes. Else the base is only put back in place, see {@link #restoreBase()}.
  */
 public class ConnectorSkeleton extends Skeleton implements AttributeUtils, org.graphstream.ui.view.camera.ConnectorSkeleton {
 	
@@ -59,6 +73,28 @@ public class ConnectorSkeleton extends Skeleton implements AttributeUtils, org.g
 	private boolean isACurve;
 	private int aMulti;
 	private boolean isALoop;
+	
+	/** Incremented each time the points are set. */
+	private int version = 0;
+	
+	/** Version of the points when the lengths were computed. */
+	private int lengthsVersion = -1;
+	
+	/** Number of segments of the arc-length table of curves. */
+	public static final int CURVE_SEGMENTS = 10;
+	
+	/** Intersection of the curve with the target node shape, made at first use. */
+	private CurveEnd curveEnd = null;
+	
+	/** True if the base points must be computed again from the nodes. */
+	private boolean dirty = true;
+	
+	/** Kind and points computed from the nodes. */
+	private EdgeShapeKind baseKind = null;
+	private EdgePoints base = null;
+	
+	/** Version of the points when the base was kept or put back. */
+	private int baseVersion = -1;
 
 	public ConnectorSkeleton() {
 		this.points = new EdgePoints(2);
@@ -105,14 +141,32 @@ public class ConnectorSkeleton extends Skeleton implements AttributeUtils, org.g
 		return isALoop;
 	}
 	
+	/** Incremented each time the points of the shape are set. */
+	public int getVersion() {
+		return version;
+	}
+	
+	/** True if the base points must be computed again from the nodes. */
+	public boolean isDirty() {
+		return dirty;
+	}
+	
+	/** The intersection of the curve with the shape of the target node and what it was computed
+	 * for, see {@link org.graphstream.ui.swing.util.CubicCurve}. */
+	public CurveEnd getCurveEnd() {
+		if(curveEnd == null)
+			curveEnd = new CurveEnd();
+		
+		return curveEnd;
+	}
+	
 	public void setPoly(Object aSetOfPoints) {
-		if (!kind.equals(EdgeShapeKind.POLYLINE)) {
-			kind = EdgeShapeKind.POLYLINE ;
-			Point3[] thePoints = getPoints(aSetOfPoints);
-			points = new EdgePoints(thePoints.length);
-			points.copy(thePoints);
-			lengths = null ;
-		}
+		kind = EdgeShapeKind.POLYLINE ;
+		Point3[] thePoints = getPoints(aSetOfPoints);
+		points = new EdgePoints(thePoints.length);
+		points.copy(thePoints);
+		lengths = null ;
+		version++;
 	}
 	
 	public void setPoly(Point3[] aSetOfPoints) {
@@ -125,6 +179,8 @@ public class ConnectorSkeleton extends Skeleton implements AttributeUtils, org.g
 		for ( int i = 0 ; i < aSetOfPoints.length ; i++) {
 			points.set(i, aSetOfPoints[i].x, aSetOfPoints[i].y, aSetOfPoints[i].z);
 		}
+		
+		version++;
 	}
 	
 	public void setCurve(double x0, double y0, double z0,
@@ -134,18 +190,20 @@ public class ConnectorSkeleton extends Skeleton implements AttributeUtils, org.g
 		kind = EdgeShapeKind.CURVE ;
 		if(points.size() != 4)
 			points = new EdgePoints(4);
-		points.update(0, new Point3(x0, y0, z0));
-		points.update(1, new Point3(x1, y1, z1));
-		points.update(2, new Point3(x2, y2, z2));
-		points.update(3, new Point3(x3, y3, z3));
+		points.set(0, x0, y0, z0);
+		points.set(1, x1, y1, z1);
+		points.set(2, x2, y2, z2);
+		points.set(3, x3, y3, z3);
+		version++;
 	}
 	
 	public void setLine(double x0, double y0, double z0, double x1, double y1, double z1){
 		kind = EdgeShapeKind.LINE ;
 		if(points.size() != 2)
 			points = new EdgePoints(2);
-		points.update(0, new Point3(x0, y0, z0));
-		points.update(1, new Point3(x1, y1, z1));
+		points.set(0, x0, y0, z0);
+		points.set(1, x1, y1, z1);
+		version++;
 	}
 	
 	public void setMulti(int aMulti) {
@@ -163,10 +221,49 @@ public class ConnectorSkeleton extends Skeleton implements AttributeUtils, org.g
 		if(points.size() != 4)
 			points = new EdgePoints(4);
 		isALoop = true;
-		points.update(0, new Point3(x0, y0, z0));
-		points.update(1, new Point3(x1, y1, z1));
-		points.update(2, new Point3(x2, y2, z2));
-		points.update(3, new Point3(x0, y0, z0));
+		points.set(0, x0, y0, z0);
+		points.set(1, x1, y1, z1);
+		points.set(2, x2, y2, z2);
+		points.set(3, x0, y0, z0);
+		version++;
+	}
+	
+	/** The base points must be computed again from the nodes at the next frame. */
+	public void setDirty() {
+		dirty = true;
+	}
+	
+	/** Keep the current points as the base computed from the nodes. The skeleton is clean until
+	 * marked dirty again. */
+	public void keepBase() {
+		if(base == null || base.size() != points.size())
+			base = new EdgePoints(points.size());
+		
+		for(int i = 0; i < points.size(); i++) {
+			Point3 p = points.get(i);
+			base.set(i, p.x, p.y, p.z);
+		}
+		
+		baseKind = kind;
+		baseVersion = version;
+		dirty = false;
+	}
+	
+	/** Put back the base points, if the shapes changed the points since they were kept. */
+	public void restoreBase() {
+		if(version != baseVersion) {
+			if(points.size() != base.size())
+				points = new EdgePoints(base.size());
+			
+			for(int i = 0; i < base.size(); i++) {
+				Point3 p = base.get(i);
+				points.set(i, p.x, p.y, p.z);
+			}
+			
+			kind = baseKind;
+			version++;
+			baseVersion = version;
+		}
 	}
 	
 	/** The number of points in the edge shape. */
@@ -182,6 +279,7 @@ public class ConnectorSkeleton extends Skeleton implements AttributeUtils, org.g
 	/** Change the i-th point in the set of points making up the shape of this edge. */
 	public void update(int i, Point3 p) {
 		points.update(i, p);
+		version++;
 	}
 	
 	/** The last point of the edge shape. */
@@ -195,11 +293,10 @@ public class ConnectorSkeleton extends Skeleton implements AttributeUtils, org.g
 	}
 	
 	/**
-	 * Total length of the polyline defined by the points.
+	 * Total length of the polyline defined by the points, or of the curve.
 	 */
 	public double length() {
-		if(lengths == null)
-			segmentsLengths();
+		segmentsLengths();
 		
 		return lengthsSum;
 	}
@@ -207,9 +304,12 @@ public class ConnectorSkeleton extends Skeleton implements AttributeUtils, org.g
 	/** Compute the length of each segment between the points making up this edge. This is mostly
 	  * only useful for polylines. The results of this method is cached. It is only recomputed when
 	  * a points changes in the shape. There are size-1 segments if the are size points. The segment
-	  * 0 is between points 0 and 1. */
+	  * 0 is between points 0 and 1. For curves, the segments are the ones of the arc-length table,
+	  * {@link #CURVE_SEGMENTS} segments between regular parametric positions on the curve. */
 	public double[] segmentsLengths() {
-		if( lengths == null ) {
+		if( lengths == null || lengthsVersion != version ) {
+			lengthsVersion = version;
+			
 			if(isPoly()) {
 				int n = points.size() ;
 				lengthsSum = 0;
@@ -230,11 +330,11 @@ public class ConnectorSkeleton extends Skeleton implements AttributeUtils, org.g
 				}
 			}
 			else if (isCurve()) {
-				throw new RuntimeException("segmentsLengths for curve ....");
+				arcLengths();
 			}
 			else {
 				lengths = new double[1];
-				lengths[0] = points.get(0).distance(points.get(3));
+				lengths[0] = from().distance(to());
 				lengthsSum = lengths[0];
 			}
 		}
@@ -242,6 +342,28 @@ public class ConnectorSkeleton extends Skeleton implements AttributeUtils, org.g
 		return lengths;
 	}
 	
+	/** Sample the curve at regular parametric positions and store the lengths between them. */
+	private void arcLengths() {
+		Point3 p0 = points.get(0), p1 = points.get(1), p2 = points.get(2), p3 = points.get(3);
+		double px = p0.x, py = p0.y;
+		
+		if(lengths == null || lengths.length != CURVE_SEGMENTS)
+			lengths = new double[CURVE_SEGMENTS];
+		
+		lengthsSum = 0;
+		
+		for(int i = 1; i <= CURVE_SEGMENTS; i++) {
+			double t = i / (double)CURVE_SEGMENTS;
+			double x = CubicCurve.eval(p0.x, p1.x, p2.x, p3.x, t);
+			double y = CubicCurve.eval(p0.y, p1.y, p2.y, p3.y, t);
+			
+			lengths[i-1] = Math.sqrt((x-px)*(x-px) + (y-py)*(y-py));
+			lengthsSum += lengths[i-1];
+			px = x;
+			py = y;
+		}
+	}
+	
 	/** Length of the i-th segment. There are size-1 segments if there are size points. The segment
 	 * 0 is between points 0 and 1. */
 	public double segmentLength(int i) {
@@ -366,4 +488,80 @@ public class ConnectorSkeleton extends Skeleton implements AttributeUtils, org.g
 		
 		return new Triplet<Integer, Double, Double>(i, sum, (pos-sum)/lengths[i]);
 	}
-}
\ No newline at end of file
+	
+	/** Intersection of a curve with the shape of its target node, and the direction of the curve
+	 * entering the shape. They are kept with the points of the curve and the position, size
+	 * and shape kind of the node they were computed for. */
+	public static class CurveEnd {
+		/** Points of the curve, position and size of the node. */
+		protected double key[] = new double[12];
+		
+		protected ShapeKind kind = null;
+		
+		protected int depth = -1;
+		
+		/** The intersection point and its parametric position on the curve. */
+		protected Tuple<Point2, Double> end = null;
+		
+		/** Parametric distance before the intersection of the point giving the direction. */
+		protected double back = Double.NaN;
+		
+		/** Unit direction of the curve entering the shape. */
+		protected double dx, dy;
+		
+		/** The intersection if it was computed for this curve, node and depth of the search, else null. */
+		public Tuple<Point2, Double> get(ConnectorSkeleton curve, GraphicNode node, double w, double h, int depth) {
+			if(end != null && this.depth == depth && kind == node.getStyle().getShape().kind) {
+				for(int i = 0; i < 4; i++) {
+					Point3 p = curve.apply(i);
+					
+					if(key[i*2] != p.x || key[i*2+1] != p.y)
+						return null;
+				}
+				
+				if(key[8] == node.getX() && key[9] == node.getY() && key[10] == w && key[11] == h)
+					return end;
+			}
+			
+			return null;
+		}
+		
+		/** Keep the intersection computed for this curve, node and depth of the search, and return it. */
+		public Tuple<Point2, Double> set(ConnectorSkeleton curve, GraphicNode node, double w, double h, int depth, Tuple<Point2, Double> end) {
+			for(int i = 0; i < 4; i++) {
+				key[i*2] = curve.apply(i).x;
+				key[i*2+1] = curve.apply(i).y;
+			}
+			
+			key[8] = node.getX();
+			key[9] = node.getY();
+			key[10] = w;
+			key[11] = h;
+			this.kind = node.getStyle().getShape().kind;
+			this.depth = depth;
+			this.end = end;
+			this.back = Double.NaN;
+			
+			return end;
+		}
+		
+		/** True if the direction was computed for the current intersection and the given distance. */
+		public boolean hasDirection(double back) {
+			return this.back == back;
+		}
+		
+		public void setDirection(double back, double dx, double dy) {
+			this.back = back;
+			this.dx = dx;
+			this.dy = dy;
+		}
+		
+		public double directionX() {
+			return dx;
+		}
+		
+		public double directionY() {
+			return dy;
+		}
+	}
+}
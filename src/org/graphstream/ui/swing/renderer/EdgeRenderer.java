@@ -31,19 +31,59 @@
   
 package org.graphstream.ui.swing.renderer;
 
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Stroke;
+import java.awt.geom.Path2D;
+
+import org.graphstream.ui.geom.Point3;
 import org.graphstream.ui.graphicGraph.GraphicEdge;
 import org.graphstream.ui.graphicGraph.GraphicElement;
 import org.graphstream.ui.graphicGraph.StyleGroup;
+import org.graphstream.ui.graphicGraph.stylesheet.StyleConstants;
 import org.graphstream.ui.swing.Backend;
 import org.graphstream.ui.view.camera.DefaultCamera2D;
+import org.graphstream.ui.swing.SwingCamera;
 import org.graphstream.ui.swing.SwingGraphRenderer;
 import org.graphstream.ui.swing.renderer.shape.Connector;
 import org.graphstream.ui.swing.renderer.shape.Shape;
+import org.graphstream.ui.swing.renderer.shape.swing.ShapeStroke;
 import org.graphstream.ui.swing.renderer.shape.swing.baseShapes.AreaOnConnectorShape;
+import org.graphstream.ui.swing.renderer.shape.swing.baseShapes.LineShape;
+import org.graphstream.ui.swing.util.ColorManager;
+import org.graphstream.ui.swing.util.FrameSnapshot;
 
+/**
+ * Renderer of the edges of a style group.
+ *
+ * When the edges of the group are plain lines drawn with the same opaque color and
+ * stroke, the straight edges without label, arrow or dynamic style are not drawn one
+ * by one. Their segments are accumulated in a path drawn at once, before any edge
+ * drawn otherwise, so that the drawing order is kept. This is only done without
+ * anti-aliasing: Java2D is slower to rasterize large anti-aliased paths than many
+ * small shapes, and translucent segments of a same path would not blend with each
+ * other.
+ */
 public class EdgeRenderer extends StyleRenderer {	
+	/** Maximum number of segments drawn at once, larger paths are slower to rasterize. */
+	private static final int BATCH_SIZE = 1024;
+	
 	private Shape shape = null;
 	AreaOnConnectorShape arrow = null;
+	
+	private Point3 from = new Point3(), to = new Point3();
+	
+	/** Segments of the edges waiting to be drawn. */
+	private Path2D.Float batch = new Path2D.Float(Path2D.WIND_NON_ZERO, BATCH_SIZE * 2);
+	
+	/** Number of segments in the batch. */
+	private int batchSize = 0;
+	
+	/** Color of the batched edges, null if the edges of the group are not batched. */
+	private Color batchColor = null;
+	
+	private Stroke batchStroke = null;
 			
 	public EdgeRenderer(StyleGroup styleGroup) {
 		super(styleGroup);
@@ -57,10 +97,17 @@ public class EdgeRenderer extends StyleRenderer {
 	public void setupRenderingPass(Backend bck, DefaultCamera2D camera, boolean forShadow) {
 		shape = bck.chooseEdgeShape(shape, group);
 		arrow = (AreaOnConnectorShape)bck.chooseEdgeArrowShape(arrow, group);
+		batchColor = null;
+		
+		if(! forShadow && canBatch(bck.graphics2D())) {
+			batchColor = ColorManager.getFillColor(group, 0);
+			batchStroke = ShapeStroke.strokeForConnectorFill(group).stroke(camera.getMetrics().lengthToGu(group.getSize(), 0));
+		}
 	}
 
 	@Override
 	public void pushStyle(Backend bck, DefaultCamera2D camera, boolean forShadow) {
+		flushBatch(bck);
 		shape.configureForGroup(bck, group, camera);
 		
 		if(arrow != null) {
@@ -69,14 +116,23 @@ public class EdgeRenderer extends StyleRenderer {
 	}
 
 	@Override
-	public void pushDynStyle(Backend bck, DefaultCamera2D camera, GraphicElement element) {}
+	public void pushDynStyle(Backend bck, DefaultCamera2D camera, GraphicElement element) {
+		flushBatch(bck);
+	}
 
 	@Override
 	public void renderElement(Backend bck, DefaultCamera2D camera, GraphicElement element) {
 		GraphicEdge edge = (GraphicEdge)element;
-		ConnectorSkeleton skel = getOrSetConnectorSkeleton(element);
+		ConnectorSkeleton skel = getOrSetConnectorSkeleton(camera, element);
 		
 		shape.configureForElement(bck, element, skel, camera);
+		
+		if(batchColor != null && isBatched(edge, skel)) {
+			addToBatch(bck, skel);
+			return;
+		}
+		
+		flushBatch(bck);
 		shape.render(bck, camera, element, skel);
 		  
 		if(edge.isDirected() && (arrow != null)) {
@@ -86,10 +142,34 @@ public class EdgeRenderer extends StyleRenderer {
 		}
 	}
 
+	@Override
+	protected void renderElementReduced(Backend bck, DefaultCamera2D camera, GraphicElement element) {
+		FrameSnapshot snapshot = ((SwingCamera)camera).getSnapshot();
+		int slot = snapshot.edgeSlot(element);
+		
+		if(slot >= 0) {
+			int f = snapshot.from(slot);
+			int t = snapshot.to(slot);
+			
+			from.set(snapshot.x(f), snapshot.y(f), 0);
+			to.set(snapshot.x(t), snapshot.y(t), 0);
+		}
+		else {
+			GraphicEdge edge = (GraphicEdge)element;
+			
+			from.set(edge.from.x, edge.from.y, 0);
+			to.set(edge.to.x, edge.to.y, 0);
+		}
+		
+		bck.transform(from);
+		bck.transform(to);
+		bck.graphics2D().drawLine((int)Math.floor(from.x), (int)Math.floor(from.y), (int)Math.floor(to.x), (int)Math.floor(to.y));
+	}
+
 	@Override
 	public void renderShadow(Backend bck, DefaultCamera2D camera, GraphicElement element) {
 		GraphicEdge edge = (GraphicEdge)element;
-		ConnectorSkeleton skel = getOrSetConnectorSkeleton(element);
+		ConnectorSkeleton skel = getOrSetConnectorSkeleton(camera, element);
 				
 		shape.configureForElement(bck, element, skel, camera);
 		shape.renderShadow(bck, camera, element, skel);
@@ -101,18 +181,19 @@ public class EdgeRenderer extends StyleRenderer {
 		}
 	}
 	
-	/** Retrieve the shared edge informations stored on the given edge element.
-	  * If such information is not yet present, add it to the element. 
+	/** Retrieve the shared edge informations kept by the camera for the given edge element.
+	  * If such information is not yet present, add it. 
+	  * @param camera The camera of the renderer.
 	  * @param element The element to look for.
 	  * @return The edge information.
 	  * @throws RuntimeException if the element is not an edge. */
-	protected ConnectorSkeleton getOrSetConnectorSkeleton(GraphicElement element) {
+	protected ConnectorSkeleton getOrSetConnectorSkeleton(DefaultCamera2D camera, GraphicElement element) {
 		if(element instanceof GraphicEdge) {
-			ConnectorSkeleton info = (ConnectorSkeleton)element.getAttribute(Skeleton.attributeName) ;
+			ConnectorSkeleton info = (ConnectorSkeleton)SkeletonStore.get(camera, element);
 			
 			if(info == null) {
 				info = new ConnectorSkeleton();
-				element.setAttribute(Skeleton.attributeName, info);
+				SkeletonStore.put(camera, element, info);
 			}
 			
 			return info;
@@ -126,5 +207,47 @@ public class EdgeRenderer extends StyleRenderer {
 	public void elementInvisible(Backend bck, DefaultCamera2D camera, GraphicElement element) {}
 	
 	@Override
-	public void endRenderingPass(Backend bck, DefaultCamera2D camera, boolean forShadow) {}
+	public void endRenderingPass(Backend bck, DefaultCamera2D camera, boolean forShadow) {
+		flushBatch(bck);
+	}
+	
+	/** True if the edges of the group are all drawn the same way, as opaque plain lines. */
+	protected boolean canBatch(Graphics2D g) {
+		return shape instanceof LineShape
+			&& group.getFillMode() == StyleConstants.FillMode.PLAIN
+			&& group.getStrokeMode() == StyleConstants.StrokeMode.NONE
+			&& group.getSizeMode() == StyleConstants.SizeMode.NORMAL
+			&& group.getIconMode() == StyleConstants.IconMode.NONE
+			&& ColorManager.getFillColor(group, 0).getAlpha() == 255
+			&& g.getRenderingHint(RenderingHints.KEY_ANTIALIASING) != RenderingHints.VALUE_ANTIALIAS_ON;
+	}
+	
+	/** True if the edge is a straight line with nothing else to draw. */
+	protected boolean isBatched(GraphicEdge edge, ConnectorSkeleton skel) {
+		return edge.label == null
+			&& ! skel.isCurve()
+			&& ! (edge.isDirected() && arrow != null)
+			&& ! group.elementIsDynamic(edge)
+			&& ! group.elementHasEvents(edge);
+	}
+	
+	private void addToBatch(Backend bck, ConnectorSkeleton skel) {
+		batch.moveTo(skel.from().x, skel.from().y);
+		batch.lineTo(skel.to().x, skel.to().y);
+		
+		if(++batchSize == BATCH_SIZE)
+			flushBatch(bck);
+	}
+	
+	/** Draw the batched segments, if any. */
+	private void flushBatch(Backend bck) {
+		if(batchSize > 0) {
+			Graphics2D g = bck.graphics2D();
+			g.setColor(batchColor);
+			g.setStroke(batchStroke);
+			g.draw(batch);
+			batch.reset();
+			batchSize = 0;
+		}
+	}
 }
@@ -45,6 +45,7 @@ import org.graphstream.ui.graphicGraph.stylesheet.StyleConstants;
 import org.graphstream.ui.swing.Backend;
 import org.graphstream.ui.view.camera.DefaultCamera2D;
 import org.graphstream.ui.swing.util.ColorManager;
+import org.graphstream.ui.swing.SwingCamera;
 import org.graphstream.ui.swing.util.ImageCache;
 import org.graphstream.ui.swing_viewer.util.GradientFactory;
 import org.graphstream.ui.view.util.GraphMetrics;
@@ -152,9 +153,10 @@ public class GraphBackgroundRenderer implements GraphicElement.SwingElementRende
 		double px2gu = metrics.ratioPx2Gu;
 		BufferedImage img = null ;
 		
-		img = ImageCache.loadImage(style.getFillImage());
-		if ( img == null ) {
-			img = ImageCache.dummyImage();
+		img = SwingCamera.getImage(camera, style.getFillImage());
+		if ( img == null ) {	// Read in the background, drawn when it arrives.
+			fillCanvasBackground( g, camera );
+			return;
 		}
 		
 		double gw    = ( metrics.graphWidthGU()  * px2gu ) ;// + ( padx * 2 )	// consider the padding ???
@@ -175,9 +177,10 @@ public class GraphBackgroundRenderer implements GraphicElement.SwingElementRende
 		double px2gu = metrics.ratioPx2Gu;
 		BufferedImage img = null ;
 				
-		img = ImageCache.loadImage(style.getFillImage());
-		if ( img == null ) {
-			img = ImageCache.dummyImage();
+		img = SwingCamera.getImage(camera, style.getFillImage());
+		if ( img == null ) {	// Read in the background, drawn when it arrives.
+			fillCanvasBackground( g, camera );
+			return;
 		}
 				
 		fillCanvasBackground( g, camera );
@@ -186,8 +189,15 @@ public class GraphBackgroundRenderer implements GraphicElement.SwingElementRende
 		double x     = ( metrics.viewport[2] / 2 ) - ( gw / 2 ) ;
 		double y     = metrics.viewport[3] - ( metrics.viewport[3] / 2 ) - ( gh / 2 ) ;
 		
+		// Draw the variant of the image prepared for the size of the graph on the device.
+		double scale = Math.sqrt( Math.abs( g.getTransform().getDeterminant() ) );
+		BufferedImage drawn = ImageCache.scaledImage( style.getFillImage(), gw * scale, gh * scale );
+		
+		if ( drawn == null )
+			drawn = img;
+		
 		if (mode == 0) { // Ratio
-			g.drawImage(img, (int)x, (int)y, (int)(x+gw), (int)(y+gh), 0, 0, img.getWidth(), img.getHeight(), null);
+			g.drawImage(drawn, (int)x, (int)y, (int)(x+gw), (int)(y+gh), 0, 0, drawn.getWidth(), drawn.getHeight(), null);
 		}
 		else if (mode == 1) { // Ratio-max
 			double ratioi = (double)img.getWidth() / (double)img.getHeight();
@@ -196,12 +206,12 @@ public class GraphBackgroundRenderer implements GraphicElement.SwingElementRende
 			if(ratioi > ratiog) {
 				double newgw = gh * ratioi;
 				double newx  = x - ((newgw-gw)/2);
-				g.drawImage( img, (int)newx, (int)y, (int)(newx+newgw), (int)(y+gh), 0, 0, img.getWidth(), img.getHeight(), null );
+				g.drawImage( drawn, (int)newx, (int)y, (int)(newx+newgw), (int)(y+gh), 0, 0, drawn.getWidth(), drawn.getHeight(), null );
 			}
 			else {
 				double newgh = gw / ratioi;
 				double newy  = y - ((newgh-gh)/2);
-				g.drawImage(img, (int)x, (int)newy, (int)(x+gw), (int)(newy+newgh),	0, 0, img.getWidth(), img.getHeight(), null);
+				g.drawImage(drawn, (int)x, (int)newy, (int)(x+gw), (int)(newy+newgh),	0, 0, drawn.getWidth(), drawn.getHeight(), null);
 			}
 		}
 		else if (mode == 2) { // Ratio-min
@@ -211,12 +221,12 @@ public class GraphBackgroundRenderer implements GraphicElement.SwingElementRende
 			if( ratiog > ratioi ) {
 				double newgw = gh * ratioi;
 				double newx  = x + ((gw-newgw)/2);
-				g.drawImage( img, (int)newx, (int)y, (int)(newx+newgw), (int)(y+gh), 0, 0, img.getWidth(), img.getHeight(), null );
+				g.drawImage( drawn, (int)newx, (int)y, (int)(newx+newgw), (int)(y+gh), 0, 0, drawn.getWidth(), drawn.getHeight(), null );
 			}
 			else {
 				double newgh = gw / ratioi;
 				double newy  = y + ((gh-newgh)/2);
-				g.drawImage(img, (int)x, (int)newy, (int)(x+gw), (int)(newy+newgh),	0, 0, img.getWidth(), img.getHeight(), null);
+				g.drawImage(drawn, (int)x, (int)newy, (int)(x+gw), (int)(newy+newgh),	0, 0, drawn.getWidth(), drawn.getHeight(), null);
 			}
 		}
 		else {
@@ -39,6 +39,7 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.image.BufferedImage;
 import java.util.HashMap;
+import java.util.List;
 
 import javax.swing.BorderFactory;
 import javax.swing.ImageIcon;
@@ -160,6 +161,12 @@ public class JComponentRenderer extends StyleRenderer {
 	public void elementInvisible(Backend bck, DefaultCamera2D camera, GraphicElement element) {
 		getOrEquipWithJComponent(element).setVisible(false);		
 	}
+	
+	/** The components of invisible elements must be hidden, all the elements are browsed. */
+	@Override
+	protected List<GraphicElement> visibleElements(DefaultCamera2D camera) {
+		return null;
+	}
 
 	@Override
 	public void endRenderingPass(Backend bck, DefaultCamera2D camera, boolean forShadow) {
@@ -0,0 +1,466 @@
+/*
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ *
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ *
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+
+ /**
+  * @author Antoine Dutot <antoine.dutot@graphstream-project.org>
+  * @author Guilhelm Savin <guilhelm.savin@graphstream-project.org>
+  * @author Hicham Brahimi <hicham.brahimi@graphstream-project.org>
+  */
+
+package org.graphstream.ui.swing.renderer;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.GraphicsDevice;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import org.graphstream.graph.Element;
+import org.graphstream.stream.SinkAdapter;
+import org.graphstream.ui.graphicGraph.GraphicElement;
+import org.graphstream.ui.graphicGraph.GraphicGraph;
+import org.graphstream.ui.graphicGraph.GraphicNode;
+import org.graphstream.ui.graphicGraph.StyleGroup;
+import org.graphstream.ui.graphicGraph.stylesheet.Selector;
+import org.graphstream.ui.graphicGraph.stylesheet.StyleConstants;
+import org.graphstream.ui.swing.SwingCamera;
+
+/**
+ * Images of the last rendered graph layers.
+ *
+ * The cache keeps the last frame (background, shadows and style groups) in an image,
+ * and the groups of the bottom of the Z order that did not change lately in another
+ * image. When nothing changed since the last frame, and the view did not move, the
+ * frame image is simply drawn, only the fore layer and the selection are rendered
+ * again. When some style groups changed, the groups under the first changed one are
+ * taken from the second image and only the following groups are rendered again.
+ *
+ * The cache is a sink of the graphic graph: the changes are known from the graph
+ * events and the style group events. An element change marks its style group as
+ * changed. Unless only the label, color or icon of the element changed, a node change
+ * also marks the groups of its edges, and a node or edge change marks the sprite
+ * groups since sprites may be attached to them. The label and icon of a node whose
+ * size fits its contents change its size, and so its edges. Sprite graph attributes
+ * mark the sprite changed, the graph attributes read by the renderer (quality,
+ * anti-aliasing, level of detail, tiles and style sheet) mark everything as changed,
+ * other graph attributes, "ui.repaint" among them, do not change the drawing. Changes
+ * made without events (for example events pushed directly in the style groups) are not
+ * seen until the style sheet changes.
+ *
+ * When all the groups must be drawn again because the graph or the view changed, the
+ * frame is drawn directly, as when the graph keeps changing the images would only add
+ * a copy. The frame image is filled again at the next frame without change.
+ *
+ * The images are in device pixels, they are only used on raster devices with a
+ * transform made of a translation and a scale.
+ */
+public class LayerCache extends SinkAdapter {
+	/** Graph attributes that change the drawing of all the elements. */
+	protected static final Set<String> REDRAWN = new HashSet<>(Arrays.asList(
+		"ui.antialias", "ui.quality", "ui.lod", "ui.lod.node", "ui.lod.edge", "ui.tiles",
+		"ui.stylesheet", "stylesheet"));
+
+	protected GraphicGraph graph;
+
+	/** Style groups changed since the last frame. */
+	protected Set<StyleGroup> dirty = Collections.newSetFromMap(new IdentityHashMap<>());
+
+	/** True if the sprite groups changed since the last frame. */
+	protected boolean spritesDirty = false;
+
+	/** True if everything must be redrawn. */
+	protected boolean allDirty = true;
+
+	/** True if the graph or the view changed since the last frame. */
+	protected boolean changing = true;
+
+	/** True if the frame image holds the last frame. */
+	protected boolean valid = false;
+
+	/** The last frame. */
+	protected BufferedImage frame = null;
+
+	/** Background, shadows and the first groups of the Z order. */
+	protected BufferedImage under = null;
+
+	/** Number of groups in the under image, -1 if it is not valid. */
+	protected int underCount = -1;
+
+	/** Groups drawn in the last frame, in Z order. */
+	protected List<StyleGroup> order = new ArrayList<>();
+
+	/** Level of detail of the groups in the last frame. */
+	protected boolean reduced[] = new boolean[0];
+
+	/** View of the last frame. */
+	protected double view[] = new double[SwingCamera.VIEW_STATE_SIZE], newView[] = new double[SwingCamera.VIEW_STATE_SIZE];
+
+	/** Scale from the view pixels to the device pixels. */
+	protected double scaleX = 1, scaleY = 1;
+
+	public LayerCache(GraphicGraph graph) {
+		this.graph = graph;
+	}
+
+// Access
+
+	/** True if the frames drawn on the graphics can be cached. */
+	public boolean accepts(Graphics2D g) {
+		AffineTransform t = g.getTransform();
+		int type = t.getType() & ~(AffineTransform.TYPE_TRANSLATION | AffineTransform.TYPE_MASK_SCALE);
+
+		return type == 0 && t.getScaleX() > 0 && t.getScaleY() > 0
+			&& g.getDeviceConfiguration().getDevice().getType() != GraphicsDevice.TYPE_PRINTER;
+	}
+
+	/** True if the graph or the view changed since the last frame, false if the frame is only drawn again. */
+	public boolean isChanging() {
+		return changing;
+	}
+
+	/** Number of groups of the Z order taken from the under image, -1 if it is not valid. */
+	public int underCount() {
+		return underCount;
+	}
+
+	/** True if the group is drawn with the reduced level of detail in the last frame. */
+	protected boolean wasReduced(int i) {
+		return i < order.size() && reduced[i];
+	}
+
+// Command
+
+	/**
+	 * Check the view and the size of the frame before drawing on the graphics, the view
+	 * must be set up. Return true if some groups must be drawn again, false if the frame
+	 * image can be used as is.
+	 */
+	public boolean beginFrame(Graphics2D g, SwingCamera camera, int width, int height) {
+		AffineTransform t = g.getTransform();
+		int w = (int)Math.ceil(width * t.getScaleX());
+		int h = (int)Math.ceil(height * t.getScaleY());
+
+		camera.viewState(newView);
+
+		if(frame == null || frame.getWidth() != w || frame.getHeight() != h) {
+			frame = w > 0 && h > 0 ? new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB_PRE) : null;
+			under = null;
+			underCount = -1;
+			valid = false;
+		}
+
+		if(! Arrays.equals(view, newView) || scaleX != t.getScaleX() || scaleY != t.getScaleY()) {
+			double v[] = view;
+			view = newView;
+			newView = v;
+			scaleX = t.getScaleX();
+			scaleY = t.getScaleY();
+			allDirty = true;
+		}
+
+		changing = allDirty || spritesDirty || ! dirty.isEmpty();
+
+		return frame != null && (changing || ! valid);
+	}
+
+	/**
+	 * Index in the Z order of the first group to draw again. The groups under it are in
+	 * the under image if {@link #underCount()} is at least this index, else the under
+	 * image must be drawn again. The groups are in Z order, with their level of detail
+	 * (the array can be longer than the groups) and the shadow groups of the frame.
+	 */
+	public int firstChanged(List<StyleGroup> groups, boolean levels[], Iterable<StyleGroup> shadows) {
+		int first = allDirty || ! valid ? 0 : groups.size();
+		int n = Math.min(groups.size(), order.size());
+
+		for(int i = 0; i < first; i++) {
+			StyleGroup group = groups.get(i);
+
+			if(i >= n || group != order.get(i) || levels[i] != wasReduced(i) || dirty.contains(group)
+			|| (spritesDirty && group.getType() == Selector.Type.SPRITE))
+				first = i;
+		}
+
+		// Shadows are under all the groups.
+		for(StyleGroup group : shadows) {
+			int i = groups.indexOf(group);
+
+			if(allDirty || dirty.contains(group) || i < 0 || i >= order.size() || group != order.get(i)
+			|| levels[i] != wasReduced(i) || (spritesDirty && group.getType() == Selector.Type.SPRITE))
+				first = 0;
+		}
+
+		// Groups no longer drawn.
+		for(StyleGroup group : dirty) {
+			int i = order.indexOf(group);
+
+			if(i >= 0 && ! groups.contains(group))
+				first = group.getShadowMode() != StyleConstants.ShadowMode.NONE ? 0 : Math.min(first, i);
+		}
+
+		if(first == 0 || first < underCount)
+			underCount = -1;
+
+		order.clear();
+		order.addAll(groups);
+		if(reduced.length < groups.size())
+			reduced = new boolean[groups.size()];
+
+		System.arraycopy(levels, 0, reduced, 0, groups.size());
+		dirty.clear();
+		spritesDirty = false;
+		allDirty = false;
+		valid = true;
+
+		return first;
+	}
+
+	/** Graphics on the frame image, in view pixels, cleared if asked. */
+	public Graphics2D frameGraphics(boolean clear) {
+		return graphics(frame, clear);
+	}
+
+	/** Graphics on the under image, in view pixels, cleared if asked. */
+	public Graphics2D underGraphics(boolean clear) {
+		if(under == null)
+			under = new BufferedImage(frame.getWidth(), frame.getHeight(), BufferedImage.TYPE_INT_ARGB_PRE);
+
+		return graphics(under, clear);
+	}
+
+	/** The under image now holds the given number of groups. */
+	public void setUnderCount(int count) {
+		underCount = count;
+	}
+
+	/** Copy the under image in the frame image. */
+	public void copyUnder() {
+		Graphics2D g = frame.createGraphics();
+		g.setComposite(AlphaComposite.Src);
+		g.drawImage(under, 0, 0, null);
+		g.dispose();
+	}
+
+	/** Draw the frame image on the graphics, whose transform must not have changed since {@link #beginFrame(Graphics2D, SwingCamera, int, int)}. */
+	public void drawFrame(Graphics2D g) {
+		if(frame != null && valid) {
+			AffineTransform t = g.getTransform();
+			g.setTransform(AffineTransform.getTranslateInstance(t.getTranslateX(), t.getTranslateY()));
+			g.drawImage(frame, 0, 0, null);
+			g.setTransform(t);
+		}
+	}
+
+	/** Draw everything again at the next frame. */
+	public void invalidate() {
+		allDirty = true;
+	}
+
+	/** The last frame was not drawn in the frame image. */
+	public void discardFrame() {
+		valid = false;
+		underCount = -1;
+	}
+
+	/** Release the images. */
+	public void clear() {
+		frame = null;
+		under = null;
+		underCount = -1;
+		order.clear();
+		valid = false;
+		allDirty = true;
+	}
+
+	protected Graphics2D graphics(BufferedImage image, boolean clear) {
+		Graphics2D g = image.createGraphics();
+
+		if(clear) {
+			g.setComposite(AlphaComposite.Clear);
+			g.fillRect(0, 0, image.getWidth(), image.getHeight());
+			g.setComposite(AlphaComposite.SrcOver);
+		}
+
+		g.scale(scaleX, scaleY);
+		return g;
+	}
+
+	protected void changed(Element element) {
+		if(element != null && dirty.add(((GraphicElement)element).getStyle()))
+			allDirty |= dirty.size() >= graph.getStyleGroups().getGroupCount() - 1;
+	}
+
+	/** A node changed, if the change is not local to the node, its edges and the sprites may change too. */
+	protected void nodeChanged(String nodeId, String attribute) {
+		nodeChanged(nodeId, isLocal(attribute) && ! (isContents(attribute) && fits(graph.getNode(nodeId))));
+	}
+
+	/** A node changed, if the change is not local to the node, its edges and the sprites may change too. */
+	protected void nodeChanged(String nodeId, boolean local) {
+		GraphicNode node = (GraphicNode)graph.getNode(nodeId);
+
+		if(node != null && ! allDirty) {
+			changed(node);
+
+			if(! local) {
+				if(node.getDegree() > 0)
+					node.edges().forEach(edge -> changed(edge));
+
+				spritesDirty |= graph.getSpriteCount() > 0;
+			}
+		}
+	}
+
+	/** An edge changed, if the change is not local to the edge, the sprites may change too. */
+	protected void edgeChanged(String edgeId, boolean local) {
+		if(! allDirty) {
+			changed(graph.getEdge(edgeId));
+			spritesDirty |= ! local && graph.getSpriteCount() > 0;
+		}
+	}
+
+	/** True if a change of the attribute only changes the drawing of its element. */
+	protected static boolean isLocal(String attribute) {
+		if(attribute.startsWith("ui."))
+			return attribute.equals("ui.label") || attribute.equals("ui.color") || attribute.equals("ui.icon");
+
+		return ! (attribute.equals("x") || attribute.equals("y") || attribute.equals("z")
+			|| attribute.equals("xy") || attribute.equals("xyz"));
+	}
+
+	/** True if the attribute is part of the contents a node size can fit. */
+	protected static boolean isContents(String attribute) {
+		return attribute.equals("ui.label") || attribute.equals("ui.icon");
+	}
+
+	/** True if the size of the element fits its contents. */
+	protected static boolean fits(Element element) {
+		return element != null && ((GraphicElement)element).getStyle().getSizeMode() == StyleConstants.SizeMode.FIT;
+	}
+
+	protected void graphChanged(String attribute) {
+		if(attribute.startsWith("ui.sprite.")) {
+			int end = attribute.indexOf('.', 10);
+			GraphicElement sprite = graph.getSprite(end < 0 ? attribute.substring(10) : attribute.substring(10, end));
+
+			if(sprite != null)
+				changed(sprite);
+			else
+				spritesDirty = true;
+		}
+		else if(REDRAWN.contains(attribute)) {
+			allDirty = true;
+		}
+	}
+
+// Command -- Style group listener
+
+	/** An element changed of style group. */
+	public void elementStyleChanged(Element element, StyleGroup oldStyle, StyleGroup style) {
+		if(oldStyle != null)
+			dirty.add(oldStyle);
+		if(style != null)
+			dirty.add(style);
+	}
+
+// Command -- Sink
+
+	@Override
+	public void nodeAdded(String sourceId, long timeId, String nodeId) {
+		nodeChanged(nodeId, false);
+	}
+
+	@Override
+	public void nodeRemoved(String sourceId, long timeId, String nodeId) {
+		nodeChanged(nodeId, false);
+	}
+
+	@Override
+	public void edgeAdded(String sourceId, long timeId, String edgeId, String fromNodeId, String toNodeId, boolean directed) {
+		edgeChanged(edgeId, false);
+	}
+
+	@Override
+	public void edgeRemoved(String sourceId, long timeId, String edgeId) {
+		edgeChanged(edgeId, false);
+	}
+
+	@Override
+	public void graphCleared(String sourceId, long timeId) {
+		allDirty = true;
+	}
+
+	@Override
+	public void nodeAttributeAdded(String sourceId, long timeId, String nodeId, String attribute, Object value) {
+		nodeChanged(nodeId, attribute);
+	}
+
+	@Override
+	public void nodeAttributeChanged(String sourceId, long timeId, String nodeId, String attribute, Object oldValue, Object newValue) {
+		nodeChanged(nodeId, attribute);
+	}
+
+	@Override
+	public void nodeAttributeRemoved(String sourceId, long timeId, String nodeId, String attribute) {
+		nodeChanged(nodeId, attribute);
+	}
+
+	@Override
+	public void edgeAttributeAdded(String sourceId, long timeId, String edgeId, String attribute, Object value) {
+		edgeChanged(edgeId, isLocal(attribute));
+	}
+
+	@Override
+	public void edgeAttributeChanged(String sourceId, long timeId, String edgeId, String attribute, Object oldValue, Object newValue) {
+		edgeChanged(edgeId, isLocal(attribute));
+	}
+
+	@Override
+	public void edgeAttributeRemoved(String sourceId, long timeId, String edgeId, String attribute) {
+		edgeChanged(edgeId, isLocal(attribute));
+	}
+
+	@Override
+	public void graphAttributeAdded(String sourceId, long timeId, String attribute, Object value) {
+		graphChanged(attribute);
+	}
+
+	@Override
+	public void graphAttributeChanged(String sourceId, long timeId, String attribute, Object oldValue, Object newValue) {
+		graphChanged(attribute);
+	}
+
+	@Override
+	public void graphAttributeRemoved(String sourceId, long timeId, String attribute) {
+		graphChanged(attribute);
+	}
+}
@@ -31,17 +31,27 @@
   
 package org.graphstream.ui.swing.renderer;
 
+import java.util.List;
+
+import org.graphstream.ui.geom.Point3;
 import org.graphstream.ui.graphicGraph.GraphicElement;
 import org.graphstream.ui.graphicGraph.GraphicNode;
 import org.graphstream.ui.graphicGraph.StyleGroup;
 import org.graphstream.ui.swing.Backend;
 import org.graphstream.ui.view.camera.DefaultCamera2D;
+import org.graphstream.ui.swing.SwingCamera;
 import org.graphstream.ui.swing.SwingGraphRenderer;
 import org.graphstream.ui.swing.renderer.shape.Shape;
+import org.graphstream.ui.swing.util.FrameSnapshot;
 
 public class NodeRenderer extends StyleRenderer {
 	
 	private Shape shape = null;
+	
+	/** Size of the node plots when the group is reduced. */
+	private int plotSize = 1;
+	
+	private Point3 plot = new Point3();
 
 	public NodeRenderer(StyleGroup style) {
 		super(style);
@@ -69,33 +79,56 @@ public class NodeRenderer extends StyleRenderer {
 
 	@Override
 	public void renderElement(Backend bck, DefaultCamera2D camera, GraphicElement element) {
-		AreaSkeleton skel = getOrSetAreaSkeleton(element);
+		AreaSkeleton skel = getOrSetAreaSkeleton(camera, element);
 		shape.configureForElement(bck, element, skel, camera);
 		shape.render(bck, camera, element, skel);
 	}
 
 	@Override
 	public void renderShadow(Backend bck, DefaultCamera2D camera, GraphicElement element) {
-		AreaSkeleton skel = getOrSetAreaSkeleton(element);
+		AreaSkeleton skel = getOrSetAreaSkeleton(camera, element);
 		shape.configureForElement(bck, element, skel, camera);
 		shape.renderShadow(bck, camera, element, skel);
 	}
 	
+	@Override
+	protected void renderReduced(Backend bck, DefaultCamera2D camera, List<GraphicElement> visible) {
+		plotSize = ((SwingCamera)camera).getLevelOfDetail().plotSize(group);
+		super.renderReduced(bck, camera, visible);
+	}
+	
+	@Override
+	protected void renderElementReduced(Backend bck, DefaultCamera2D camera, GraphicElement element) {
+		FrameSnapshot snapshot = ((SwingCamera)camera).getSnapshot();
+		int slot = snapshot.nodeSlot(element);
+		
+		if(slot >= 0)
+			plot.set(snapshot.x(slot), snapshot.y(slot), 0);
+		else
+			plot.set(element.getX(), element.getY(), 0);
+		
+		bck.transform(plot);
+		
+		double offset = (plotSize - 1) / 2.0;
+		bck.graphics2D().fillRect((int)Math.floor(plot.x - offset), (int)Math.floor(plot.y - offset), plotSize, plotSize);
+	}
+	
 	@Override
 	public void elementInvisible(Backend bck, DefaultCamera2D camera, GraphicElement element) {}
 
-	/** Retrieve the area shared informations stored on the given node element.
-	  * If such information is not yet present, add it to the element. 
+	/** Retrieve the area shared informations kept by the camera for the given node element.
+	  * If such information is not yet present, add it. 
+	  * @param camera The camera of the renderer.
 	  * @param element The element to look for.
 	  * @return The node information.
 	  * @throws RuntimeException if the element is not a node. */
-	private AreaSkeleton getOrSetAreaSkeleton(GraphicElement element) {
+	private AreaSkeleton getOrSetAreaSkeleton(DefaultCamera2D camera, GraphicElement element) {
 		if(element instanceof GraphicNode) {
-			AreaSkeleton skel =(AreaSkeleton) element.getAttribute(Skeleton.attributeName);
+			AreaSkeleton skel = (AreaSkeleton)SkeletonStore.get(camera, element);
 			
 			if(skel == null) {
 				skel = new AreaSkeleton();
-				element.setAttribute(Skeleton.attributeName, skel);
+				SkeletonStore.put(camera, element, skel);
 			}
 			
 			return skel;
@@ -31,6 +31,7 @@
   
 package org.graphstream.ui.swing.renderer;
 
+import org.graphstream.ui.graphicGraph.StyleGroup;
 import org.graphstream.ui.swing.renderer.shape.swing.IconAndText;
 
 /** Elements of rendering that, contrary to the shapes, are specific to the element, not the style
@@ -40,6 +41,40 @@ public abstract class Skeleton implements org.graphstream.ui.view.camera.Skeleto
 	
 	public IconAndText iconAndText = null ;
 	
+	/** What the icon and text were built for, see {@link #iconAndTextUpToDate(StyleGroup, String, String, int, double)}. */
+	protected StyleGroup iconAndTextStyle = null ;
+	protected String iconAndTextLabel = null ;
+	protected String iconAndTextIcon = null ;
+	protected int iconAndTextVersion = -1 ;
+	protected double iconAndTextRatio = 0 ;
+	
+	/** True if the icon and text of this skeleton were built for the given style group, label, icon,
+	 * style sheet version and pixel to graph units ratio. Else the new values are recorded and the
+	 * caller must build the icon and text anew. */
+	public boolean iconAndTextUpToDate(StyleGroup style, String label, String icon, int version, double ratio) {
+		if(iconAndText != null
+		&& iconAndTextStyle == style
+		&& iconAndTextVersion == version
+		&& iconAndTextRatio == ratio
+		&& (iconAndTextLabel == null ? label == null : iconAndTextLabel.equals(label))
+		&& (iconAndTextIcon == null ? icon == null : iconAndTextIcon.equals(icon))) {
+			return true;
+		}
+		
+		iconAndTextStyle = style;
+		iconAndTextLabel = label;
+		iconAndTextIcon = icon;
+		iconAndTextVersion = version;
+		iconAndTextRatio = ratio;
+		
+		return false;
+	}
+	
+	/** Forget the icon and text, they will be built anew at the next frame. */
+	public void invalidateIconAndText() {
+		iconAndTextStyle = null;
+	}
+	
 	public enum EdgeShapeKind {
 		LINE,
 		CURVE,
@@ -0,0 +1,331 @@
+/*
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ *
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ *
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+
+ /**
+  * @author Antoine Dutot <antoine.dutot@graphstream-project.org>
+  * @author Guilhelm Savin <guilhelm.savin@graphstream-project.org>
+  * @author Hicham Brahimi <hicham.brahimi@graphstream-project.org>
+  */
+
+package org.graphstream.ui.swing.renderer;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Element;
+import org.graphstream.graph.Node;
+import org.graphstream.stream.SinkAdapter;
+import org.graphstream.ui.graphicGraph.GraphicEdge;
+import org.graphstream.ui.graphicGraph.GraphicElement;
+import org.graphstream.ui.graphicGraph.GraphicGraph;
+import org.graphstream.ui.graphicGraph.GraphicNode;
+import org.graphstream.ui.graphicGraph.stylesheet.Selector;
+import org.graphstream.ui.swing.SwingCamera;
+import org.graphstream.ui.swing.util.ElementSlots;
+import org.graphstream.ui.view.camera.DefaultCamera2D;
+
+/**
+ * Skeletons of the elements drawn by a renderer.
+ *
+ * The skeletons are kept in dense arrays, one set of arrays for nodes, one for edges
+ * and one for sprites. Each element receives a slot in the arrays of its kind when its
+ * skeleton is first stored, and an identity hash table, {@link ElementSlots}, gives
+ * the slot of an element: graphic elements have no index of their own.
+ * A lookup costs about as many memory accesses as an attribute lookup, the store is
+ * faster mostly when skeletons are stored, as no attribute event is sent.
+ * When an element is removed from the graph, the last slot of its kind is moved in
+ * its place so that the arrays stay dense.
+ *
+ * The store is a sink of the graphic graph, it follows element removals. It does not
+ * use the element attributes, and therefore does not generate attribute events.
+ *
+ * It also marks the skeletons of edges dirty, see {@link ConnectorSkeleton#setDirty()},
+ * when their nodes move, when their "ui.points" or "ui.size" attributes change, and when
+ * their group of parallel edges changes. Nodes moved without events must be given to
+ * {@link #nodeMoved(GraphicNode)}.
+ */
+public class SkeletonStore extends SinkAdapter {
+	protected GraphicGraph graph;
+
+	/** The skeletons of nodes, edges and sprites. */
+	protected Kind nodes = new Kind(), edges = new Kind(), sprites = new Kind();
+
+	/** Slots of the elements in the arrays of their kind. */
+	protected ElementSlots slots = new ElementSlots();
+
+	public SkeletonStore(GraphicGraph graph) {
+		this.graph = graph;
+	}
+
+// Access
+
+	/** The skeleton of the element, or null if it has none. */
+	public Skeleton get(GraphicElement element) {
+		int slot = slots.get(element);
+
+		if(slot >= 0)
+			return kindOf(element).skeletons[slot];
+
+		return null;
+	}
+
+	/** Number of skeletons of the given kind of elements. */
+	public int size(Selector.Type type) {
+		return kindOf(type).size;
+	}
+
+	/** The element at the given slot for the given kind of elements. */
+	public GraphicElement elementAt(Selector.Type type, int slot) {
+		return kindOf(type).elements[slot];
+	}
+
+	/** The skeleton at the given slot for the given kind of elements. */
+	public Skeleton skeletonAt(Selector.Type type, int slot) {
+		return kindOf(type).skeletons[slot];
+	}
+
+	/** The skeleton of the element in the store of the camera if it is a Swing camera, else
+	 * in the attributes of the element. */
+	public static Skeleton get(DefaultCamera2D camera, GraphicElement element) {
+		if(camera instanceof SwingCamera)
+			return ((SwingCamera)camera).getSkeletons().get(element);
+
+		return (Skeleton)element.getAttribute(Skeleton.attributeName);
+	}
+
+	/** Store the skeleton of the element in the store of the camera if it is a Swing camera,
+	 * else in the attributes of the element. */
+	public static void put(DefaultCamera2D camera, GraphicElement element, Skeleton skeleton) {
+		if(camera instanceof SwingCamera)
+			((SwingCamera)camera).getSkeletons().put(element, skeleton);
+		else
+			element.setAttribute(Skeleton.attributeName, skeleton);
+	}
+
+// Command
+
+	/** Store the skeleton of an element, replacing its previous one. */
+	public void put(GraphicElement element, Skeleton skeleton) {
+		Kind kind = kindOf(element);
+		int slot = slots.get(element);
+
+		if(slot < 0) {
+			slot = kind.add(element);
+			slots.put(element, slot);
+		}
+
+		kind.skeletons[slot] = skeleton;
+	}
+
+	/** Remove the skeleton of an element. */
+	public void remove(GraphicElement element) {
+		int slot = slots.remove(element);
+
+		if(slot >= 0) {
+			GraphicElement moved = kindOf(element).remove(slot);
+
+			if(moved != null)
+				slots.put(moved, slot);
+		}
+	}
+
+	/** The node moved, the points of its edges must be computed again. */
+	public void nodeMoved(GraphicNode node) {
+		if(node.getDegree() > 0)
+			node.edges().forEach(edge -> edgeChanged((GraphicElement)edge));
+	}
+
+	/** The points of the edge must be computed again. */
+	protected void edgeChanged(GraphicElement edge) {
+		Skeleton skeleton = get(edge);
+
+		if(skeleton instanceof ConnectorSkeleton)
+			((ConnectorSkeleton)skeleton).setDirty();
+	}
+
+	/** The group of parallel edges of the edge changed, the points of all its edges must be
+	 * computed again. */
+	protected void groupChanged(GraphicEdge edge) {
+		GraphicEdge.EdgeGroup group = edge.getGroup();
+
+		if(group != null) {
+			for(int i = 0; i < group.getCount(); i++)
+				edgeChanged(group.getEdge(i));
+		}
+	}
+
+	protected static boolean isPosition(String attribute) {
+		return attribute.equals("x") || attribute.equals("y") || attribute.equals("xy") || attribute.equals("xyz");
+	}
+
+	/** Remove all the skeletons. */
+	public void clear() {
+		nodes = new Kind();
+		edges = new Kind();
+		sprites = new Kind();
+		slots.clear();
+	}
+
+	protected Kind kindOf(Element element) {
+		return kindOf(((GraphicElement)element).getSelectorType());
+	}
+
+	protected Kind kindOf(Selector.Type type) {
+		switch(type) {
+			case NODE: return nodes;
+			case EDGE: return edges;
+			case SPRITE: return sprites;
+			default: throw new RuntimeException("no skeleton for "+type);
+		}
+	}
+
+// Command -- Sink
+
+	@Override
+	public void nodeRemoved(String sourceId, long timeId, String nodeId) {
+		Element node = graph.getNode(nodeId);
+
+		if(node != null)
+			remove((GraphicElement)node);
+	}
+
+	@Override
+	public void edgeAdded(String sourceId, long timeId, String edgeId, String fromNodeId, String toNodeId, boolean directed) {
+		Edge edge = graph.getEdge(edgeId);
+
+		if(edge != null)
+			groupChanged((GraphicEdge)edge);
+	}
+
+	@Override
+	public void edgeRemoved(String sourceId, long timeId, String edgeId) {
+		Element edge = graph.getEdge(edgeId);
+
+		if(edge != null) {
+			groupChanged((GraphicEdge)edge);
+			remove((GraphicElement)edge);
+		}
+	}
+
+	@Override
+	public void nodeAttributeAdded(String sourceId, long timeId, String nodeId, String attribute, Object value) {
+		nodeAttributeChanged(sourceId, timeId, nodeId, attribute, null, value);
+	}
+
+	@Override
+	public void nodeAttributeChanged(String sourceId, long timeId, String nodeId, String attribute, Object oldValue, Object newValue) {
+		if(isPosition(attribute) || attribute.equals("ui.size")) {
+			Node node = graph.getNode(nodeId);
+
+			if(node != null)
+				nodeMoved((GraphicNode)node);
+		}
+	}
+
+	@Override
+	public void edgeAttributeAdded(String sourceId, long timeId, String edgeId, String attribute, Object value) {
+		edgeAttributeChanged(sourceId, timeId, edgeId, attribute, null, value);
+	}
+
+	@Override
+	public void edgeAttributeChanged(String sourceId, long timeId, String edgeId, String attribute, Object oldValue, Object newValue) {
+		if(attribute.equals("ui.points") || attribute.equals("ui.size")) {
+			Edge edge = graph.getEdge(edgeId);
+
+			if(edge != null)
+				edgeChanged((GraphicElement)edge);
+		}
+	}
+
+	@Override
+	public void edgeAttributeRemoved(String sourceId, long timeId, String edgeId, String attribute) {
+		edgeAttributeChanged(sourceId, timeId, edgeId, attribute, null, null);
+	}
+
+	@Override
+	public void graphAttributeRemoved(String sourceId, long timeId, String attribute) {
+		// The sprite is already removed from the graph when the event is sent.
+		if(attribute.startsWith("ui.sprite.") && attribute.indexOf('.', 10) < 0) {
+			String id = attribute.substring(10);
+
+			for(int i = 0; i < sprites.size; i++) {
+				if(sprites.elements[i].getId().equals(id)) {
+					remove(sprites.elements[i]);
+					break;
+				}
+			}
+		}
+	}
+
+	@Override
+	public void graphCleared(String sourceId, long timeId) {
+		clear();
+	}
+
+	/** Dense arrays of the elements of one kind and their skeletons. */
+	protected static class Kind {
+		protected GraphicElement elements[] = new GraphicElement[16];
+
+		protected Skeleton skeletons[] = new Skeleton[16];
+
+		protected int size = 0;
+
+		protected int add(GraphicElement element) {
+			if(size == elements.length)
+				resize(size * 2);
+
+			elements[size] = element;
+			return size++;
+		}
+
+		/** Free the slot by moving the last element in it. Return the moved element if any. */
+		protected GraphicElement remove(int slot) {
+			GraphicElement moved = null;
+
+			size--;
+
+			if(slot != size) {
+				moved = elements[size];
+				elements[slot] = moved;
+				skeletons[slot] = skeletons[size];
+			}
+
+			elements[size] = null;
+			skeletons[size] = null;
+
+			if(elements.length > 16 && size < elements.length / 4)
+				resize(elements.length / 2);
+
+			return moved;
+		}
+
+		protected void resize(int capacity) {
+			GraphicElement e[] = new GraphicElement[capacity];
+			Skeleton s[] = new Skeleton[capacity];
+			System.arraycopy(elements, 0, e, 0, size);
+			System.arraycopy(skeletons, 0, s, 0, size);
+			elements = e;
+			skeletons = s;
+		}
+	}
+}
@@ -31,11 +31,9 @@
   
 package org.graphstream.ui.swing.renderer;
 
-import org.graphstream.ui.geom.Point3;
 import org.graphstream.ui.graphicGraph.GraphicElement;
 import org.graphstream.ui.graphicGraph.GraphicSprite;
 import org.graphstream.ui.graphicGraph.StyleGroup;
-import org.graphstream.ui.graphicGraph.stylesheet.StyleConstants;
 import org.graphstream.ui.swing.Backend;
 import org.graphstream.ui.view.camera.DefaultCamera2D;
 import org.graphstream.ui.swing.SwingGraphRenderer;
@@ -72,7 +70,7 @@ public class SpriteRenderer extends StyleRenderer {
 	@Override
 	public void renderElement(Backend bck, DefaultCamera2D camera, GraphicElement element) {
 		GraphicSprite sprite = (GraphicSprite)element;
-		AreaSkeleton skel = getOrSetAreaSkeleton(element);
+		AreaSkeleton skel = getOrSetAreaSkeleton(camera, element);
 		
 		shape.configureForElement(bck, element, skel, camera);
 		shape.render(bck, camera, element, skel);
@@ -81,8 +79,7 @@ public class SpriteRenderer extends StyleRenderer {
 	@Override
 	public void renderShadow(Backend bck, DefaultCamera2D camera, GraphicElement element) {
 		GraphicSprite sprite = (GraphicSprite)element;
-		Point3 pos = camera.getSpritePosition(sprite, new Point3(), StyleConstants.Units.GU);
-		AreaSkeleton skel = getOrSetAreaSkeleton(element);
+		AreaSkeleton skel = getOrSetAreaSkeleton(camera, element);
 		
 		shape.configureForElement(bck, element, skel, camera);
 		shape.renderShadow(bck, camera, element, skel);
@@ -91,13 +88,13 @@ public class SpriteRenderer extends StyleRenderer {
 	@Override
 	public void elementInvisible(Backend bck, DefaultCamera2D camera, GraphicElement element) {}
 
-	private AreaSkeleton getOrSetAreaSkeleton(GraphicElement element) {
+	private AreaSkeleton getOrSetAreaSkeleton(DefaultCamera2D camera, GraphicElement element) {
 		if(element instanceof GraphicSprite) {
-			AreaSkeleton info = (AreaSkeleton)element.getAttribute(Skeleton.attributeName);
+			AreaSkeleton info = (AreaSkeleton)SkeletonStore.get(camera, element);
 			
 			if(info == null) {
 				info = new AreaSkeleton();
-				element.setAttribute(Skeleton.attributeName, info);
+				SkeletonStore.put(camera, element, info);
 			}
 			
 			return info;
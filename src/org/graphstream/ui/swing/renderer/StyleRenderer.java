@@ -31,11 +31,21 @@
   
 package org.graphstream.ui.swing.renderer;
 
+import java.awt.BasicStroke;
+import java.awt.Color;
 import java.awt.Graphics2D;
+import java.awt.Stroke;
+import java.awt.geom.AffineTransform;
+import java.util.List;
 
 import org.graphstream.ui.graphicGraph.GraphicElement;
 import org.graphstream.ui.graphicGraph.StyleGroup;
+import org.graphstream.ui.graphicGraph.stylesheet.StyleConstants;
 import org.graphstream.ui.swing.Backend;
+import org.graphstream.ui.swing.SwingCamera;
+import org.graphstream.ui.swing.renderer.shape.swing.ShapePaint;
+import org.graphstream.ui.swing.util.ColorManager;
+import org.graphstream.ui.swing.util.LevelOfDetail;
 import org.graphstream.ui.view.camera.DefaultCamera2D;
 import org.graphstream.ui.swing.SwingGraphRenderer;
 
@@ -44,6 +54,9 @@ public abstract class StyleRenderer implements GraphicElement.SwingElementRender
 	protected StyleGroup group ;
 	protected boolean hadEvents = false ;
 	
+	private static final AffineTransform IDENTITY = new AffineTransform();
+	private static final Stroke THIN = new BasicStroke(1);
+	
 	public static StyleRenderer apply(StyleGroup style, SwingGraphRenderer mainRenderer) {
 		switch (style.getType()) {
 			case NODE: return NodeRenderer.apply(style, mainRenderer) ; 
@@ -74,6 +87,13 @@ public abstract class StyleRenderer implements GraphicElement.SwingElementRender
      * - draw all "dynamic" elements using renderElement().
      * - draw all "event" elements using renderElement().
      * 
+     * When the camera culled the elements of the group (see {@link #visibleElements(DefaultCamera2D)}),
+     * only the visible bulk and dynamic elements are browsed.
+     * 
+     * When the group is drawn with a reduced level of detail (see {@link #isReduced(DefaultCamera2D)}),
+     * the bulk and dynamic elements are drawn by renderReduced() in a single phase, and their
+     * shadows are not drawn. Event elements are always drawn in full detail.
+     * 
      * Before drawing, the setupRenderingPass() and pushStyle() methods are called. The phase 1 is
      * run. Then for each dynamic element in phase 2, before calling renderElement, for each element
      * the pushDynStyle() method is called.
@@ -88,31 +108,55 @@ public abstract class StyleRenderer implements GraphicElement.SwingElementRender
 		setupRenderingPass(bck, camera, shadow);
 		pushStyle(bck, camera, shadow);
 
+		List<GraphicElement> visible = visibleElements(camera);
+
+		if(isReduced(camera)) {
+			if(! shadow)
+				renderReduced(bck, camera, visible);
+		}
+		else {
 //var T1 = System.currentTimeMillis
-		group.bulkElements().forEach( e -> {
-			GraphicElement ge = (GraphicElement)e;
-	
-			if(camera.isVisible(ge))
-				render.apply(bck, camera, ge);
-			else 
-				elementInvisible(bck, camera, ge);
-		});
+			if(visible != null) {
+				visible.forEach( ge -> {
+					if(! group.elementIsDynamic(ge) && ! group.elementHasEvents(ge))
+						render.apply(bck, camera, ge);
+				});
+			}
+			else {
+				group.bulkElements().forEach( e -> {
+					GraphicElement ge = (GraphicElement)e;
+		
+					if(camera.isVisible(ge))
+						render.apply(bck, camera, ge);
+					else 
+						elementInvisible(bck, camera, ge);
+				});
+			}
 //var T2 = System.currentTimeMillis
 			
-		if(group.hasDynamicElements()) {
-			group.dynamicElements().forEach( e -> {
-				GraphicElement ge = (GraphicElement)e;
-
-				if(camera.isVisible(ge)) {
-					if(! group.elementHasEvents(ge)) {
+			if(group.hasDynamicElements() && visible != null) {
+				visible.forEach( ge -> {
+					if(group.elementIsDynamic(ge) && ! group.elementHasEvents(ge)) {
 						pushDynStyle(bck, camera, ge);
 						render.apply(bck, camera, ge);
 					}
-				} 
-				else {
-					elementInvisible(bck, camera, ge);
-				}
-			});
+				});
+			}
+			else if(group.hasDynamicElements()) {
+				group.dynamicElements().forEach( e -> {
+					GraphicElement ge = (GraphicElement)e;
+
+					if(camera.isVisible(ge)) {
+						if(! group.elementHasEvents(ge)) {
+							pushDynStyle(bck, camera, ge);
+							render.apply(bck, camera, ge);
+						}
+					} 
+					else {
+						elementInvisible(bck, camera, ge);
+					}
+				});
+			}
 		}
 
 		if(group.hasEventElements()) {
@@ -139,6 +183,98 @@ public abstract class StyleRenderer implements GraphicElement.SwingElementRender
 		endRenderingPass(bck, camera, shadow);
    }
 	
+	/** The visible elements of the group if the camera culled them, else null and all the elements
+	 * of the group are browsed. Renderers that need {@link #elementInvisible(Backend, DefaultCamera2D, GraphicElement)}
+	 * to be called on all the invisible elements must return null. */
+	protected List<GraphicElement> visibleElements(DefaultCamera2D camera) {
+		if(camera instanceof SwingCamera)
+			return ((SwingCamera)camera).visibleElements(group);
+		
+		return null;
+	}
+	
+	/** True if the group is drawn with a reduced level of detail at the current zoom, see {@link LevelOfDetail}. */
+	protected boolean isReduced(DefaultCamera2D camera) {
+		return camera instanceof SwingCamera && ((SwingCamera)camera).getLevelOfDetail().isReduced(group);
+	}
+	
+	/** Render the visible bulk and dynamic elements of the group with the reduced level of detail.
+	 * The elements are drawn in pixels, with a thin stroke and the color given by
+	 * {@link #reducedColor(GraphicElement)}, by renderElementReduced(). */
+	protected void renderReduced(Backend bck, DefaultCamera2D camera, List<GraphicElement> visible) {
+		Graphics2D g = bck.graphics2D();
+		AffineTransform transform = g.getTransform();
+		Stroke stroke = g.getStroke();
+		Color color = reducedColor(null);
+		
+		g.setTransform(IDENTITY);
+		g.setStroke(THIN);
+		
+		if(color != null)
+			g.setColor(color);
+		
+		if(visible != null) {
+			visible.forEach( ge -> {
+				if(! group.elementHasEvents(ge))
+					renderReduced(bck, camera, g, ge, color);
+			});
+		}
+		else {
+			group.elements().forEach( e -> {
+				GraphicElement ge = (GraphicElement)e;
+				
+				if(! group.elementHasEvents(ge) && camera.isVisible(ge))
+					renderReduced(bck, camera, g, ge, color);
+			});
+		}
+		
+		g.setStroke(stroke);
+		g.setTransform(transform);
+	}
+	
+	private void renderReduced(Backend bck, DefaultCamera2D camera, Graphics2D g, GraphicElement element, Color color) {
+		if(group.elementIsDynamic(element)) {
+			Color dynColor = reducedColor(element);
+			
+			if(dynColor != null) {
+				g.setColor(dynColor);
+				renderElementReduced(bck, camera, element);
+				g.setColor(color);
+			}
+		}
+		else if(color != null) {
+			renderElementReduced(bck, camera, element);
+		}
+	}
+	
+	/** The color of an element drawn with the reduced level of detail, or of all the elements of the
+	 * group if the element is null: the dynamic color of the element if any, else the first fill color
+	 * of the group, or its first stroke color if it is not filled. Null if nothing is painted. */
+	protected Color reducedColor(GraphicElement element) {
+		if(element != null && group.getFillMode() == StyleConstants.FillMode.DYN_PLAIN) {
+			Object color = element.getAttribute("ui.color");
+			
+			if(color instanceof Number)
+				return ShapePaint.interpolateColor(group.getFillColors(), ((Number)color).doubleValue());
+			else if(color instanceof Color)
+				return (Color)color;
+		}
+		
+		if(group.getFillMode() != StyleConstants.FillMode.NONE)
+			return ColorManager.getColor(group.getFillColor(0));
+		else if(group.getStrokeMode() != StyleConstants.StrokeMode.NONE)
+			return ColorManager.getColor(group.getStrokeColor(0));
+		
+		return null;
+	}
+	
+	/** Render a single element with the reduced level of detail. The graphics is in pixels and its
+	 * color is set. Renderers whose groups can be reduced must override this.
+	 * @param bck The rendering back-end.
+	 * @param camera The camera.
+	 * @param element The element to render. */
+	protected void renderElementReduced(Backend bck, DefaultCamera2D camera, GraphicElement element) {}
+	
 	// Methods to implement in each renderer
 	 
 	/** Called before the whole rendering pass for all elements.
@@ -40,9 +40,10 @@ import org.graphstream.ui.graphicGraph.StyleGroup;
 import org.graphstream.ui.graphicGraph.stylesheet.Style;
 import org.graphstream.ui.graphicGraph.stylesheet.StyleConstants;
 import org.graphstream.ui.view.camera.DefaultCamera2D;
+import org.graphstream.ui.swing.SwingCamera;
 import org.graphstream.ui.swing.renderer.AreaSkeleton;
 import org.graphstream.ui.swing.renderer.ConnectorSkeleton;
-import org.graphstream.ui.swing.renderer.Skeleton;
+import org.graphstream.ui.swing.renderer.SkeletonStore;
 
 public class Connector extends HasSkel {
 	// Attribute
@@ -52,7 +53,10 @@ public class Connector extends HasSkel {
 
 	/** Width of the connector. */
 	public double theSize = 0;
-		
+
+	/** Is the width of the connector taken from its "ui.size" attribute? */
+	protected boolean dynSize = false;
+
 	/** Overall size of the area at the end of the connector. */
 	public Point2 theTargetSize = new Point2(0, 0);
 
@@ -102,38 +106,41 @@ public class Connector extends HasSkel {
 		if(element.getGroup() != null) {
 			skel.setMulti(element.getGroup().getCount());
 		}
-				
-		// XXX TODO there are a lot of cases where we do not need this information.
-		// It would be good to compute it lazily, only when needed;
-		// Furthermore, it would be good to be able to update it, only when really
-		// Changed.
-		// There is lots of work to be done here, in order to extend the way we get
-		// the points of the skeleton. Probably a PointVector class that can tell
-		// when some of its parts changed.
-		if(element.hasAttribute("ui.points")) {
-			skel.setPoly(element.getAttribute("ui.points"));
+		
+		// The points are only computed again when the skeleton store marked them dirty. Other
+		// cameras keep the skeletons in the attributes, without a store. Loops also depend on
+		// the size of their node, they are always computed again.
+		if(skel.isDirty() || element.from == element.to || !(camera instanceof SwingCamera)) {
+			if(element.hasAttribute("ui.points")) {
+				skel.setPoly(element.getAttribute("ui.points"));
+			} else {
+				positionForLinesAndCurves( skel, element.from.getStyle(), element.from, 
+						element.to, element.multi, element.getGroup() );
+			}
+			
+			skel.keepBase();
 		} else {
-			positionForLinesAndCurves( skel, element.from.getStyle(), element.from, 
-					element.to, element.multi, element.getGroup() );
+			skel.restoreBase();
 		}
 	}
 
 	/** Set the size of the connector using the predefined style. */
 	private void sizeForGroup(Style style, DefaultCamera2D camera) {
 		theSize = camera.getMetrics().lengthToGu( style.getSize(), 0 ) ;
+		dynSize = (style.getSizeMode() == StyleConstants.SizeMode.DYN_SIZE);
 	}
 	
 	/** Set the size of the connector for this particular `element`. */
 	private void sizeForElement(StyleGroup style, DefaultCamera2D camera, GraphicEdge element) {
-		if(style.getSizeMode() == StyleConstants.SizeMode.DYN_SIZE && element.hasAttribute( "ui.size")) {
+		if(dynSize && element.hasAttribute( "ui.size")) {
 			theSize = camera.getMetrics().lengthToGu(StyleConstants.convertValue(element.getAttribute("ui.size")));
 		}			
 	}
 	
 	/** Define the two end points sizes using the fit size stored in the nodes. */
 	public void endPoints(GraphicNode from, GraphicNode to, boolean directed, DefaultCamera2D camera) {
-		AreaSkeleton fromInfo = (AreaSkeleton)from.getAttribute( Skeleton.attributeName );
-		AreaSkeleton toInfo = (AreaSkeleton)to.getAttribute( Skeleton.attributeName );
+		AreaSkeleton fromInfo = (AreaSkeleton)SkeletonStore.get( camera, from );
+		AreaSkeleton toInfo = (AreaSkeleton)SkeletonStore.get( camera, to );
 		
 		if(fromInfo != null && toInfo != null) {
 			isDirected     = directed;
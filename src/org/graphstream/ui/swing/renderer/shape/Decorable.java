@@ -38,6 +38,7 @@ import org.graphstream.ui.graphicGraph.GraphicElement;
 import org.graphstream.ui.graphicGraph.StyleGroup;
 import org.graphstream.ui.graphicGraph.stylesheet.Style;
 import org.graphstream.ui.swing.Backend;
+import org.graphstream.ui.swing.SwingCamera;
 import org.graphstream.ui.view.camera.DefaultCamera2D;
 import org.graphstream.ui.swing.renderer.Skeleton;
 import org.graphstream.ui.swing.renderer.shape.swing.IconAndText;
@@ -50,6 +51,12 @@ public class Decorable extends HasSkel {
  
 	/** The text and icon. */
 	public ShapeDecor theDecor = null ;
+	
+	/** Does the style take the icon from the element? Read once per group. */
+	protected boolean dynamicIcon = false;
+	
+	/** Does the decor of the style depend on the zoom? Read once per group. */
+	protected boolean zoomDependent = false;
   
  	/** Paint the decorations (text and icon). */
  	public void decorArea(Backend backend, DefaultCamera2D camera, IconAndText iconAndText, GraphicElement element, java.awt.Shape shape ) {
@@ -83,16 +90,34 @@ public class Decorable extends HasSkel {
 	
 	/** Configure all the static parts needed to decor the shape. */
   	public void configureDecorableForGroup( Style style, DefaultCamera2D camera) {
-		/*if( theDecor == null )*/ theDecor = ShapeDecor.apply( style );
+		theDecor = ShapeDecor.apply( style, theDecor );
+		dynamicIcon = style.getIcon() != null && style.getIcon().equals( "dynamic" );
+		zoomDependent = IconAndText.isZoomDependent( style );
   	}
-  	/** Setup the parts of the decor specific to each element. */
+  	/** Setup the parts of the decor specific to each element. The icon and text are kept on the
+  	 * skeleton and only built anew when the label, the icon, the style or the zoom (for lengths
+  	 * not in pixels) changed. Elements with events are always built anew, events change their
+  	 * style values without changing their style group. An icon and text built while its icon
+  	 * was read in the background is built anew once images arrived. */
   	public void configureDecorableForElement(Backend backend, DefaultCamera2D camera, GraphicElement element, Skeleton skel) {
   		text = element.label;
   		if( skel != null ) {
   			StyleGroup style = element.getStyle();
+  			String url = null;
+  			if( dynamicIcon && element.hasAttribute( "ui.icon" ) ) {
+  				url = element.getLabel("ui.icon").toString();
+  			}
+  			double ratio = zoomDependent ? camera.getMetrics().ratioPx2Gu : 0;
+  			
+  			if( style.elementHasEvents( element ) || ( skel.iconAndText != null && skel.iconAndText.isOutdated( camera ) ) ) {
+  				skel.invalidateIconAndText();
+  			}
+  			else if( skel.iconAndTextUpToDate( style, element.label, url, SwingCamera.getStyleVersion(camera), ratio ) ) {
+  				return;
+  			}
+  			
   			skel.iconAndText = IconAndText.apply( style, camera, element );
-  			if( style.getIcon() != null && style.getIcon().equals( "dynamic" ) && element.hasAttribute( "ui.icon" ) ) {
-  				String url = element.getLabel("ui.icon").toString();
+  			if( url != null ) {
   				skel.iconAndText.setIcon(backend, url);
   			}
   			skel.iconAndText.setText(backend, element.label);
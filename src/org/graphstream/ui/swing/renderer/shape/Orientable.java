@@ -41,7 +41,7 @@ import org.graphstream.ui.graphicGraph.stylesheet.StyleConstants;
 import org.graphstream.ui.graphicGraph.stylesheet.StyleConstants.SpriteOrientation;
 import org.graphstream.ui.view.camera.DefaultCamera2D;
 import org.graphstream.ui.swing.renderer.ConnectorSkeleton;
-import org.graphstream.ui.swing.renderer.Skeleton;
+import org.graphstream.ui.swing.renderer.SkeletonStore;
 
 /** Trait for all shapes that points at a direction. */
 public class Orientable {
@@ -86,7 +86,7 @@ public class Orientable {
 					target.set(((GraphicEdge)sprite.getAttachment()).to.getX(), ((GraphicEdge)sprite.getAttachment()).to.getY());
 					break;
 				case PROJECTION: 
-					ConnectorSkeleton ei = (ConnectorSkeleton)((GraphicEdge)sprite.getAttachment()).getAttribute(Skeleton.attributeName) ;
+					ConnectorSkeleton ei = (ConnectorSkeleton)SkeletonStore.get(camera, (GraphicEdge)sprite.getAttachment()) ;
 					if(ei != null)
 					     ei.pointOnShape(sprite.getX(), target) ;
 					else
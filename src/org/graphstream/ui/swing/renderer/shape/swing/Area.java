@@ -58,6 +58,15 @@ public class Area {
 	/** Fit the shape size to its contents? */
 	protected boolean fit = false;
 	
+	/** Is the size of the elements taken from their "ui.size" attribute? */
+	protected boolean dynSize = false;
+	
+	/** Size of the group, the size of elements without a specific size. */
+	protected double groupWidth = 0, groupHeight = 0;
+	
+	/** Position of the element, reused from element to element. */
+	protected Point3 pos = new Point3();
+	
 	public void configureAreaForGroup(Style style, DefaultCamera2D camera) {
 		sizeForGroup(style, camera);
 	}
@@ -68,7 +77,7 @@ public class Area {
 	 *   - Eventually the element specific size attribute,
 	 *   - Eventually the element contents (decor). */
 	public void configureAreaForElement(Backend backend, DefaultCamera2D camera, AreaSkeleton skel, GraphicElement element, ShapeDecor decor) {
-		Point3 pos = camera.getNodeOrSpritePositionGU(element, null);
+		camera.getNodeOrSpritePositionGU(element, pos);
 		
 		if(fit) {
 			Tuple<Double, Double> decorSize = decor.size(backend, camera, skel.iconAndText);
@@ -93,18 +102,21 @@ public class Area {
 			h = camera.getMetrics().lengthToGu( style.getSize(), 1 );
 		
 		  
+		groupWidth = w;
+		groupHeight = h;
 		theSize.set(w, h);
-		fit = (style.getSizeMode() == StyleConstants.SizeMode.FIT);
+		StyleConstants.SizeMode mode = style.getSizeMode();
+		fit = (mode == StyleConstants.SizeMode.FIT);
+		dynSize = (mode == StyleConstants.SizeMode.DYN_SIZE);
 	}
 	
-	/** Try to compute the size of this area according to the given element. */
+	/** Try to compute the size of this area according to the given element. The size of the
+	 * style is the one computed for the group. */
 	private void sizeForElement(Style style, DefaultCamera2D camera, GraphicElement element) {
-		double w = camera.getMetrics().lengthToGu(style.getSize(), 0);
-		double h = w ;
-		if(style.getSize().size() > 1) 
-			h = camera.getMetrics().lengthToGu(style.getSize(), 1) ;
+		double w = groupWidth;
+		double h = groupHeight;
 				
-		if(style.getSizeMode() == StyleConstants.SizeMode.DYN_SIZE) {
+		if(dynSize) {
 			Object s = element.getAttribute("ui.size");
 		
 			if(s != null) {
@@ -45,9 +45,11 @@ import org.graphstream.ui.graphicGraph.GraphicElement;
 import org.graphstream.ui.graphicGraph.stylesheet.Style;
 import org.graphstream.ui.graphicGraph.stylesheet.StyleConstants.IconMode;
 import org.graphstream.ui.graphicGraph.stylesheet.StyleConstants.TextStyle;
+import org.graphstream.ui.graphicGraph.stylesheet.StyleConstants.Units;
 import org.graphstream.ui.graphicGraph.stylesheet.Value;
 import org.graphstream.ui.graphicGraph.stylesheet.Values;
 import org.graphstream.ui.swing.Backend;
+import org.graphstream.ui.swing.SwingCamera;
 import org.graphstream.ui.view.camera.DefaultCamera2D;
 import org.graphstream.ui.swing.util.ColorManager;
 import org.graphstream.ui.swing.util.FontCache;
@@ -69,6 +71,10 @@ public abstract class IconAndText {
 	protected double padx;
 	protected double pady;
 	
+	/** Version of the image cache when this was built without its icon, still read in the
+	 * background, else -1. See {@link #isOutdated(DefaultCamera2D)}. */
+	protected int pendingIcon = -1;
+	
 	public IconAndText(TextBox text, double offx, double offy, double padx, double pady) {
 		this.descent = text.getDescent() ;
 		this.ascent = text.getAscent();
@@ -79,8 +85,26 @@ public abstract class IconAndText {
 		this.pady = pady ;
 	}
 	
+	/** True if this was built without its icon, read in the background, and images arrived
+	 * since or the camera no longer reads them in the background. */
+	public boolean isOutdated(DefaultCamera2D camera) {
+		if(pendingIcon < 0)
+			return false;
+		
+		return pendingIcon != ImageCache.getVersion() || !(camera instanceof SwingCamera && ((SwingCamera)camera).isLoadingImagesInBackground());
+	}
+	
+	/** True if some of the lengths used to build the icon and text are not in pixels and therefore
+	 * depend on the zoom. */
+	public static boolean isZoomDependent(Style style) {
+		return style.getPadding().units != Units.PX
+			|| style.getTextOffset().units != Units.PX
+			|| style.getTextPadding().units != Units.PX;
+	}
+	
 	public static IconAndText apply(Style style, DefaultCamera2D camera, GraphicElement element) {
 		BufferedImage icon = null ;
+		int pending = -1 ;
 		TextBox text = TextBox.apply(camera, style);
 		Values padd = style.getPadding();
 		Values off = style.getTextOffset();
@@ -104,12 +128,19 @@ public abstract class IconAndText {
 			}
 			
 			if( url != null ) {
-				icon = ImageCache.loadImage(url);
+				// Read the version first, the icon may arrive just after the request.
+				int version = ImageCache.getVersion();
+				icon = SwingCamera.getImage(camera, url);
+				
+				if( icon == null )
+					pending = version;
 			}
 		}
 		
 		if (icon == null) {
-			return new IconAndTextOnlyText(text, offx, offy, padx, pady);
+			IconAndText onlyText = new IconAndTextOnlyText(text, offx, offy, padx, pady);
+			onlyText.pendingIcon = pending;
+			return onlyText;
 		}
 		else {
 			switch (style.getIconMode()) {
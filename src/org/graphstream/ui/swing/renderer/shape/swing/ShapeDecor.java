@@ -33,9 +33,9 @@ package org.graphstream.ui.swing.renderer.shape.swing;
 
 import java.awt.Graphics2D;
 import java.awt.geom.AffineTransform;
+import java.util.function.Supplier;
 
 import org.graphstream.ui.geom.Point3;
-import org.graphstream.ui.geom.Vector2;
 import org.graphstream.ui.graphicGraph.GraphicElement;
 import org.graphstream.ui.graphicGraph.stylesheet.Style;
 import org.graphstream.ui.graphicGraph.stylesheet.StyleConstants.TextMode;
@@ -53,25 +53,38 @@ public abstract class ShapeDecor {
 	}
 	
 	public static ShapeDecor apply(Style style) {
+		return apply(style, null);
+	}
+	
+	/** The decor for the `style`, the `previous` one if it is already of the kind asked by
+	 *  the style, so that it is not created anew for each group of each frame. */
+	public static ShapeDecor apply(Style style, ShapeDecor previous) {
 		if( style.getTextMode() == TextMode.HIDDEN ) {
-			return new EmptyShapeDecor();
+			return reuse(previous, EmptyShapeDecor.class, EmptyShapeDecor::new);
 		}
 		else {
 			switch (style.getTextAlignment()) {
-				case CENTER:	return new CenteredShapeDecor();
-				case LEFT:		return new LeftShapeDecor();
-				case RIGHT:		return new RightShapeDecor();
-				case AT_LEFT:	return new AtLeftShapeDecor();
-				case AT_RIGHT:	return new AtRightShapeDecor();
-				case UNDER:		return new UnderShapeDecor();
-				case ABOVE:		return new AboveShapeDecor();
-				case JUSTIFY:	return new CenteredShapeDecor();
-				case ALONG:		return new AlongShapeDecor();
+				case CENTER:	return reuse(previous, CenteredShapeDecor.class, CenteredShapeDecor::new);
+				case LEFT:		return reuse(previous, LeftShapeDecor.class, LeftShapeDecor::new);
+				case RIGHT:		return reuse(previous, RightShapeDecor.class, RightShapeDecor::new);
+				case AT_LEFT:	return reuse(previous, AtLeftShapeDecor.class, AtLeftShapeDecor::new);
+				case AT_RIGHT:	return reuse(previous, AtRightShapeDecor.class, AtRightShapeDecor::new);
+				case UNDER:		return reuse(previous, UnderShapeDecor.class, UnderShapeDecor::new);
+				case ABOVE:		return reuse(previous, AboveShapeDecor.class, AboveShapeDecor::new);
+				case JUSTIFY:	return reuse(previous, CenteredShapeDecor.class, CenteredShapeDecor::new);
+				case ALONG:		return reuse(previous, AlongShapeDecor.class, AlongShapeDecor::new);
 				default:		return null ;
 			}
 		}
 	}
 	
+	private static ShapeDecor reuse(ShapeDecor previous, Class<? extends ShapeDecor> kind, Supplier<ShapeDecor> create) {
+		if( previous != null && previous.getClass() == kind )
+			return previous;
+		
+		return create.get();
+	}
+	
 	/** Render the decoration inside the given box coordinates. The shape decoration contains all the metrics
 	  * to render the `iconAndText` icon and text. The coordinates (`x0`, `y0`) and (`x1`, `y1`)
 	  * indicates the lower-left and upper-right coordinates of the area where the decoration should be
@@ -87,6 +100,9 @@ public abstract class ShapeDecor {
 	/** Overall size (getWidth() and getHeight()) of the decoration, taking into account the `iconAndText` as
 	 *  well as the various metrics specified by the style. */
 	public abstract Tuple<Double, Double> size(Backend backend, DefaultCamera2D camera, IconAndText iconAndText);
+	
+	/** The size of decors that take no room in the shape. */
+	protected static final Tuple<Double, Double> NO_SIZE = new Tuple<Double, Double>(0.0, 0.0);
 }
 
 /** A decor that does nothing. */
@@ -95,7 +111,7 @@ class EmptyShapeDecor extends ShapeDecor {
 	public void renderAlong(Backend b, DefaultCamera2D camera, IconAndText iconAndText, double x0, double y0, double x1, double y1) {}
 	public void renderAlong(Backend b, DefaultCamera2D camera, IconAndText iconAndText, ConnectorSkeleton skel) {}
 	public Tuple<Double, Double> size(Backend b, DefaultCamera2D camera, IconAndText iconAndText) {
-		return new Tuple<Double, Double>(0.0, 0.0);
+		return NO_SIZE;
 	}
 	
 }
@@ -107,13 +123,20 @@ abstract class PxShapeDecor extends ShapeDecor {
 	 * font size to render the text at the correct size ? How to handle the icon in
 	 * this case ? 
 	 */
+	
+	/** Position of the decor, and identity transform, reused from element to element. */
+	protected Point3 p = new Point3();
+	protected AffineTransform identity = new AffineTransform();
+	
 	protected void renderGu2Px(Backend backend, DefaultCamera2D camera, IconAndText iconAndText, double x, double y, double angle,
-			FunctionIn<Backend, Point3, IconAndText, Double, Point3> positionPx ) {
+			PositionPx positionPx ) {
 		Graphics2D g  = backend.graphics2D();
-		Point3 p  = camera.transformGuToPx( x, y, 0 );
+		this.p.set( x, y, 0 );
+		Point3 p  = backend.transform( this.p );
 		AffineTransform Tx = g.getTransform();
 
-		g.setTransform( new AffineTransform() );
+		identity.setToIdentity();
+		g.setTransform( identity );
 
 		p = positionPx.apply(backend, p, iconAndText, angle);
 		iconAndText.render(backend, camera, p.x, p.y );
@@ -123,7 +146,10 @@ abstract class PxShapeDecor extends ShapeDecor {
 
 class CenteredShapeDecor extends PxShapeDecor {
 	
-	FunctionIn<Backend, Point3, IconAndText, Double, Point3> positionTextAndIconPx = (backend, p, iconAndText, angle) -> {
+	/** Middle of the curves the decor is drawn along. */
+	protected Point3 middle = new Point3();
+	
+	PositionPx positionTextAndIconPx = (backend, p, iconAndText, angle) -> {
 		p.x = p.x - ( iconAndText.getWidth() / 2 + 1 ) + iconAndText.padx;
 		p.y = p.y + ( iconAndText.getHeight() / 2 ) - iconAndText.pady*2;
 		return p;
@@ -141,15 +167,15 @@ class CenteredShapeDecor extends PxShapeDecor {
 	@Override
 	public void renderAlong(Backend backend, DefaultCamera2D camera, IconAndText iconAndText, double x0, double y0,
 			double x1, double y1) {
-		Vector2 dir = new Vector2( x1-x0, y1-y0 );
-		dir.scalarMult( 0.5f );
+		double dx = ( x1 - x0 ) * 0.5f;
+		double dy = ( y1 - y0 ) * 0.5f;
 				
-		renderGu2Px(backend, camera, iconAndText, x0 + dir.x(), y0 + dir.y(), 0, positionTextAndIconPx);	
+		renderGu2Px(backend, camera, iconAndText, x0 + dx, y0 + dy, 0, positionTextAndIconPx);	
 	}
 
 	@Override
 	public void renderAlong(Backend backend, DefaultCamera2D camera, IconAndText iconAndText, ConnectorSkeleton skel) {
-		Point3 p = skel.pointOnShape(0.5);
+		Point3 p = skel.pointOnShape(0.5, middle);
 		renderGu2Px(backend, camera, iconAndText, p.x, p.y, 0, positionTextAndIconPx);
 	}
 
@@ -163,7 +189,7 @@ class CenteredShapeDecor extends PxShapeDecor {
 }
 
 class AtLeftShapeDecor extends PxShapeDecor {
-	FunctionIn<Backend, Point3, IconAndText, Double, Point3> positionTextAndIconPx = (backend, p, iconAndText, angle) -> {
+	PositionPx positionTextAndIconPx = (backend, p, iconAndText, angle) -> {
 		p.x = p.x - ( iconAndText.getWidth() + 2 ) + iconAndText.padx;
 		p.y = p.y + ( iconAndText.getHeight() / 2 ) - iconAndText.pady;
 		return p;
@@ -195,14 +221,14 @@ class AtLeftShapeDecor extends PxShapeDecor {
 
 	@Override
 	public Tuple<Double, Double> size(Backend backend, DefaultCamera2D camera, IconAndText iconAndText) {
-		return new Tuple<Double, Double>(0.0, 0.0);
+		return NO_SIZE;
 	}
 	
 }
 
 class AtRightShapeDecor extends PxShapeDecor {
 
-	FunctionIn<Backend, Point3, IconAndText, Double, Point3> positionTextAndIconPx = (backend, p, iconAndText, angle) -> {
+	PositionPx positionTextAndIconPx = (backend, p, iconAndText, angle) -> {
 		p.x = p.x + iconAndText.padx;
 		p.y = p.y + ( iconAndText.getHeight() / 2 ) - iconAndText.pady;
 		return p;
@@ -234,20 +260,20 @@ class AtRightShapeDecor extends PxShapeDecor {
 
 	@Override
 	public Tuple<Double, Double> size(Backend backend, DefaultCamera2D camera, IconAndText iconAndText) {
-		return new Tuple<Double, Double>(0.0, 0.0);
+		return NO_SIZE;
 	}
 	
 }
 
 class LeftShapeDecor extends PxShapeDecor {
 	
-	FunctionIn<Backend, Point3, IconAndText, Double, Point3> positionTextAndIconAreaPx = (backend, p, iconAndText, angle) -> {
+	PositionPx positionTextAndIconAreaPx = (backend, p, iconAndText, angle) -> {
 		p.x = p.x - ( iconAndText.getWidth() + 2 ) + iconAndText.padx;
 		p.y = p.y + ( iconAndText.getHeight() / 2 ) - iconAndText.pady;
 		return p;
 	};
 	
-	FunctionIn<Backend, Point3, IconAndText, Double, Point3> positionTextAndIconAlongPx = (backend, p, iconAndText, angle) -> {
+	PositionPx positionTextAndIconAlongPx = (backend, p, iconAndText, angle) -> {
 		p.x = p.x + iconAndText.padx;
 		p.y = p.y + ( iconAndText.getHeight() / 2 ) - iconAndText.pady;
 		return p;
@@ -276,19 +302,19 @@ class LeftShapeDecor extends PxShapeDecor {
 
 	@Override
 	public Tuple<Double, Double> size(Backend backend, DefaultCamera2D camera, IconAndText iconAndText) {
-		return new Tuple<Double, Double>(0.0, 0.0);
+		return NO_SIZE;
 	}
 	
 }
 
 class RightShapeDecor extends PxShapeDecor {
-	FunctionIn<Backend, Point3, IconAndText, Double, Point3> positionTextAndIconAreaPx = (backend, p, iconAndText, angle) -> {
+	PositionPx positionTextAndIconAreaPx = (backend, p, iconAndText, angle) -> {
 		p.x = p.x + iconAndText.padx;
 		p.y = p.y + ( iconAndText.getHeight() / 2 ) - iconAndText.pady;
 		return p;
 	};
 	
-	FunctionIn<Backend, Point3, IconAndText, Double, Point3> positionTextAndIconAlongPx = (backend, p, iconAndText, angle) -> {
+	PositionPx positionTextAndIconAlongPx = (backend, p, iconAndText, angle) -> {
 		p.x = p.x - ( iconAndText.getWidth() + 2 + iconAndText.padx );
 		p.y = p.y + ( iconAndText.getHeight() / 2 ) - iconAndText.pady;
 		return p;
@@ -316,14 +342,14 @@ class RightShapeDecor extends PxShapeDecor {
 
 	@Override
 	public Tuple<Double, Double> size(Backend backend, DefaultCamera2D camera, IconAndText iconAndText) {
-		return new Tuple<Double, Double>(0.0, 0.0);
+		return NO_SIZE;
 	}
 	
 }
 
 class UnderShapeDecor extends PxShapeDecor {
 
-	FunctionIn<Backend, Point3, IconAndText, Double, Point3> positionTextAndIconPx = (backend, p, iconAndText, angle) -> {
+	PositionPx positionTextAndIconPx = (backend, p, iconAndText, angle) -> {
 		p.x = p.x - ( iconAndText.getWidth() / 2 + 1 ) + iconAndText.padx;
 		p.y = p.y + ( iconAndText.getHeight() ) - iconAndText.pady;
 		return p;
@@ -341,10 +367,10 @@ class UnderShapeDecor extends PxShapeDecor {
 	@Override
 	public void renderAlong(Backend backend, DefaultCamera2D camera, IconAndText iconAndText, double x0, double y0,
 			double x1, double y1) {
-		Vector2 dir = new Vector2( x1-x0, y1-y0 );
-		dir.scalarMult( 0.5f );
+		double dx = ( x1 - x0 ) * 0.5f;
+		double dy = ( y1 - y0 ) * 0.5f;
 
-		renderGu2Px(backend, camera, iconAndText, x0+dir.x(), y0+dir.y(), 0, positionTextAndIconPx );
+		renderGu2Px(backend, camera, iconAndText, x0+dx, y0+dy, 0, positionTextAndIconPx );
 	}
 
 	@Override
@@ -355,13 +381,13 @@ class UnderShapeDecor extends PxShapeDecor {
 
 	@Override
 	public Tuple<Double, Double> size(Backend backend, DefaultCamera2D camera, IconAndText iconAndText) {
-		return new Tuple<Double, Double>(0.0, 0.0);
+		return NO_SIZE;
 	}
 	
 }
 
 class AboveShapeDecor extends PxShapeDecor {
-	FunctionIn<Backend, Point3, IconAndText, Double, Point3> positionTextAndIconPx = (backend, p, iconAndText, angle) -> {
+	PositionPx positionTextAndIconPx = (backend, p, iconAndText, angle) -> {
 		p.x = p.x - ( iconAndText.getWidth() / 2 + 1 ) + iconAndText.padx;
 		p.y = p.y - iconAndText.pady;
 		return p;
@@ -379,10 +405,10 @@ class AboveShapeDecor extends PxShapeDecor {
 	@Override
 	public void renderAlong(Backend backend, DefaultCamera2D camera, IconAndText iconAndText, double x0, double y0,
 			double x1, double y1) {
-		Vector2 dir = new Vector2( x1-x0, y1-y0 );
-		dir.scalarMult( 0.5f );
+		double dx = ( x1 - x0 ) * 0.5f;
+		double dy = ( y1 - y0 ) * 0.5f;
 
-		renderGu2Px(backend, camera, iconAndText, x0+dir.x(), y0+dir.y(), 0, positionTextAndIconPx );
+		renderGu2Px(backend, camera, iconAndText, x0+dx, y0+dy, 0, positionTextAndIconPx );
 	}
 
 	@Override
@@ -393,19 +419,20 @@ class AboveShapeDecor extends PxShapeDecor {
 
 	@Override
 	public Tuple<Double, Double> size(Backend backend, DefaultCamera2D camera, IconAndText iconAndText) {
-		return new Tuple<Double, Double>(0.0, 0.0);
+		return NO_SIZE;
 	}
 	
 }
 
 class AlongShapeDecor extends PxShapeDecor {
 
-	FunctionIn<Backend, Point3, IconAndText, Double, Point3> positionTextAndIconPx = (backend, p, iconAndText, angle) -> {
+	PositionPx positionTextAndIconPx = (backend, p, iconAndText, angle) -> {
 		 Graphics2D g = backend.graphics2D();
 		 g.translate( p.x, p.y );
 		 g.rotate( angle );
 		 g.translate( -iconAndText.getWidth()/2, +iconAndText.getHeight()/2 );
-		 return new Point3( 0, 0, 0 );
+		 p.set( 0, 0, 0 );
+		 return p;
 	};
 	
 	@Override
@@ -415,14 +442,18 @@ class AlongShapeDecor extends PxShapeDecor {
 	@Override
 	public void renderAlong(Backend backend, DefaultCamera2D camera, IconAndText iconAndText, double x0, double y0,
 			double x1, double y1) {
-		Vector2 dir = new Vector2( x1-x0, y1-y0 );
-		dir.scalarMult( 0.5f );
-		double cx = x0 + dir.x();
-		double cy = y0 + dir.y();
-		dir.normalize();
-		double angle = Math.acos( dir.dotProduct( 1, 0 ) );
+		double dx = ( x1 - x0 ) * 0.5f;
+		double dy = ( y1 - y0 ) * 0.5f;
+		double cx = x0 + dx;
+		double cy = y0 + dy;
+		double len = Math.sqrt( dx * dx + dy * dy );
+		if( len != 0 ) {
+			dx /= len;
+			dy /= len;
+		}
+		double angle = Math.acos( dx );
 		
-		if( dir.y() > 0 )			// The angle is always computed for acute angles
+		if( dy > 0 )			// The angle is always computed for acute angles
 			angle = ( Math.PI - angle );
 		
 		if( angle > Math.PI/2 ) 
@@ -439,26 +470,27 @@ class AlongShapeDecor extends PxShapeDecor {
 
 	@Override
 	public Tuple<Double, Double> size(Backend backend, DefaultCamera2D camera, IconAndText iconAndText) {
-		return new Tuple<Double, Double>(0.0, 0.0);
+		return NO_SIZE;
 	}
 	
 }
 
 /******************************* UTIL *******************************/
 
+/** Moves the position in pixels `p` of the decor to where the icon and text are drawn. */
 @FunctionalInterface
-interface FunctionIn<A,B,C,D, Z> {
+interface PositionPx {
 	
 	/**
 	 * Applies this function to the given arguments.
 	 *
-	 * @param a the first function argument
-	 * @param b the second function argument
-	 * @param c the third function argument
-	 * @param d the fourth function argument
-	 * @return the function result
+	 * @param backend the backend
+	 * @param p the position in pixels, changed in place
+	 * @param iconAndText the icon and text
+	 * @param angle the angle of the text
+	 * @return the position
 	 */
-	Z apply(A a, B b, C c, D d);
+	Point3 apply(Backend backend, Point3 p, IconAndText iconAndText, double angle);
 }
 
 class Tuple<X, Y> { 
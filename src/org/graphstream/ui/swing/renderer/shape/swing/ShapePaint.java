@@ -33,18 +33,22 @@ package org.graphstream.ui.swing.renderer.shape.swing;
 
 import java.awt.Color;
 import java.awt.GradientPaint;
+import java.awt.Graphics2D;
 import java.awt.LinearGradientPaint;
 import java.awt.MultipleGradientPaint;
 import java.awt.Paint;
 import java.awt.RadialGradientPaint;
 import java.awt.TexturePaint;
+import java.awt.geom.AffineTransform;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
+import java.util.Arrays;
 
 import org.graphstream.ui.graphicGraph.stylesheet.Colors;
 import org.graphstream.ui.graphicGraph.stylesheet.Style;
 import org.graphstream.ui.swing.util.ColorManager;
 import org.graphstream.ui.swing.util.ImageCache;
+import org.graphstream.ui.swing.util.TranslatedShape;
 
 public interface ShapePaint {
 	
@@ -169,74 +173,15 @@ public interface ShapePaint {
 		return colors ;
 	}
 	
+	/**
+	 * The color at the given value of the list, read in a precomputed interpolation table.
+	 */
 	static Color interpolateColor( Colors colors, double value ) {
-		int n = colors.size();
-		Color c = ColorManager.getColor(colors.get(0));
-
-		if( n > 1 ) {
-			double v = value ;
-			if( value < 0 ) 
-				v = 0;
-			else if( value > 1 )
-				v = 1;
-		
-		
-			if( v == 1 ) {
-				c = ColorManager.getColor(colors.get(n-1));	// Simplification, faster.
-			}
-			else if( v != 0 ) {	// If value == 0, color is already set above.
-				double div = 1.0 / (n-1);
-				int col = (int) ( value / div ) ;
-		
-				div = ( value - (div*col) ) / div ;
-		
-				Color color0 = ColorManager.getColor(colors.get( col ));
-				Color color1 = ColorManager.getColor(colors.get( col + 1 ));
-				double  red    = ( (color0.getRed()  *(1-div)) + (color1.getRed()  *div) ) / 255f;
-				double green  = ( (color0.getGreen()*(1-div)) + (color1.getGreen()*div) ) / 255f;
-				double blue   = ( (color0.getBlue() *(1-div)) + (color1.getBlue() *div) ) / 255f;
-				double alpha  = ( (color0.getAlpha()*(1-div)) + (color1.getAlpha()*div) ) / 255f;
-							
-				c = new Color( (float)red, (float)green, (float)blue, (float)alpha );
-			}
-		}
-	 
-		return c;
+		return ColorManager.interpolate( colors, value );
 	}
 
 	default Color interpolateColor( Color[] colors, double value ) {
-		int n = colors.length;
-		Color c = colors[0];
-
-		if( n > 1 ) {
-			double v = value ;
-			if( value < 0 ) 
-				v = 0;
-			else if( value > 1 )
-				v = 1;
-		
-		
-			if( v == 1 ) {
-				c = colors[n-1];	// Simplification, faster.
-			}
-			else if( v != 0 ) {	// If value == 0, color is already set above.
-				double div = 1.0 / (n-1);
-				int col = (int) ( value / div ) ;
-		
-				div = ( value - (div*col) ) / div ;
-		
-				Color color0 = colors[ col ];
-				Color color1 = colors[ col + 1 ];
-				double  red    = ( (color0.getRed()  *(1-div)) + (color1.getRed()  *div) ) / 255f;
-				double green  = ( (color0.getGreen()*(1-div)) + (color1.getGreen()*div) ) / 255f;
-				double blue   = ( (color0.getBlue() *(1-div)) + (color1.getBlue() *div) ) / 255f;
-				double alpha  = ( (color0.getAlpha()*(1-div)) + (color1.getAlpha()*div) ) / 255f;
-							
-				c = new Color( (float)red, (float)green, (float)blue, (float)alpha );
-			}
-		}
-	 
-		return c;
+		return ColorManager.interpolate( colors, value );
 	}
 
 	public abstract class ShapeAreaPaint extends Area implements ShapePaint {
@@ -254,10 +199,20 @@ public interface ShapePaint {
 	
 	
 	public abstract class ShapeGradientPaint extends ShapeAreaPaint {
+		/** Number of gradients kept in the local space of the shapes. */
+		public static final int LOCAL_PAINTS = 8;
+
 		protected Color[] colors ;
 		protected float[] fractions ;
 		protected boolean version16 ;
 
+		/** Gradients made in the local space of the shapes and the sizes they are made for,
+		 * see {@link #fill(Graphics2D, java.awt.Shape)}. */
+		protected Paint[] localPaints = null;
+		protected long[] localSizes = null;
+		protected int localNext = 0;
+		protected TranslatedShape local = null;
+
 		public ShapeGradientPaint(Color[] colors , float[] fractions) {
 			this.colors = colors;
 			this.fractions = fractions;
@@ -296,6 +251,66 @@ public interface ShapePaint {
 		}
 	  
 		public abstract Paint realPaint( double x0, double y0, double x1, double y1) ;
+
+		/**
+		 * Fill the shape with the gradient. The gradient is made once in the local space of
+		 * the shape, whose origin is the corner of its bounds, and is reused for the shapes of
+		 * the same size, that are filled with the graphics translated to their corner.
+		 */
+		public void fill( Graphics2D g, java.awt.Shape shape ) {
+			if( colors.length > 1 ) {
+				Rectangle2D bounds = shape.getBounds2D();
+				double x0 = bounds.getMinX();
+				double y0 = bounds.getMinY();
+				double w = bounds.getWidth();
+				double h = bounds.getHeight();
+				
+				if( w == 0 ) { w = 0.001f; }
+				if( h == 0 ) { h = 0.001f; }
+				
+				if( local == null )
+					local = new TranslatedShape();
+				
+				AffineTransform t = g.getTransform();
+				g.translate( x0, y0 );
+				g.setPaint( localPaint( (float)w, (float)h ) );
+				g.fill( local.set( shape, -x0, -y0 ) );
+				g.setTransform( t );
+			}
+			else {
+				g.setPaint( paint( shape, 1 ) );
+				g.fill( shape );
+			}
+		}
+		
+		/** True if the other paint makes the same gradients, its local gradients can then be kept. */
+		public boolean sameAs( ShapePaint other ) {
+			return other != null && other.getClass() == getClass()
+				&& Arrays.equals( colors, ((ShapeGradientPaint)other).colors )
+				&& Arrays.equals( fractions, ((ShapeGradientPaint)other).fractions );
+		}
+		
+		/** The gradient of the given size in local space, made if needed. */
+		protected Paint localPaint( float w, float h ) {
+			long size = ((long)Float.floatToIntBits( w ) << 32) | (Float.floatToIntBits( h ) & 0xFFFFFFFFL);
+			
+			if( localPaints == null ) {
+				localPaints = new Paint[LOCAL_PAINTS];
+				localSizes = new long[LOCAL_PAINTS];
+			}
+			
+			for( int i = 0 ; i < LOCAL_PAINTS ; i++ ) {
+				if( localPaints[i] != null && localSizes[i] == size )
+					return localPaints[i];
+			}
+			
+			Paint paint = realPaint( 0, 0, w, h );
+			localPaints[localNext] = paint;
+			localSizes[localNext] = size;
+			localNext = ( localNext + 1 ) % LOCAL_PAINTS;
+			
+			return paint;
+		}
 	 }
 	
 	public class ShapeVerticalGradientPaint extends ShapeGradientPaint {
@@ -382,29 +397,79 @@ public interface ShapePaint {
 	
 	public class ShapeDynPlainColorPaint extends ShapeColorPaint {
 		public Color[] colors;
+		/** The interpolation table of the colors, fetched at first use. */
+		protected Color[] table;
 		public ShapeDynPlainColorPaint( Color[] colors ) {
 			this.colors = colors ;
 		}
 		public Paint paint( double value, Color optColor ) {
 			if(optColor != null) 
 				return optColor ;
-			else 
-				return interpolateColor( colors, value );	
+			
+			if(table == null)
+				table = ColorManager.getTable( colors );
+			
+			return table[ColorManager.tableIndex( value )];
 		}
 	}
 	
-	public class ShapeImageTiledPaint extends ShapeAreaPaint {
-		private String url ;
+	/** Fill with an image, read in the background if asked. A neutral color is used until the
+	 * image arrives. The image is drawn from the variant of the image cache prepared for the
+	 * size of the shape on the device. */
+	public abstract class ShapeImagePaint extends ShapeAreaPaint {
+		protected String url ;
 		
-		public ShapeImageTiledPaint( String url ) {
+		protected boolean background = false ;
+		
+		/** Pixels of the device by graph unit when the shape is filled, zero if not known. */
+		protected double pixels = 0 ;
+		
+		public ShapeImagePaint( String url ) {
 			this.url = url ;
 		}
 		
+		/** Read the image in the background if on. */
+		public void setBackground( boolean on ) {
+			background = on ;
+		}
+		
+		/** The image, or null while it is read in the background. */
+		protected BufferedImage image() {
+			return background ? ImageCache.requestImage(url) : ImageCache.loadImage(url) ;
+		}
+		
+		/** Fill the shape, the image being prepared for the size of the shape on the device. */
+		public void fill( Graphics2D g, java.awt.Shape shape, double px2gu ) {
+			pixels = Math.sqrt( Math.abs( g.getTransform().getDeterminant() ) ) ;
+			g.setPaint( paint( shape, px2gu ) ) ;
+			g.fill( shape ) ;
+		}
+		
+		/** The variant of the image prepared to be drawn over the given size in graph units,
+		 * or the image itself if the size on the device is not known. */
+		protected BufferedImage scaled( BufferedImage img, double width, double height ) {
+			if( pixels <= 0 )
+				return img ;
+			
+			BufferedImage variant = ImageCache.scaledImage( url, Math.abs( width ) * pixels, Math.abs( height ) * pixels ) ;
+			
+			return variant != null ? variant : img ;
+		}
+	}
+	
+	public class ShapeImageTiledPaint extends ShapeImagePaint {
+		public ShapeImageTiledPaint( String url ) {
+			super( url ) ;
+		}
+		
 		public Paint paint( double xFrom, double yFrom, double xTo, double yTo, double px2gu ) {
-			BufferedImage img = ImageCache.loadImage(url) ;
+			BufferedImage img = image() ;
 			
-			if (img != null) {
-				return new TexturePaint( img, new Rectangle2D.Double( xFrom, yFrom, img.getWidth()/px2gu, -(img.getHeight()/px2gu) ) );
+			if (img == null && background) {
+				return ImageCache.PLACEHOLDER_COLOR ;
+			}
+			else if (img != null) {
+				return new TexturePaint( scaled( img, img.getWidth()/px2gu, img.getHeight()/px2gu ), new Rectangle2D.Double( xFrom, yFrom, img.getWidth()/px2gu, -(img.getHeight()/px2gu) ) );
 			}
 			else {
 				img = ImageCache.dummyImage();
@@ -413,18 +478,19 @@ public interface ShapePaint {
 		}
 	}
 	
-	public class ShapeImageScaledPaint extends ShapeAreaPaint {
-		private String url ;
-		
+	public class ShapeImageScaledPaint extends ShapeImagePaint {
 		public ShapeImageScaledPaint( String url ) {
-			this.url = url ;
+			super( url ) ;
 		}
 		
 		public Paint paint( double xFrom, double yFrom, double xTo, double yTo, double px2gu ) {
-			BufferedImage img = ImageCache.loadImage(url) ;
+			BufferedImage img = image() ;
 			
-			if (img != null) {
-				return new TexturePaint( img, new Rectangle2D.Double( xFrom, yFrom, xTo-xFrom, -(yTo-yFrom) ) );
+			if (img == null && background) {
+				return ImageCache.PLACEHOLDER_COLOR ;
+			}
+			else if (img != null) {
+				return new TexturePaint( scaled( img, xTo-xFrom, yTo-yFrom ), new Rectangle2D.Double( xFrom, yFrom, xTo-xFrom, -(yTo-yFrom) ) );
 			}
 			else {
 				img = ImageCache.dummyImage();
@@ -433,17 +499,18 @@ public interface ShapePaint {
 		}
 	}
 	
-	public class ShapeImageScaledRatioMaxPaint extends ShapeAreaPaint {
-		private String url ;
-		
+	public class ShapeImageScaledRatioMaxPaint extends ShapeImagePaint {
 		public ShapeImageScaledRatioMaxPaint( String url ) {
-			this.url = url ;
+			super( url ) ;
 		}
 		
 		public Paint paint( double xFrom, double yFrom, double xTo, double yTo, double px2gu ) {
-			BufferedImage img = ImageCache.loadImage(url) ;
+			BufferedImage img = image() ;
 			
-			if (img != null) {
+			if (img == null && background) {
+				return ImageCache.PLACEHOLDER_COLOR ;
+			}
+			else if (img != null) {
 				double w = xTo-xFrom;
 				double h = yTo-yFrom;
 				double ratioi = (double)img.getWidth() / (double)img.getHeight();
@@ -451,10 +518,10 @@ public interface ShapePaint {
 
 				if( ratioi > ration ) {
 					double neww = h * ratioi;
-					return new TexturePaint( img, new Rectangle2D.Double( xFrom-((neww-w)/2), yFrom, neww, -h ) );
+					return new TexturePaint( scaled( img, neww, h ), new Rectangle2D.Double( xFrom-((neww-w)/2), yFrom, neww, -h ) );
 				} else {
 					double newh = w / ratioi;
-					return new TexturePaint( img, new Rectangle2D.Double( xFrom, yFrom-((newh-h)/2), w, -newh ) );
+					return new TexturePaint( scaled( img, w, newh ), new Rectangle2D.Double( xFrom, yFrom-((newh-h)/2), w, -newh ) );
 				}
 			}
 			else {
@@ -464,17 +531,18 @@ public interface ShapePaint {
 		}
 	}
 	
-	public class ShapeImageScaledRatioMinPaint extends ShapeAreaPaint {
-		private String url ;
-		
+	public class ShapeImageScaledRatioMinPaint extends ShapeImagePaint {
 		public ShapeImageScaledRatioMinPaint( String url ) {
-			this.url = url ;
+			super( url ) ;
 		}
 		
 		public Paint paint( double xFrom, double yFrom, double xTo, double yTo, double px2gu ) {
-			BufferedImage img = ImageCache.loadImage(url) ;
+			BufferedImage img = image() ;
 			
-			if (img != null) {
+			if (img == null && background) {
+				return ImageCache.PLACEHOLDER_COLOR ;
+			}
+			else if (img != null) {
 				double w = xTo-xFrom ;
 				double h = yTo-yFrom ;
 				double ratioi = (double)img.getWidth() / (double)img.getHeight();
@@ -482,10 +550,10 @@ public interface ShapePaint {
 
 				if( ration > ratioi ) {
 					double neww = h * ratioi ;
-					return new TexturePaint( img, new Rectangle2D.Double( xFrom+((w-neww)/2), yFrom, neww, -h ) ) ;
+					return new TexturePaint( scaled( img, neww, h ), new Rectangle2D.Double( xFrom+((w-neww)/2), yFrom, neww, -h ) ) ;
 				} else {
 					double newh = w / ratioi ;
-					return new TexturePaint( img, new Rectangle2D.Double( xFrom, yFrom-((h-newh)/2), w, -newh ) ) ;
+					return new TexturePaint( scaled( img, w, newh ), new Rectangle2D.Double( xFrom, yFrom-((h-newh)/2), w, -newh ) ) ;
 				}
 			}
 			else {
@@ -37,9 +37,23 @@ import java.awt.Stroke;
 
 import org.graphstream.ui.graphicGraph.stylesheet.Style;
 import org.graphstream.ui.swing.util.ColorManager;
+import org.graphstream.ui.swing.util.StrokeCache;
 
 public abstract class ShapeStroke {
+	private double oldWidth = Double.NaN ;
+	private Stroke oldStroke = null ;
+	
 	public abstract Stroke stroke(double width) ;
+	
+	/** The stroke of the kind and width, taken in the shared {@link StrokeCache} when the width changes. */
+	protected Stroke cached(StrokeCache.Maker kind, double width) {
+		if( width != oldWidth || oldStroke == null ) {
+			oldWidth = width ;
+			oldStroke = StrokeCache.get( kind, width, 0 );
+		}
+		
+		return oldStroke ;
+	}
 
 	public static ShapeStroke strokeForArea(Style style) {
 		switch (style.getStrokeMode()) {
@@ -76,84 +90,48 @@ public abstract class ShapeStroke {
 }
 
 class PlainShapeStroke extends ShapeStroke {
-	private double oldWidth = 0.0 ;
-	private Stroke oldStroke = null ;
+	private static final StrokeCache.Maker PLAIN = (width, dash) -> new BasicStroke( width );
 	
 	@Override
 	public Stroke stroke(double width) {
-		if( width == oldWidth ) {
-			if( oldStroke == null ) 
-				oldStroke = new BasicStroke( (float)width/*, BasicStroke.CAP_BUTT, BasicStroke.JOIN_BEVEL*/ )	;// WTF ??
-			return oldStroke;
-		} 
-		else {
-			oldWidth  = width;
-			oldStroke = new BasicStroke( (float)width/*, BasicStroke.CAP_BUTT, BasicStroke.JOIN_BEVEL*/ );
-			return oldStroke;
-		}
+		return cached( PLAIN, width );
 	}
 }
 
 class DotsShapeStroke extends ShapeStroke {
-	private double oldWidth = 0.0 ;
-	private Stroke oldStroke = null ;
+	private static final StrokeCache.Maker DOTS = (width, dash) -> {
+		float[] f = {width, width} ;
+		return new BasicStroke( width, BasicStroke.CAP_BUTT, BasicStroke.JOIN_BEVEL, 10, f, 0);
+	};
 	
 	@Override
 	public Stroke stroke(double width) {
-		if( width == oldWidth ) {
-			if( oldStroke == null ) {
-				float[] f = {(float)width, (float)width} ;
-				oldStroke = new BasicStroke( (float)width, BasicStroke.CAP_BUTT, BasicStroke.JOIN_BEVEL, 10, f, 0); // WTF ??
-			}
-			return oldStroke;
-		} else {
-			oldWidth = width;
-			float[] f = {(float)width, (float)width} ;
-			oldStroke = new BasicStroke( (float)width, BasicStroke.CAP_BUTT, BasicStroke.JOIN_BEVEL, 10, f, 0);
-			return oldStroke;
-		}
+		return cached( DOTS, width );
 	}
 }
 
 class DashesShapeStroke extends ShapeStroke {
-	private double oldWidth = 0.0 ;
-	private Stroke oldStroke = null ;
+	private static final StrokeCache.Maker DASHES = (width, dash) -> {
+		float[] f = {3*width, 3*width};
+		return new BasicStroke( width, BasicStroke.CAP_BUTT, BasicStroke.JOIN_BEVEL, 10, f, 0);
+	};
 	
 	@Override
 	public Stroke stroke(double width) {
-		if( width == oldWidth ) {
-			if( oldStroke == null ){
-				float[] f = {(float)(3*width), (float)(3*width)};
-				oldStroke = new BasicStroke( (float)width, BasicStroke.CAP_BUTT, BasicStroke.JOIN_BEVEL, 10, f, 0); // WTF ??
-			}
-			return oldStroke ;
-		} else {
-			oldWidth = width ;
-			float[] f = {(float)(3*width), (float)(3*width)};
-			oldStroke = new BasicStroke( (float)width, BasicStroke.CAP_BUTT, BasicStroke.JOIN_BEVEL, 10, f, 0);
-			return oldStroke ;
-		}
+		return cached( DASHES, width );
 	}	
 }
 
 class DoubleShapeStroke extends ShapeStroke {
-	private double oldWidth = 0.0 ;
-	private Stroke oldStroke = null ;
+	private static final StrokeCache.Maker DOUBLE = (width, dash) -> 
+		new CompositeStroke( new BasicStroke( width*2 ), new BasicStroke( width ) );
 	
 	@Override
 	public Stroke stroke(double width) {
-		if(width == oldWidth) {
-            if(oldStroke == null) 
-            	oldStroke = new CompositeStroke(new BasicStroke((float)width*3), new BasicStroke((float)width));
-            return oldStroke;
-        } else {
-            oldWidth = width;
-            oldStroke = new CompositeStroke(new BasicStroke((float)width*2), new BasicStroke((float)width));
-            return oldStroke;
-        }
+		return cached( DOUBLE, width );
 	}
 	
-	class CompositeStroke implements Stroke {
+	static class CompositeStroke implements Stroke {
 		private Stroke stroke1 ;
 		private Stroke stroke2 ;
 		
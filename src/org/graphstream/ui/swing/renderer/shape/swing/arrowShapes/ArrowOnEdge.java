@@ -35,7 +35,6 @@ import java.awt.Graphics2D;
 import java.awt.geom.Path2D;
 
 import org.graphstream.ui.geom.Point2;
-import org.graphstream.ui.geom.Point3;
 import org.graphstream.ui.geom.Vector2;
 import org.graphstream.ui.graphicGraph.GraphicElement;
 import org.graphstream.ui.graphicGraph.stylesheet.Style;
@@ -51,6 +50,9 @@ import org.graphstream.ui.swing.util.AttributeUtils.Tuple;
 public class ArrowOnEdge extends AreaOnConnectorShape {
 	Path2D.Double theShape = new Path2D.Double();
 
+	/** Direction of the edge and its perpendicular, reused from edge to edge. */
+	Vector2 theDirection = new Vector2(), perp = new Vector2();
+
 	@Override
 	public void make(Backend backend, DefaultCamera2D camera) {
 		make( false, camera );
@@ -72,15 +74,14 @@ public class ArrowOnEdge extends AreaOnConnectorShape {
 		
 		Tuple<Point2, Double> tuple =  CubicCurve.approxIntersectionPointOnCurve( theEdge, theConnector, camera );
 		Point2 p1 = tuple.x ;
-		double t = tuple.y ; 
 		
 		Style style  = theEdge.getStyle();
 		
-		Point3 p2 = CubicCurve.eval( theConnector.fromPos(), theConnector.byPos1(), theConnector.byPos2(), theConnector.toPos(), t-0.05f );
-		Vector2 dir = new Vector2( p1.x - p2.x, p1.y - p2.y );		// XXX The choice of the number above (0.05f) is problematic
-		dir.normalize();											// Clearly it should be chosen according to the length
-		dir.scalarMult( theSize.x );								// of the arrow compared to the length of the curve, however
-		Vector2 per = new Vector2( dir.y(), -dir.x() );				// computing the curve length (see CubicCurve) is costly. XXX
+		// XXX The choice of the number below (0.05f) is problematic. Clearly it should be chosen
+		// according to the length of the arrow compared to the length of the curve. XXX
+		Vector2 dir = CubicCurve.approxDirectionAtIntersection( theEdge, theConnector, camera, 0.05f );
+		dir.scalarMult( theSize.x );
+		Vector2 per = new Vector2( dir.y(), -dir.x() );
 		per.normalize();
 		per.scalarMult( theSize.y );
 		
@@ -96,16 +97,15 @@ public class ArrowOnEdge extends AreaOnConnectorShape {
 	private void makeOnLine(boolean forShadow, DefaultCamera2D camera) {
 		ConnectorSkeleton skel = theConnector.skel;
 		double off = 0;
-		Vector2 theDirection ;
 		if(skel.isPoly()) {
 			off = ShapeUtil.evalTargetRadius2D( skel.apply(skel.size()-2), skel.to(), theEdge.to, camera );
-			theDirection = new Vector2(
+			theDirection.set(
 					skel.to().x - skel.apply(skel.size()-2).x,
 					skel.to().y - skel.apply(skel.size()-2).y );
 		} 
 		else {
 			off = ShapeUtil.evalTargetRadius2D( skel.from(), skel.to(), theEdge.to, camera );
-			theDirection = new Vector2(
+			theDirection.set(
 					skel.to().x - skel.from().x,
 					skel.to().y - skel.from().y );
 		}
@@ -114,7 +114,7 @@ public class ArrowOnEdge extends AreaOnConnectorShape {
 		
 		double x = theCenter.x - ( theDirection.x() * off );
 		double y = theCenter.y - ( theDirection.y() * off );
-		Vector2 perp = new Vector2( theDirection.y(), -theDirection.x() );
+		perp.set( theDirection.y(), -theDirection.x() );
 
 		perp.normalize();
 		theDirection.scalarMult( theSize.x );
@@ -35,7 +35,6 @@ import java.awt.Graphics2D;
 import java.awt.geom.Ellipse2D;
 
 import org.graphstream.ui.geom.Point2;
-import org.graphstream.ui.geom.Point3;
 import org.graphstream.ui.geom.Vector2;
 import org.graphstream.ui.graphicGraph.GraphicElement;
 import org.graphstream.ui.graphicGraph.stylesheet.Style;
@@ -51,6 +50,9 @@ import org.graphstream.ui.swing.util.AttributeUtils.Tuple;
 public class CircleOnEdge extends AreaOnConnectorShape {
 	Ellipse2D.Double theShape = new Ellipse2D.Double();
 
+	/** Direction of the edge, reused from edge to edge. */
+	Vector2 theDirection = new Vector2();
+
 	@Override
 	public void make(Backend backend, DefaultCamera2D camera) {
 		make( false, camera );
@@ -71,13 +73,10 @@ public class CircleOnEdge extends AreaOnConnectorShape {
 	private void makeOnCurve(boolean forShadow, DefaultCamera2D camera) {
 		Tuple<Point2, Double> tuple = CubicCurve.approxIntersectionPointOnCurve( theEdge, theConnector, camera );
 		Point2 p1 = tuple.x ;
-		double t = tuple.y ;
 		
 		Style style  = theEdge.getStyle();
 				
-		Point3 p2 = CubicCurve.eval( theConnector.fromPos(), theConnector.byPos1(), theConnector.byPos2(), theConnector.toPos(), t-0.1f );
-		Vector2 dir = new Vector2( p1.x - p2.x, p1.y - p2.y );
-		dir.normalize();
+		Vector2 dir = CubicCurve.approxDirectionAtIntersection( theEdge, theConnector, camera, 0.1f );
 		dir.scalarMult( theSize.x/2 );
 
 		// Create a polygon.
@@ -86,7 +85,7 @@ public class CircleOnEdge extends AreaOnConnectorShape {
 
 	private void makeOnLine(boolean forShadow, DefaultCamera2D camera) {
 		double off = ShapeUtil.evalTargetRadius2D( theEdge, camera ) + ((theSize.x+theSize.y)/4);
-		Vector2 theDirection = new Vector2(
+		theDirection.set(
 				theConnector.toPos().x - theConnector.fromPos().x,
 				theConnector.toPos().y - theConnector.fromPos().y );
 		
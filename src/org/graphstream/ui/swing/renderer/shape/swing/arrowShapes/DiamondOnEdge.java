@@ -48,6 +48,9 @@ import org.graphstream.ui.swing.util.AttributeUtils.Tuple;
 
 public class DiamondOnEdge extends AreaOnConnectorShape {
 	Path2D.Double theShape = new Path2D.Double();
+
+	/** Direction of the edge and its perpendicular, reused from edge to edge. */
+	Vector2 theDirection = new Vector2(), perp = new Vector2();
 	
 	@Override
 	public void make(Backend backend, DefaultCamera2D camera) {
@@ -71,13 +74,10 @@ public class DiamondOnEdge extends AreaOnConnectorShape {
 		Tuple<Point2, Double> tuple = CubicCurve.approxIntersectionPointOnCurve( theEdge, theConnector, camera );
 
 		Point2 p1 = tuple.x ;
-		double t = tuple.y ;
 		
 		Style style  = theEdge.getStyle();
 				
-		Point2 p2  = CubicCurve.eval( theConnector.fromPos(), theConnector.byPos1(), theConnector.byPos2(), theConnector.toPos(), t-0.1f );
-		Vector2 dir = new Vector2( p1.x - p2.x, p1.y - p2.y );
-		dir.normalize();
+		Vector2 dir = CubicCurve.approxDirectionAtIntersection( theEdge, theConnector, camera, 0.1f );
 		dir.scalarMult( theSize.x );
 		Vector2 per = new Vector2( dir.y(), -dir.x() );
 		per.normalize();
@@ -95,7 +95,7 @@ public class DiamondOnEdge extends AreaOnConnectorShape {
 
 	private void makeOnLine(boolean forShadow, DefaultCamera2D camera) {
 		double off = ShapeUtil.evalTargetRadius2D( theEdge, camera );
-		Vector2 theDirection = new Vector2(
+		theDirection.set(
 			theConnector.toPos().x - theConnector.fromPos().x,
 			theConnector.toPos().y - theConnector.fromPos().y );
 			
@@ -103,7 +103,7 @@ public class DiamondOnEdge extends AreaOnConnectorShape {
   
 		double x = theCenter.x - ( theDirection.x() * off );
 		double y = theCenter.y - ( theDirection.y() * off );
-		Vector2 perp = new Vector2( theDirection.y(), -theDirection.x() );
+		perp.set( theDirection.y(), -theDirection.x() );
 		
 		perp.normalize();
 		theDirection.scalarMult( theSize.x / 2 );
@@ -42,6 +42,7 @@ import org.graphstream.ui.graphicGraph.GraphicElement;
 import org.graphstream.ui.graphicGraph.stylesheet.Style;
 import org.graphstream.ui.graphicGraph.stylesheet.StyleConstants.Units;
 import org.graphstream.ui.swing.Backend;
+import org.graphstream.ui.swing.SwingCamera;
 import org.graphstream.ui.view.camera.DefaultCamera2D;
 import org.graphstream.ui.swing.renderer.Skeleton;
 import org.graphstream.ui.swing.renderer.shape.swing.baseShapes.AreaOnConnectorShape;
@@ -54,6 +55,9 @@ public class ImageOnEdge extends AreaOnConnectorShape {
 	BufferedImage image = null;
 	Point3 p = null ;
 	double angle = 0.0;
+
+	/** Direction of the edge, reused from edge to edge. */
+	Vector2 theDirection = new Vector2();
 	
 	@Override
 	public void configureForGroup(Backend bck, Style style, DefaultCamera2D camera) {
@@ -74,9 +78,9 @@ public class ImageOnEdge extends AreaOnConnectorShape {
 		}
 				
 		if( url != null ) {
-			image = ImageCache.loadImage(url);
+			image = SwingCamera.getImage(camera, url);
 			if (image == null) {
-				image = ImageCache.dummyImage();
+				image = ImageCache.placeholderImage();
 			}
 		}
 	}
@@ -100,13 +104,9 @@ public class ImageOnEdge extends AreaOnConnectorShape {
 	private void makeOnCurve(boolean forShadow, DefaultCamera2D camera) {
 		Tuple<Point2, Double> tuple = CubicCurve.approxIntersectionPointOnCurve( theEdge, theConnector, camera );
 		Point2 p1 = tuple.x ;
-		double t = tuple.y ;
 		
 		Style style  = theEdge.getStyle();
-		Point3 p2  = CubicCurve.eval( theConnector.fromPos(), theConnector.byPos1(), theConnector.byPos2(), theConnector.toPos(), t-0.1f );
-		Vector2 dir = new Vector2( p1.x - p2.x, p1.y - p2.y );
-		
-		dir.normalize();
+		Vector2 dir = CubicCurve.approxDirectionAtIntersection( theEdge, theConnector, camera, 0.1f );
 		
 		double iw = camera.getMetrics().lengthToGu( image.getWidth(), Units.PX ) / 2;
 		double x  = p1.x - ( dir.x() * iw );
@@ -127,7 +127,7 @@ public class ImageOnEdge extends AreaOnConnectorShape {
 	private void makeOnLine(boolean forShadow, DefaultCamera2D camera) {
 		double off = ShapeUtil.evalTargetRadius2D( theEdge, camera );
 		
-		Vector2 theDirection = new Vector2(
+		theDirection.set(
 				theConnector.toPos().x - theConnector.fromPos().x,
 				theConnector.toPos().y - theConnector.fromPos().y );
 					
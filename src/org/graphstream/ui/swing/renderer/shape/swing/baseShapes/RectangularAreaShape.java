@@ -34,13 +34,28 @@ package org.graphstream.ui.swing.renderer.shape.swing.baseShapes;
 import java.awt.geom.Rectangle2D;
 
 import org.graphstream.ui.graphicGraph.GraphicElement;
+import org.graphstream.ui.graphicGraph.stylesheet.Style;
 import org.graphstream.ui.swing.Backend;
 import org.graphstream.ui.view.camera.DefaultCamera2D;
 import org.graphstream.ui.swing.renderer.Skeleton;
+import org.graphstream.ui.swing.renderer.shape.swing.shapePart.Stampable;
 
 public abstract class RectangularAreaShape extends AreaShape {
 	private java.awt.geom.RectangularShape theShape = new Rectangle2D.Double();
 	
+	/** Images of the shape drawn in place of the shape when the elements look the same. */
+	public Stampable stampable = new Stampable();
+	
+	/** Images of the shadow of the shape. */
+	public Stampable shadowStampable = new Stampable();
+	
+	@Override
+	public void configureForGroup(Backend bck, Style style, DefaultCamera2D camera) {
+		super.configureForGroup(bck, style, camera);
+		stampable.configureStampableForGroup(style, camera);
+		shadowStampable.configureStampableForShadow(style, camera);
+	}
+	
 	@Override
 	public void make(Backend backend, DefaultCamera2D camera) {
 		double w = area.theSize.x;
@@ -62,15 +77,21 @@ public abstract class RectangularAreaShape extends AreaShape {
 	@Override
 	public void render(Backend bck, DefaultCamera2D camera, GraphicElement element, Skeleton skel) {
 		make(bck, camera);
- 		fillable.fill(bck.graphics2D(), theShape(), camera);
- 		strokable.stroke(bck.graphics2D(), theShape());
+		
+		if(! stampable.stamp(bck.graphics2D(), element, theShape(), fillable, strokable, camera)) {
+			fillable.fill(bck.graphics2D(), theShape(), camera);
+			strokable.stroke(bck.graphics2D(), theShape());
+		}
+		
  		decorArea(bck, camera, skel.iconAndText, element, theShape());
 	}
 
 	@Override
 	public void renderShadow(Backend bck, DefaultCamera2D camera, GraphicElement element, Skeleton skeleton) {
 		makeShadow(bck, camera);
- 		shadowable.cast(bck.graphics2D(), theShape());
+		
+		if(! shadowStampable.stampShadow(bck.graphics2D(), element, theShape(), shadowable, camera))
+			shadowable.cast(bck.graphics2D(), theShape());
 	}
 	
 	public java.awt.geom.RectangularShape theShape() {
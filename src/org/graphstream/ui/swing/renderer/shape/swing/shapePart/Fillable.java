@@ -38,10 +38,13 @@ import org.graphstream.ui.graphicGraph.GraphicElement;
 import org.graphstream.ui.graphicGraph.stylesheet.Style;
 import org.graphstream.ui.graphicGraph.stylesheet.StyleConstants;
 import org.graphstream.ui.swing.Backend;
+import org.graphstream.ui.swing.SwingCamera;
 import org.graphstream.ui.view.camera.DefaultCamera2D;
 import org.graphstream.ui.swing.renderer.shape.swing.ShapePaint;
 import org.graphstream.ui.swing.renderer.shape.swing.ShapePaint.ShapeAreaPaint;
+import org.graphstream.ui.swing.renderer.shape.swing.ShapePaint.ShapeGradientPaint;
 import org.graphstream.ui.swing.renderer.shape.swing.ShapePaint.ShapeColorPaint;
+import org.graphstream.ui.swing.renderer.shape.swing.ShapePaint.ShapeImagePaint;
 import org.graphstream.ui.swing.renderer.shape.swing.ShapePaint.ShapePlainColorPaint;
 
 public class Fillable {
@@ -56,6 +59,9 @@ public class Fillable {
 	
 	boolean plainFast = false;
 	
+	/** Is the fill mode dyn-plain? Read once per group, style getters allocate. */
+	boolean dynPlain = false;
+	
 	/** Fill the shape.
 	 * @param g The Java2D graphics.
 	 * @param dynColor The value between 0 and 1 allowing to know the dynamic plain color, if any.
@@ -66,7 +72,13 @@ public class Fillable {
 			g.fill(shape);
 	    } 
 		else {
-			if ( fillPaint instanceof ShapeAreaPaint ) {
+			if ( fillPaint instanceof ShapeGradientPaint ) {
+				((ShapeGradientPaint)fillPaint).fill(g, shape);
+			}
+			else if ( fillPaint instanceof ShapeImagePaint ) {
+				((ShapeImagePaint)fillPaint).fill(g, shape, camera.getMetrics().ratioPx2Gu);
+			}
+			else if ( fillPaint instanceof ShapeAreaPaint ) {
 				g.setPaint(((ShapeAreaPaint)fillPaint).paint(shape, camera.getMetrics().ratioPx2Gu));   
 				g.fill(shape);
 			}
@@ -84,7 +96,14 @@ public class Fillable {
 
     /** Configure all static parts needed to fill the shape. */
  	public void configureFillableForGroup(Backend bck, Style style, DefaultCamera2D camera ) {
- 		fillPaint = ShapePaint.apply(style);
+ 		ShapePaint applied = ShapePaint.apply(style);
+ 
+ 		// Keep the gradients already made if the style did not change them.
+ 		if(!(applied instanceof ShapeGradientPaint && ((ShapeGradientPaint)applied).sameAs(fillPaint)))
+ 			fillPaint = applied;
+ 
+ 		if(fillPaint instanceof ShapeImagePaint)
+ 			((ShapeImagePaint)fillPaint).setBackground(camera instanceof SwingCamera && ((SwingCamera)camera).isLoadingImagesInBackground());
  
  		if(fillPaint instanceof ShapePlainColorPaint) {
  			ShapePlainColorPaint paint = (ShapePlainColorPaint)fillPaint;
@@ -97,13 +116,15 @@ public class Fillable {
  		else {
  		    plainFast = false;
  		}
+ 
+ 		dynPlain = (style.getFillMode() == StyleConstants.FillMode.DYN_PLAIN);
  	}
  	
     /** Configure the dynamic parts needed to fill the shape. */
   	public void configureFillableForElement( Style style, DefaultCamera2D camera, GraphicElement element ) {
-  	  	if( style.getFillMode() == StyleConstants.FillMode.DYN_PLAIN && element != null ) {
+  	  	if( dynPlain && element != null ) {
   	  		if ( element.getAttribute( "ui.color" ) instanceof Number ) {
-  	  			theFillPercent = (float)((Number)element.getAttribute( "ui.color" ));
+  	  			theFillPercent = ((Number)element.getAttribute( "ui.color" )).floatValue();
   	  			theFillColor = null;
   	  		}
   	  		else if ( element.getAttribute( "ui.color" ) instanceof Color ) {
@@ -49,6 +49,8 @@ public class FillableLine {
 	double theFillPercent = 0.0 ;
 	Color theFillColor = null ;
 	boolean plainFast = false ;
+	/** Is the fill mode dyn-plain? Read once per group, style getters allocate. */
+	boolean dynPlain = false ;
   
 	public void fill(Graphics2D g, double width, double dynColor, java.awt.Shape shape) {
 		if(fillStroke != null) {
@@ -72,6 +74,7 @@ public class FillableLine {
 		fillStroke = ShapeStroke.strokeForConnectorFill( style );
   	  	plainFast = (style.getSizeMode() == StyleConstants.SizeMode.NORMAL); 
 		theFillColor = ColorManager.getFillColor(style, 0);
+		dynPlain = (style.getFillMode() == StyleConstants.FillMode.DYN_PLAIN);
 		bck.graphics2D().setColor(theFillColor);
 		if(fillStroke != null)
 			bck.graphics2D().setStroke(fillStroke.stroke(theSize));
@@ -79,10 +82,10 @@ public class FillableLine {
 
 	public void configureFillableLineForElement( Style style, DefaultCamera2D camera, GraphicElement element ) {
 		theFillPercent = 0 ;
-  	  	if( style.getFillMode() == StyleConstants.FillMode.DYN_PLAIN && element != null ) {
+  	  	if( dynPlain && element != null ) {
   	  		
 	  	  	if ( element.getAttribute( "ui.color" ) instanceof Number ) {
-  	  			theFillPercent = (float)((Number)element.getAttribute( "ui.color" ));
+  	  			theFillPercent = ((Number)element.getAttribute( "ui.color" )).floatValue();
   	  			theFillColor = ShapePaint.interpolateColor( style.getFillColors(), theFillPercent ) ;
   	  		}
   	  		else if ( element.getAttribute( "ui.color" ) instanceof Color ) {
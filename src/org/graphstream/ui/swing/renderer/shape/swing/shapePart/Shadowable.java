@@ -39,6 +39,7 @@ import org.graphstream.ui.view.camera.DefaultCamera2D;
 import org.graphstream.ui.swing.renderer.shape.swing.ShapePaint;
 import org.graphstream.ui.swing.renderer.shape.swing.ShapePaint.ShapeAreaPaint;
 import org.graphstream.ui.swing.renderer.shape.swing.ShapePaint.ShapeColorPaint;
+import org.graphstream.ui.swing.renderer.shape.swing.ShapePaint.ShapeGradientPaint;
 
 public class Shadowable {
 	/** The shadow paint. */
@@ -61,7 +62,10 @@ public class Shadowable {
      * @param g The Java2D graphics.
      */
 	public void cast( Graphics2D g, java.awt.Shape shape) {
-		if ( shadowPaint instanceof ShapeAreaPaint ) {
+		if ( shadowPaint instanceof ShapeGradientPaint ) {
+			((ShapeGradientPaint)shadowPaint).fill( g, shape );
+		}
+		else if ( shadowPaint instanceof ShapeAreaPaint ) {
 			g.setPaint( ((ShapeAreaPaint)shadowPaint).paint( shape, 1 ) );
 			g.fill( shape );
 		}
@@ -83,6 +87,10 @@ public class Shadowable {
  		if( style.getShadowOffset().size() > 1 ) 
  			theShadowOff.y = camera.getMetrics().lengthToGu( style.getShadowOffset(), 1 ); 
  	  
-  	  	/*if( shadowPaint == null )*/ shadowPaint = ShapePaint.apply( style, true );
+  	  	ShapePaint paint = ShapePaint.apply( style, true );
+  	  	
+  	  	// Keep the gradients already made if the style did not change them.
+  	  	if( !( paint instanceof ShapeGradientPaint && ((ShapeGradientPaint)paint).sameAs( shadowPaint ) ) )
+  	  		shadowPaint = paint;
  	}
 }
\ No newline at end of file
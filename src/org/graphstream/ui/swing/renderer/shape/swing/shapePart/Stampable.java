@@ -0,0 +1,275 @@
+/*
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ *
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ *
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+
+ /**
+  * @author Antoine Dutot <antoine.dutot@graphstream-project.org>
+  * @author Guilhelm Savin <guilhelm.savin@graphstream-project.org>
+  * @author Hicham Brahimi <hicham.brahimi@graphstream-project.org>
+  */
+
+
+package org.graphstream.ui.swing.renderer.shape.swing.shapePart;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.RectangularShape;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+
+import org.graphstream.ui.graphicGraph.GraphicElement;
+import org.graphstream.ui.graphicGraph.stylesheet.Style;
+import org.graphstream.ui.graphicGraph.stylesheet.StyleConstants;
+import org.graphstream.ui.swing.SwingCamera;
+import org.graphstream.ui.view.camera.DefaultCamera2D;
+
+/**
+ * Stamps of a shape, images of the filled and stroked shape drawn in place of the shape.
+ *
+ * Filling and stroking an antialiased shape costs much more than drawing a small image.
+ * When the elements of a group look the same, the shape is rasterized once in a
+ * translucent image, its stamp, that is then drawn at the position of each element.
+ * The stamps are kept by size of the shape and by position of its centre inside the
+ * pixel, in quarters of pixel, so that they differ from the shape drawn directly by
+ * less than an eighth of pixel.
+ *
+ * The stamps are only valid for a transform of the graphics and a style sheet, they are
+ * dropped when the zoom, the antialiasing or the style sheet change. Stamps are not
+ * used in quality mode ("ui.quality"), for rotated views, for large shapes and for
+ * shapes whose look depends on the element: dynamic or image fills, dynamic sizes
+ * ("ui.size"), sizes that fit the contents and elements with events. Each element of a
+ * dynamic size would make its own stamps.
+ *
+ * The shadows of the shapes are stamped the same way, with their own stamps.
+ */
+public class Stampable {
+	/** Positions of the shape centre inside a pixel, along each axis. */
+	public static final int PHASES = 4;
+
+	/** Largest side of a stamp in pixels, larger shapes are drawn directly. */
+	public static final int MAX_SIDE = 64;
+
+	/** Bytes of stamps kept, above the stamps are dropped. */
+	public static final int MAX_BYTES = 4 << 20;
+
+	private static final AffineTransform IDENTITY = new AffineTransform();
+
+	/** True if the elements of the group all look the same. */
+	protected boolean stampable = false;
+
+	/** Stamps by size of the shape in graph units, then by phase. */
+	protected HashMap<Size,BufferedImage[]> stamps = new HashMap<>();
+
+	protected int bytes = 0;
+
+	/** What the stamps depend on. */
+	protected double scaleX = Double.NaN, scaleY = Double.NaN, ratio = Double.NaN;
+
+	protected Object antialias = null;
+
+	protected int styleVersion = -1;
+
+	private Size probe = new Size();
+
+	/** State of the current stamp, see {@link #prepare}. */
+	private AffineTransform transform;
+
+	private BufferedImage phases[], stamp;
+
+	private int x, y, phaseX, phaseY, originX, originY;
+
+	/**
+	 * Draw the stamp of the shape, filled and stroked, at its position. The stamp is made
+	 * if needed. Return false if the shape cannot be stamped and must be drawn directly.
+	 */
+	public boolean stamp(Graphics2D g, GraphicElement element, RectangularShape shape, Fillable fillable, Strokable strokable, DefaultCamera2D camera) {
+		if(!prepare(g, element, shape, strokable.theStroke != null ? strokable.theStrokeWidth : 0, camera))
+			return false;
+
+		if(stamp == null) {
+			Graphics2D sg = begin(g, shape);
+			fillable.fill(sg, shape, camera);
+			strokable.stroke(sg, shape);
+			sg.dispose();
+		}
+
+		draw(g);
+		return true;
+	}
+
+	/**
+	 * Draw the stamp of the shadow of the shape, the shape being already made for the
+	 * shadow. Return false if the shadow cannot be stamped and must be cast directly.
+	 */
+	public boolean stampShadow(Graphics2D g, GraphicElement element, RectangularShape shape, Shadowable shadowable, DefaultCamera2D camera) {
+		if(!prepare(g, element, shape, 0, camera))
+			return false;
+
+		if(stamp == null) {
+			Graphics2D sg = begin(g, shape);
+			shadowable.cast(sg, shape);
+			sg.dispose();
+		}
+
+		draw(g);
+		return true;
+	}
+
+	/**
+	 * Look for the stamp of the shape at its position in {@link #stamp}, null if it must be
+	 * made. Return false if the shape cannot be stamped.
+	 */
+	protected boolean prepare(Graphics2D g, GraphicElement element, RectangularShape shape, double stroke, DefaultCamera2D camera) {
+		if(!stampable || element.getStyle().elementHasEvents(element)
+		|| g.getRenderingHint(RenderingHints.KEY_RENDERING) == RenderingHints.VALUE_RENDER_QUALITY)
+			return false;
+
+		transform = g.getTransform();
+
+		// The view usually flips the y axis, but it must not be rotated.
+		if(transform.getShearX() != 0 || transform.getShearY() != 0 || transform.getScaleX() == 0 || transform.getScaleY() == 0)
+			return false;
+
+		double hx = (shape.getWidth() + stroke) / 2 * Math.abs(transform.getScaleX()) + 2;
+		double hy = (shape.getHeight() + stroke) / 2 * Math.abs(transform.getScaleY()) + 2;
+
+		if(hx * 2 > MAX_SIDE || hy * 2 > MAX_SIDE)
+			return false;
+
+		check(g, transform, camera);
+
+		double px = transform.getScaleX() * shape.getCenterX() + transform.getTranslateX();
+		double py = transform.getScaleY() * shape.getCenterY() + transform.getTranslateY();
+
+		x = (int)Math.floor(px);
+		y = (int)Math.floor(py);
+		phaseX = (int)Math.round((px - x) * PHASES);
+		phaseY = (int)Math.round((py - y) * PHASES);
+
+		if(phaseX == PHASES) { x++; phaseX = 0; }
+		if(phaseY == PHASES) { y++; phaseY = 0; }
+
+		probe.set(shape.getWidth(), shape.getHeight());
+		phases = stamps.get(probe);
+
+		if(phases == null) {
+			phases = new BufferedImage[PHASES * PHASES];
+			stamps.put(new Size(probe), phases);
+		}
+
+		originX = (int)Math.ceil(hx);
+		originY = (int)Math.ceil(hy);
+		stamp = phases[phaseY * PHASES + phaseX];
+
+		return true;
+	}
+
+	/** Make the stamp found missing by {@link #prepare}, return the graphics to paint the shape in it. */
+	protected Graphics2D begin(Graphics2D g, RectangularShape shape) {
+		stamp = new BufferedImage(originX * 2 + 1, originY * 2 + 1, BufferedImage.TYPE_INT_ARGB_PRE);
+		phases[phaseY * PHASES + phaseX] = stamp;
+		bytes += stamp.getWidth() * stamp.getHeight() * 4;
+
+		Graphics2D sg = stamp.createGraphics();
+
+		sg.setRenderingHints(g.getRenderingHints());
+		sg.translate(originX + (double)phaseX / PHASES, originY + (double)phaseY / PHASES);
+		sg.scale(transform.getScaleX(), transform.getScaleY());
+		sg.translate(-shape.getCenterX(), -shape.getCenterY());
+
+		return sg;
+	}
+
+	/** Draw the stamp found by {@link #prepare}. */
+	protected void draw(Graphics2D g) {
+		g.setTransform(IDENTITY);
+		g.drawImage(stamp, x - originX, y - originY, null);
+		g.setTransform(transform);
+	}
+
+	/** Drop the stamps if what they depend on changed, or if they are too many. */
+	protected void check(Graphics2D g, AffineTransform t, DefaultCamera2D camera) {
+		Object aa = g.getRenderingHint(RenderingHints.KEY_ANTIALIASING);
+
+		if(scaleX != t.getScaleX() || scaleY != t.getScaleY() || ratio != camera.getMetrics().ratioPx2Gu
+		|| antialias != aa || styleVersion != SwingCamera.getStyleVersion(camera) || bytes > MAX_BYTES) {
+			stamps.clear();
+			bytes = 0;
+			scaleX = t.getScaleX();
+			scaleY = t.getScaleY();
+			ratio = camera.getMetrics().ratioPx2Gu;
+			antialias = aa;
+			styleVersion = SwingCamera.getStyleVersion(camera);
+		}
+	}
+
+	/** Configure the parts of the style the stamps of the shadows depend on. */
+	public void configureStampableForShadow(Style style, DefaultCamera2D camera) {
+		stampable = isStampableSize(style)
+			&& style.getShadowMode() != StyleConstants.ShadowMode.NONE;
+	}
+
+	/** Configure the parts of the style the stamps depend on. */
+	public void configureStampableForGroup(Style style, DefaultCamera2D camera) {
+		StyleConstants.FillMode fill = style.getFillMode();
+
+		stampable = isStampableSize(style)
+			&& (fill == StyleConstants.FillMode.NONE || fill == StyleConstants.FillMode.PLAIN
+			|| fill == StyleConstants.FillMode.GRADIENT_DIAGONAL1 || fill == StyleConstants.FillMode.GRADIENT_DIAGONAL2
+			|| fill == StyleConstants.FillMode.GRADIENT_HORIZONTAL || fill == StyleConstants.FillMode.GRADIENT_VERTICAL
+			|| fill == StyleConstants.FillMode.GRADIENT_RADIAL);
+	}
+
+	/** True if the elements of the group have the size of the group. */
+	protected static boolean isStampableSize(Style style) {
+		return style.getSizeMode() == StyleConstants.SizeMode.NORMAL;
+	}
+
+	/** Size of a shape, key of the stamps. */
+	protected static class Size {
+		protected double width, height;
+
+		protected Size() {}
+
+		protected Size(Size other) {
+			set(other.width, other.height);
+		}
+
+		protected void set(double width, double height) {
+			this.width = width;
+			this.height = height;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof Size && ((Size)other).width == width && ((Size)other).height == height;
+		}
+
+		@Override
+		public int hashCode() {
+			return Double.hashCode(width) * 31 + Double.hashCode(height);
+		}
+	}
+}
@@ -46,6 +46,7 @@ import org.graphstream.ui.swing.Backend;
 import org.graphstream.ui.view.camera.DefaultCamera2D;
 import org.graphstream.ui.swing.renderer.ConnectorSkeleton;
 import org.graphstream.ui.swing.renderer.Skeleton;
+import org.graphstream.ui.swing.renderer.SkeletonStore;
 import org.graphstream.ui.swing.renderer.Skeleton.Triplet;
 import org.graphstream.ui.swing.renderer.shape.Decorable;
 import org.graphstream.ui.swing.renderer.shape.Shape;
@@ -100,7 +101,7 @@ public class SpriteFlowShape implements Shape {
 			
 			along    = element.getX();
 			offset   = camera.getMetrics().lengthToGu( element.getY(), sprite.getUnits() );
-			connectorSkel = (ConnectorSkeleton)edge.getAttribute( Skeleton.attributeName );
+			connectorSkel = (ConnectorSkeleton)SkeletonStore.get( camera, edge );
 		} 
 		else {
 			connectorSkel = null;
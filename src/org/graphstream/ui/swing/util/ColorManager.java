@@ -32,14 +32,43 @@
 package org.graphstream.ui.swing.util;
 
 import java.awt.Color;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.graphstream.ui.graphicGraph.StyleGroup;
+import org.graphstream.ui.graphicGraph.stylesheet.Colors;
 import org.graphstream.ui.graphicGraph.stylesheet.Style;
 
 /**
  * Static class used for translate awt color to javafx
+ *
+ * The converted colors are interned in a small direct-mapped table indexed by their
+ * ARGB value, so that the colors of the style sheet, read at each frame, are not
+ * allocated again. The interpolation of the dyn-plain colors uses tables of
+ * {@link #TABLE_STEPS} precomputed colors, one per list of colors, shared by all the
+ * renderers.
  */
 public class ColorManager {
+	/** Number of colors in an interpolation table. */
+	public static final int TABLE_STEPS = 1024;
+
+	/** Number of interpolation tables kept before they are dropped. */
+	protected static final int MAX_TABLES = 64;
+
+	/** Number of slots of the interned colors table, a power of two. */
+	protected static final int INTERNED_SLOTS = 4096;
+
+	/** Interned colors, indexed by a hash of their ARGB value. */
+	protected static final AtomicReferenceArray<Color> interned = new AtomicReferenceArray<>(INTERNED_SLOTS);
+
+	/** Interpolation tables of the style sheet color lists. */
+	protected static final ConcurrentHashMap<Colors,Color[]> styleTables = new ConcurrentHashMap<>();
+
+	/** Interpolation tables of the converted color lists. */
+	protected static final ConcurrentHashMap<List<Color>,Color[]> tables = new ConcurrentHashMap<>();
+
 	/**
 	 * Get fill awt color in styleGroup and convert to javafx Color
 	 * @param stylegroup
@@ -141,6 +170,119 @@ public class ColorManager {
 		int b = gscoreColor.getBlue();
 		int a = gscoreColor.getAlpha();
 		
-		return new Color(r, g, b, a);
+		return getColor(r, g, b, a);
+	}
+
+	/**
+	 * The interned color with the given components, in range [0,255].
+	 */
+	public static Color getColor(int r, int g, int b, int a) {
+		int argb = ((a & 0xFF) << 24) | ((r & 0xFF) << 16) | ((g & 0xFF) << 8) | (b & 0xFF);
+		int slot = (argb * 0x9E3779B9) >>> 20;
+		Color color = interned.get(slot);
+
+		if(color == null || color.getRGB() != argb) {
+			color = new Color(r, g, b, a);
+			interned.set(slot, color);
+		}
+
+		return color;
+	}
+
+	/**
+	 * The color at the given value, in range [0,1], of the style sheet color list.
+	 */
+	public static Color interpolate(Colors colors, double value) {
+		Color[] table = styleTables.get(colors);
+
+		if(table == null) {
+			Color[] converted = new Color[colors.size()];
+
+			for(int i = 0; i < converted.length; i++)
+				converted[i] = getColor(colors.get(i));
+
+			table = createTable(converted);
+
+			if(styleTables.size() >= MAX_TABLES)
+				styleTables.clear();
+
+			styleTables.put(colors, table);
+		}
+
+		return table[tableIndex(value)];
+	}
+
+	/**
+	 * The color at the given value, in range [0,1], of the color list.
+	 */
+	public static Color interpolate(Color[] colors, double value) {
+		return getTable(colors)[tableIndex(value)];
+	}
+
+	/**
+	 * The interpolation table of the color list, the color at a value is at the
+	 * {@link #tableIndex(double)} of the value.
+	 */
+	public static Color[] getTable(Color[] colors) {
+		List<Color> key = Arrays.asList(colors);
+		Color[] table = tables.get(key);
+
+		if(table == null) {
+			table = createTable(colors);
+
+			if(tables.size() >= MAX_TABLES)
+				tables.clear();
+
+			tables.put(Arrays.asList(colors.clone()), table);
+		}
+
+		return table;
+	}
+
+	/**
+	 * Index in an interpolation table of a value, clamped to range [0,1].
+	 */
+	public static int tableIndex(double value) {
+		if(value > 0) {
+			if(value < 1)
+				return (int)(value * (TABLE_STEPS - 1) + 0.5);
+
+			return TABLE_STEPS - 1;
+		}
+
+		return 0;
+	}
+
+	protected static Color[] createTable(Color[] colors) {
+		Color[] table = new Color[TABLE_STEPS];
+		int n = colors.length;
+
+		for(int i = 0; i < TABLE_STEPS; i++) {
+			double value = (double)i / (TABLE_STEPS - 1);
+
+			if(n < 2 || i == 0) {
+				table[i] = colors[0];
+			}
+			else if(i == TABLE_STEPS - 1) {
+				table[i] = colors[n - 1];
+			}
+			else {
+				double div = 1.0 / (n - 1);
+				int col = (int)(value / div);
+
+				div = (value - (div * col)) / div;
+
+				Color color0 = colors[col];
+				Color color1 = colors[col + 1];
+				double red   = ((color0.getRed()   * (1 - div)) + (color1.getRed()   * div)) / 255f;
+				double green = ((color0.getGreen() * (1 - div)) + (color1.getGreen() * div)) / 255f;
+				double blue  = ((color0.getBlue()  * (1 - div)) + (color1.getBlue()  * div)) / 255f;
+				double alpha = ((color0.getAlpha() * (1 - div)) + (color1.getAlpha() * div)) / 255f;
+
+				table[i] = new Color((float)red, (float)green, (float)blue, (float)alpha);
+			}
+		}
+
+		return table;
 	}
 }
@@ -49,7 +49,8 @@ import org.graphstream.ui.graphicGraph.GraphicEdge;
 import org.graphstream.ui.graphicGraph.GraphicNode;
 import org.graphstream.ui.view.camera.DefaultCamera2D;
 import org.graphstream.ui.swing.renderer.AreaSkeleton;
-import org.graphstream.ui.swing.renderer.Skeleton;
+import org.graphstream.ui.swing.renderer.ConnectorSkeleton;
+import org.graphstream.ui.swing.renderer.SkeletonStore;
 import org.graphstream.ui.swing.renderer.shape.Connector;
 import org.graphstream.ui.swing.util.AttributeUtils.Tuple;
 
@@ -217,23 +218,10 @@ public class CubicCurve {
 	}
 	
 	/** Evaluate the length of a Bézier curve by taking n points on the curve and summing the lengths of
-	 * the n+1 segments thus defined. */
+	 * the n+1 segments thus defined. The lengths are kept in the skeleton of the connector until its
+	 * points change. */
 	public static double approxLengthOfCurve( Connector c ) {
-		double inc = 0.1;
-		double i   = inc;
-		double len = 0.0;
-		Point2 p0  = c.fromPos();
-		
-		while( i < 1f ) {
-			Point2 p = CubicCurve.eval( c.fromPos(), c.byPos1(), c.byPos2(), c.toPos(), i );
-			i += inc;
-			len += p0.distance( p );
-			p0 = p;
-		}
-		
-		len += p0.distance( c.toPos() );
-		
-		return len;
+		return c.skel.length();
 	}
 	
 	/** Return two points, one inside and the second outside of the shape of the destination node
@@ -241,7 +229,7 @@ public class CubicCurve {
 	 * point in the shape. */
 	public static Tuple<Point2, Point2> approxVectorEnteringCurve( GraphicEdge edge, Connector c, DefaultCamera2D camera ) {
 		GraphicNode node = edge.to;
-		AreaSkeleton info = (AreaSkeleton)node.getAttribute(Skeleton.attributeName);
+		AreaSkeleton info = (AreaSkeleton)SkeletonStore.get(camera, node);
 		double w = 0.0;
 		double h = 0.0;
 		
@@ -294,7 +282,7 @@ public class CubicCurve {
 	 */
 	public static Tuple<Point2,Double> approxIntersectionPointOnCurve( GraphicEdge edge, Connector c, DefaultCamera2D camera, int maxDepth ) {
 		GraphicNode node = edge.to;
-		AreaSkeleton info = (AreaSkeleton)node.getAttribute(Skeleton.attributeName);
+		AreaSkeleton info = (AreaSkeleton)SkeletonStore.get(camera, node);
 		double w = 0.0;
 		double h = 0.0;
 		
@@ -309,7 +297,12 @@ public class CubicCurve {
 				camera.getMetrics().lengthToGu( node.getStyle().getSize(), 1 );
 		}
 			
-		boolean searching = true;
+		ConnectorSkeleton.CurveEnd end = c.skel.getCurveEnd();
+		Tuple<Point2,Double> known = end.get( c.skel, node, w, h, maxDepth );
+		
+		if( known != null )
+			return known;
+			
 		Point3 p = c.toPos(); //        = CubicCurve.eval( c.fromPos, c.byPos1, c.byPos2, c.toPos, 0.5f )
 		double tbeg = 0.0;
 		double tend = 1.0;
@@ -330,7 +323,28 @@ public class CubicCurve {
 			depth += 1;
 		}
 		
-		return new Tuple<Point2,Double>(p, t);
+		return end.set( c.skel, node, w, h, maxDepth, new Tuple<Point2,Double>(p, t) );
+	}
+	
+	/** The unit direction of the Bézier curve of the connector `c` when it enters the shape of the
+	 * `edge` destination node. It goes from the point at parametric distance `back` before the
+	 * intersection, see {@link #approxIntersectionPointOnCurve(GraphicEdge, Connector, DefaultCamera2D)},
+	 * to the intersection. The direction is kept with the intersection.
+	 * @return A new vector that can be modified.
+	 */
+	public static Vector2 approxDirectionAtIntersection( GraphicEdge edge, Connector c, DefaultCamera2D camera, double back ) {
+		Tuple<Point2,Double> tuple = approxIntersectionPointOnCurve( edge, c, camera );
+		ConnectorSkeleton.CurveEnd end = c.skel.getCurveEnd();
+		
+		if( ! end.hasDirection( back ) ) {
+			Point2 p1 = tuple.x;
+			Point3 p2 = CubicCurve.eval( c.fromPos(), c.byPos1(), c.byPos2(), c.toPos(), tuple.y - back );
+			Vector2 dir = new Vector2( p1.x - p2.x, p1.y - p2.y );
+			dir.normalize();
+			end.setDirection( back, dir.x(), dir.y() );
+		}
+		
+		return new Vector2( end.directionX(), end.directionY() );
 	}
 	
 	
@@ -0,0 +1,161 @@
+/*
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ *
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ *
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+
+ /**
+  * @author Antoine Dutot <antoine.dutot@graphstream-project.org>
+  * @author Guilhelm Savin <guilhelm.savin@graphstream-project.org>
+  * @author Hicham Brahimi <hicham.brahimi@graphstream-project.org>
+  */
+
+
+package org.graphstream.ui.swing.util;
+
+import org.graphstream.ui.graphicGraph.GraphicElement;
+
+/**
+ * Slots of graphic elements in dense arrays.
+ *
+ * This is an identity hash table with linear probing, from elements to the integer
+ * slot they occupy in arrays kept elsewhere. It does not use the element identifiers
+ * nor their attributes, a lookup only hashes the reference of the element.
+ */
+public class ElementSlots {
+	/** Elements of the table. */
+	protected GraphicElement keys[] = new GraphicElement[64];
+
+	/** Slots of the elements. */
+	protected int slots[] = new int[64];
+
+	/** Number of elements in the table. */
+	protected int count = 0;
+
+// Access
+
+	/** The slot of the element, or -1 if it has none. */
+	public int get(GraphicElement element) {
+		int i = find(element);
+		return keys[i] != null ? slots[i] : -1;
+	}
+
+	/** Number of elements in the table. */
+	public int size() {
+		return count;
+	}
+
+	protected int home(GraphicElement element, int mask) {
+		int h = System.identityHashCode(element) * 0x9E3779B9;
+		return (h ^ (h >>> 16)) & mask;
+	}
+
+	/** Index of the element in the table, or of the free entry where it would be inserted. */
+	protected int find(GraphicElement element) {
+		int mask = keys.length - 1;
+		int i = home(element, mask);
+
+		while(keys[i] != null && keys[i] != element)
+			i = (i + 1) & mask;
+
+		return i;
+	}
+
+// Command
+
+	/** Set the slot of the element, adding it if needed. */
+	public void put(GraphicElement element, int slot) {
+		int i = find(element);
+
+		if(keys[i] == null) {
+			if((count + 1) * 2 > keys.length) {
+				rehash(keys.length * 2);
+				i = find(element);
+			}
+
+			keys[i] = element;
+			count++;
+		}
+
+		slots[i] = slot;
+	}
+
+	/** Remove the element and return its slot, or -1 if it was not there. */
+	public int remove(GraphicElement element) {
+		int mask = keys.length - 1;
+		int i = find(element);
+
+		if(keys[i] == null)
+			return -1;
+
+		int slot = slots[i];
+		int j = i;
+
+		keys[i] = null;
+		count--;
+
+		// Shift back the following entries that can no longer be reached.
+		while(true) {
+			j = (j + 1) & mask;
+
+			if(keys[j] == null)
+				break;
+
+			int k = home(keys[j], mask);
+
+			if((j > i && (k <= i || k > j)) || (j < i && (k <= i && k > j))) {
+				keys[i] = keys[j];
+				slots[i] = slots[j];
+				keys[j] = null;
+				i = j;
+			}
+		}
+
+		if(keys.length > 64 && count < keys.length / 8)
+			rehash(keys.length / 2);
+
+		return slot;
+	}
+
+	/** Remove all the elements. */
+	public void clear() {
+		keys = new GraphicElement[64];
+		slots = new int[64];
+		count = 0;
+	}
+
+	protected void rehash(int capacity) {
+		GraphicElement oldKeys[] = keys;
+		int oldSlots[] = slots;
+
+		keys = new GraphicElement[capacity];
+		slots = new int[capacity];
+
+		for(int i = 0; i < oldKeys.length; i++) {
+			if(oldKeys[i] != null) {
+				int j = find(oldKeys[i]);
+				keys[j] = oldKeys[i];
+				slots[j] = oldSlots[i];
+			}
+		}
+	}
+}
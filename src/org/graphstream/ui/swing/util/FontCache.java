@@ -51,7 +51,7 @@ public class FontCache {
 		return getFont( "SansSerif", style, size );
 	}
 
-	public static Font getFont(String name, TextStyle style, int size) {
+	public static synchronized Font getFont(String name, TextStyle style, int size) {
 		if ( cache.get(name) == null ) {
 			FontSlot slot = new FontSlot(name, style, size);
 			cache.put(name, slot);
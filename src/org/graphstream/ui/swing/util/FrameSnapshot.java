@@ -0,0 +1,600 @@
+/*
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ *
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ *
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+
+ /**
+  * @author Antoine Dutot <antoine.dutot@graphstream-project.org>
+  * @author Guilhelm Savin <guilhelm.savin@graphstream-project.org>
+  * @author Hicham Brahimi <hicham.brahimi@graphstream-project.org>
+  */
+
+
+package org.graphstream.ui.swing.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Node;
+import org.graphstream.stream.SinkAdapter;
+import org.graphstream.ui.geom.Point3;
+import org.graphstream.ui.graphicGraph.GraphicEdge;
+import org.graphstream.ui.graphicGraph.GraphicElement;
+import org.graphstream.ui.graphicGraph.GraphicGraph;
+import org.graphstream.ui.graphicGraph.GraphicNode;
+import org.graphstream.ui.graphicGraph.stylesheet.StyleConstants;
+import org.graphstream.ui.graphicGraph.stylesheet.Value;
+
+/**
+ * Snapshot of the nodes and edges of a graphic graph in primitive arrays.
+ *
+ * The nodes and the edges occupy dense slots, one set of slots per kind, given by
+ * {@link #nodeSlot(GraphicElement)} and {@link #edgeSlot(GraphicElement)}. The values
+ * of the elements are kept in parallel arrays indexed by slot: position, "ui.size"
+ * value and flags of the nodes, end node slots and flags of the edges. The positions
+ * stay in doubles, as in the graphic elements, so that the snapshot gives the same
+ * bounds and visibility as the elements. When an element is removed the last slot of its kind is moved in its
+ * place so that the arrays stay dense.
+ *
+ * The snapshot is a sink of the graphic graph. The events mark the changed elements,
+ * and {@link #update()}, called by the renderer at the start of each frame, copies the
+ * values of these elements only. The snapshot is therefore consistent during the
+ * whole frame. It is read by the code that browses all the nodes or edges at each
+ * frame: the visibility check of the camera, the bounds of the graph and the reduced
+ * level of detail. The snapshot is only a partial move of the frame data to primitive
+ * arrays: the node, edge and style renderers that draw the elements in full
+ * detail still read the graphic elements, moving them to the snapshot is left for later:
+ * they reach the elements one by one through the shapes, where finding the slot of an
+ * element costs about as much as reading the element. Moves that
+ * are not notified by an event must be reported with {@link #nodeMoved(GraphicNode)}.
+ *
+ * The snapshot also keeps the bounds of the shown nodes in a {@link SlotBounds}, so that
+ * the bounds of the graph are known at each frame without browsing all the nodes (see
+ * {@link #computeBounds()}).
+ */
+public class FrameSnapshot extends SinkAdapter {
+	/** Flag of hidden elements. */
+	public static final int HIDDEN = 1;
+
+	/** Flag of positioned nodes, and of edges whose two nodes are positioned. */
+	public static final int POSITIONED = 2;
+
+	/** Flag of elements changed since the last update. */
+	protected static final int CHANGED = 4;
+
+	protected GraphicGraph graph;
+
+	/** False if the snapshot must be rebuilt at the next update. */
+	protected boolean valid = false;
+
+	protected int nodeCount = 0;
+
+	protected GraphicNode nodes[] = new GraphicNode[16];
+
+	protected ElementSlots nodeSlots = new ElementSlots();
+
+	/** Position of the nodes in graph units. */
+	protected double x[] = new double[16], y[] = new double[16];
+
+	/** First value of the "ui.size" attribute of the nodes, NaN if not set. */
+	protected float size[] = new float[16];
+
+	/** Units of the "ui.size" attribute of the nodes, ordinal of {@link StyleConstants.Units}. */
+	protected byte sizeUnits[] = new byte[16];
+
+	protected int nodeFlags[] = new int[16];
+
+	/** Incremented each time nodes change of slot. */
+	protected int nodeLayout = 0;
+
+	protected int edgeCount = 0;
+
+	protected GraphicEdge edges[] = new GraphicEdge[16];
+
+	protected ElementSlots edgeSlots = new ElementSlots();
+
+	/** Slots of the end nodes of the edges. */
+	protected int from[] = new int[16], to[] = new int[16];
+
+	protected int edgeFlags[] = new int[16];
+
+	/** Bounds of the shown nodes, by slot. */
+	protected SlotBounds bounds = new SlotBounds();
+
+	/** False if the bounds must be rebuilt at the next update. */
+	protected boolean boundsValid = false;
+
+	/** Elements changed since the last update. */
+	protected ArrayList<GraphicElement> changed = new ArrayList<>();
+
+	public FrameSnapshot(GraphicGraph graph) {
+		this.graph = graph;
+	}
+
+// Access
+
+	public int nodeCount() {
+		return nodeCount;
+	}
+
+	public int edgeCount() {
+		return edgeCount;
+	}
+
+	/** The slot of the node, or -1 if it is not in the snapshot. */
+	public int nodeSlot(GraphicElement node) {
+		return nodeSlots.get(node);
+	}
+
+	/** The slot of the edge, or -1 if it is not in the snapshot. */
+	public int edgeSlot(GraphicElement edge) {
+		return edgeSlots.get(edge);
+	}
+
+	public GraphicNode nodeAt(int slot) {
+		return nodes[slot];
+	}
+
+	public GraphicEdge edgeAt(int slot) {
+		return edges[slot];
+	}
+
+	public double x(int slot) {
+		return x[slot];
+	}
+
+	public double y(int slot) {
+		return y[slot];
+	}
+
+	/** First value of the "ui.size" attribute of the node, NaN if not set. */
+	public float size(int slot) {
+		return size[slot];
+	}
+
+	/** Units of the "ui.size" attribute of the node. */
+	public StyleConstants.Units sizeUnits(int slot) {
+		return StyleConstants.Units.values()[sizeUnits[slot]];
+	}
+
+	/** The {@link #HIDDEN} and {@link #POSITIONED} flags of the node. */
+	public int nodeFlags(int slot) {
+		return nodeFlags[slot] & ~CHANGED;
+	}
+
+	/** Slot of the source node of the edge. */
+	public int from(int slot) {
+		return from[slot];
+	}
+
+	/** Slot of the target node of the edge. */
+	public int to(int slot) {
+		return to[slot];
+	}
+
+	/** The {@link #HIDDEN} and {@link #POSITIONED} flags of the edge. */
+	public int edgeFlags(int slot) {
+		return edgeFlags[slot] & ~CHANGED;
+	}
+
+	/** Incremented each time nodes change of slot, the node slots read before are then no longer
+	 * valid. Adding nodes does not change the slots of the other nodes. */
+	public int nodeLayout() {
+		return nodeLayout;
+	}
+
+	/** True if the node is positioned and not hidden. */
+	public boolean isNodeShown(int slot) {
+		return (nodeFlags[slot] & (HIDDEN | POSITIONED)) == POSITIONED;
+	}
+
+	/** True if the edge and its two nodes are positioned and the edge is not hidden. */
+	public boolean isEdgeShown(int slot) {
+		return (edgeFlags[slot] & (HIDDEN | POSITIONED)) == POSITIONED;
+	}
+
+// Command
+
+	/** Rebuild the whole snapshot at the next update. */
+	public void invalidate() {
+		valid = false;
+	}
+
+	/** Update the node after a move that may not have been notified by an event. */
+	public void nodeMoved(GraphicNode node) {
+		if(valid)
+			changed(nodeSlots.get(node), nodeFlags, node);
+	}
+
+	/** Copy the values of the elements changed since the last update. Called at the start of each
+	 * frame, before the snapshot is read. */
+	public void update() {
+		if(!valid)
+			rebuild();
+
+		// Rebuilding the bounds is cheaper than updating them for most of the nodes.
+		if(changed.size() > nodeCount / 8)
+			boundsValid = false;
+
+		for(int i = 0; i < changed.size(); i++) {
+			GraphicElement element = changed.get(i);
+
+			if(element instanceof GraphicNode) {
+				int slot = nodeSlots.get(element);
+
+				if(slot >= 0)
+					updateNode(slot);
+			}
+			else {
+				int slot = edgeSlots.get(element);
+
+				if(slot >= 0)
+					updateEdge(slot);
+			}
+		}
+
+		changed.clear();
+
+		if(!boundsValid) {
+			bounds.clear();
+
+			for(int slot = 0; slot < nodeCount; slot++) {
+				if(isNodeShown(slot))
+					bounds.append(slot, x[slot], y[slot]);
+			}
+
+			bounds.order();
+			boundsValid = true;
+		}
+	}
+
+	/**
+	 * Store the bounds of the shown nodes and of the sprites that are not attached in the
+	 * bounds of the graph, as {@link GraphicGraph#computeBounds()} does, but without browsing
+	 * the nodes. Only the x and y bounds are set. Called after {@link #update()}.
+	 */
+	public void computeBounds() {
+		Point3 lo = graph.getMinPos();
+		Point3 hi = graph.getMaxPos();
+
+		if(bounds.isEmpty()) {
+			lo.x = lo.y = Double.MAX_VALUE;
+			hi.x = hi.y = -Double.MAX_VALUE;
+		}
+		else {
+			lo.set(bounds.minX(), bounds.minY(), lo.z);
+			hi.set(bounds.maxX(), bounds.maxY(), hi.z);
+		}
+
+		graph.sprites().forEach(sprite -> {
+			if(!sprite.isAttached() && sprite.getUnits() == StyleConstants.Units.GU && !sprite.hidden) {
+				lo.x = Math.min(lo.x, sprite.getX());
+				lo.y = Math.min(lo.y, sprite.getY());
+				hi.x = Math.max(hi.x, sprite.getX());
+				hi.y = Math.max(hi.y, sprite.getY());
+			}
+		});
+
+		if(lo.x > hi.x) {
+			lo.x = lo.y = -1;
+			hi.x = hi.y = 1;
+		}
+		else {
+			if(hi.x - lo.x < 0.000001) {
+				hi.x += 1;
+				lo.x -= 1;
+			}
+			if(hi.y - lo.y < 0.000001) {
+				hi.y += 1;
+				lo.y -= 1;
+			}
+		}
+	}
+
+	protected void rebuild() {
+		clear();
+		graph.nodes().forEach(node -> addNode((GraphicNode)node));
+		graph.edges().forEach(edge -> addEdge((GraphicEdge)edge));
+		valid = true;
+	}
+
+	protected void clear() {
+		nodeCount = edgeCount = 0;
+		nodeLayout++;
+		Arrays.fill(nodes, null);
+		Arrays.fill(edges, null);
+		nodeSlots.clear();
+		edgeSlots.clear();
+		changed.clear();
+		boundsValid = false;
+	}
+
+	protected void updateNode(int slot) {
+		GraphicNode node = nodes[slot];
+		int flags = (node.hidden ? HIDDEN : 0) | (node.positionned ? POSITIONED : 0);
+
+		x[slot] = node.x;
+		y[slot] = node.y;
+		size[slot] = Float.NaN;
+		sizeUnits[slot] = 0;
+
+		Object value = node.getAttribute("ui.size");
+
+		if(value instanceof Number || value instanceof CharSequence) {
+			try {
+				Value v = StyleConstants.convertValue(value);
+				size[slot] = (float)v.value;
+				sizeUnits[slot] = (byte)v.units.ordinal();
+			} catch(RuntimeException e) {
+				// Not a size, the renderer will complain about it.
+			}
+		}
+
+		// The edges know if their two nodes are positioned.
+		if((nodeFlags[slot] & POSITIONED) != (flags & POSITIONED) && node.getDegree() > 0) {
+			node.edges().forEach(edge -> {
+				int e = edgeSlots.get((GraphicEdge)edge);
+
+				if(e >= 0)
+					updateEdge(e);
+			});
+		}
+
+		nodeFlags[slot] = flags;
+
+		if(boundsValid) {
+			if(isNodeShown(slot))
+				bounds.put(slot, x[slot], y[slot]);
+			else
+				bounds.remove(slot);
+		}
+	}
+
+	protected void updateEdge(int slot) {
+		GraphicEdge edge = edges[slot];
+
+		edgeFlags[slot] = (edge.hidden ? HIDDEN : 0) | (edge.from.positionned && edge.to.positionned ? POSITIONED : 0);
+	}
+
+	/** Mark the element at the slot as changed, if not already done. */
+	protected void changed(int slot, int flags[], GraphicElement element) {
+		if(slot >= 0 && (flags[slot] & CHANGED) == 0) {
+			flags[slot] |= CHANGED;
+			changed.add(element);
+		}
+	}
+
+	protected void addNode(GraphicNode node) {
+		if(nodeCount == nodes.length)
+			resizeNodes(nodeCount * 2);
+
+		int slot = nodeCount++;
+
+		nodes[slot] = node;
+		nodeSlots.put(node, slot);
+		nodeFlags[slot] = 0;
+		updateNode(slot);
+	}
+
+	protected void removeNode(GraphicNode node) {
+		int slot = nodeSlots.remove(node);
+
+		if(slot >= 0) {
+			int last = --nodeCount;
+			nodeLayout++;
+
+			if(boundsValid) {
+				bounds.remove(slot);
+
+				if(slot != last)
+					bounds.move(last, slot);
+			}
+
+			if(slot != last) {
+				GraphicNode moved = nodes[last];
+
+				nodes[slot] = moved;
+				x[slot] = x[last];
+				y[slot] = y[last];
+				size[slot] = size[last];
+				sizeUnits[slot] = sizeUnits[last];
+				nodeFlags[slot] = nodeFlags[last];
+				nodeSlots.put(moved, slot);
+
+				// The edges of the moved node refer to its slot.
+				if(moved.getDegree() > 0) {
+					moved.edges().forEach(edge -> {
+						int e = edgeSlots.get((GraphicEdge)edge);
+
+						if(e >= 0) {
+							if(from[e] == last)
+								from[e] = slot;
+							if(to[e] == last)
+								to[e] = slot;
+						}
+					});
+				}
+			}
+
+			nodes[last] = null;
+
+			if(nodes.length > 16 && nodeCount < nodes.length / 4)
+				resizeNodes(nodes.length / 2);
+		}
+	}
+
+	protected void addEdge(GraphicEdge edge) {
+		int f = nodeSlots.get(edge.from);
+		int t = nodeSlots.get(edge.to);
+
+		if(f >= 0 && t >= 0) {
+			if(edgeCount == edges.length)
+				resizeEdges(edgeCount * 2);
+
+			int slot = edgeCount++;
+
+			edges[slot] = edge;
+			edgeSlots.put(edge, slot);
+			from[slot] = f;
+			to[slot] = t;
+			updateEdge(slot);
+		}
+	}
+
+	protected void removeEdge(GraphicEdge edge) {
+		int slot = edgeSlots.remove(edge);
+
+		if(slot >= 0) {
+			int last = --edgeCount;
+
+			if(slot != last) {
+				edges[slot] = edges[last];
+				from[slot] = from[last];
+				to[slot] = to[last];
+				edgeFlags[slot] = edgeFlags[last];
+				edgeSlots.put(edges[slot], slot);
+			}
+
+			edges[last] = null;
+
+			if(edges.length > 16 && edgeCount < edges.length / 4)
+				resizeEdges(edges.length / 2);
+		}
+	}
+
+	protected void resizeNodes(int capacity) {
+		nodes = Arrays.copyOf(nodes, capacity);
+		x = Arrays.copyOf(x, capacity);
+		y = Arrays.copyOf(y, capacity);
+		size = Arrays.copyOf(size, capacity);
+		sizeUnits = Arrays.copyOf(sizeUnits, capacity);
+		nodeFlags = Arrays.copyOf(nodeFlags, capacity);
+	}
+
+	protected void resizeEdges(int capacity) {
+		edges = Arrays.copyOf(edges, capacity);
+		from = Arrays.copyOf(from, capacity);
+		to = Arrays.copyOf(to, capacity);
+		edgeFlags = Arrays.copyOf(edgeFlags, capacity);
+	}
+
+	/** True if the attribute changes a value of the snapshot. */
+	protected static boolean isTracked(String attribute) {
+		switch(attribute) {
+			case "x": case "y": case "xy": case "xyz":
+			case "ui.size": case "ui.hide":
+				return true;
+			default:
+				return false;
+		}
+	}
+
+// Command -- Sink
+
+	@Override
+	public void nodeAdded(String sourceId, long timeId, String nodeId) {
+		if(valid) {
+			Node node = graph.getNode(nodeId);
+
+			if(node != null)
+				addNode((GraphicNode)node);
+		}
+	}
+
+	@Override
+	public void nodeRemoved(String sourceId, long timeId, String nodeId) {
+		if(valid) {
+			Node node = graph.getNode(nodeId);
+
+			if(node != null)
+				removeNode((GraphicNode)node);
+		}
+	}
+
+	@Override
+	public void edgeAdded(String sourceId, long timeId, String edgeId, String fromNodeId, String toNodeId, boolean directed) {
+		if(valid) {
+			Edge edge = graph.getEdge(edgeId);
+
+			if(edge != null)
+				addEdge((GraphicEdge)edge);
+		}
+	}
+
+	@Override
+	public void edgeRemoved(String sourceId, long timeId, String edgeId) {
+		if(valid) {
+			Edge edge = graph.getEdge(edgeId);
+
+			if(edge != null)
+				removeEdge((GraphicEdge)edge);
+		}
+	}
+
+	@Override
+	public void graphCleared(String sourceId, long timeId) {
+		clear();
+		valid = false;
+	}
+
+	@Override
+	public void nodeAttributeAdded(String sourceId, long timeId, String nodeId, String attribute, Object value) {
+		nodeAttributeChanged(sourceId, timeId, nodeId, attribute, null, value);
+	}
+
+	@Override
+	public void nodeAttributeChanged(String sourceId, long timeId, String nodeId, String attribute, Object oldValue, Object newValue) {
+		if(valid && isTracked(attribute)) {
+			Node node = graph.getNode(nodeId);
+
+			if(node != null)
+				changed(nodeSlots.get((GraphicNode)node), nodeFlags, (GraphicNode)node);
+		}
+	}
+
+	@Override
+	public void nodeAttributeRemoved(String sourceId, long timeId, String nodeId, String attribute) {
+		nodeAttributeChanged(sourceId, timeId, nodeId, attribute, null, null);
+	}
+
+	@Override
+	public void edgeAttributeAdded(String sourceId, long timeId, String edgeId, String attribute, Object value) {
+		edgeAttributeChanged(sourceId, timeId, edgeId, attribute, null, value);
+	}
+
+	@Override
+	public void edgeAttributeChanged(String sourceId, long timeId, String edgeId, String attribute, Object oldValue, Object newValue) {
+		if(valid && isTracked(attribute)) {
+			Edge edge = graph.getEdge(edgeId);
+
+			if(edge != null)
+				changed(edgeSlots.get((GraphicEdge)edge), edgeFlags, (GraphicEdge)edge);
+		}
+	}
+
+	@Override
+	public void edgeAttributeRemoved(String sourceId, long timeId, String edgeId, String attribute) {
+		edgeAttributeChanged(sourceId, timeId, edgeId, attribute, null, null);
+	}
+}
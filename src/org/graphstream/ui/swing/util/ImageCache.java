@@ -31,88 +31,591 @@
   
 package org.graphstream.ui.swing.util;
 
+import java.awt.AlphaComposite;
 import java.awt.Color;
 import java.awt.Graphics2D;
+import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
 import java.io.File;
+import java.lang.ref.SoftReference;
 import java.net.URL;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.imageio.ImageIO;
 
+/**
+ * Images shared by all the renderers, loaded once from the class path, an URL or a file.
+ *
+ * The cache is bounded by a budget in bytes, {@link #setMaxBytes(long)}. Above it, the
+ * least recently used images are evicted. Images can also be kept through soft
+ * references, {@link #setSoftReferences(boolean)}, so that the garbage collector can
+ * reclaim them before the budget is reached. An image that cannot be read is remembered
+ * as the dummy image, so that it is not read again at each frame.
+ *
+ * The cache can be used from several threads, the images are read outside of its lock.
+ * It counts its hits, misses and evictions.
+ *
+ * Images can also be requested without waiting, {@link #requestImage(String)}. They are
+ * then read by a small pool of loader threads and the listeners of the cache,
+ * {@link #addListener(Listener)}, are told when they arrive. A request that was not
+ * repeated during {@link #STALE_MILLIS} is considered as no longer referenced and is
+ * cancelled if it is still waiting for a loader thread, the renderers request the images
+ * they still draw at each frame.
+ *
+ * Images drawn smaller than their size, or in a format Java2D must convert, can be
+ * drawn from a prepared variant, {@link #scaledImage(String, double, double)}. The
+ * variants are the levels of a mipmap, each half the size of the previous one, made at
+ * first use and kept with their image. Once made, they are found without taking the
+ * lock of the cache.
+ */
 public class ImageCache {
+	/** Default budget in bytes of the cache. */
+	public static final long DEFAULT_MAX_BYTES = 64L << 20;
+
+	private static final Object lock = new Object();
 
-	protected static HashMap<String, BufferedImage> imageCache = new HashMap<>();
+	/** Images by name, in order of use. */
+	protected static LinkedHashMap<String, Entry> imageCache = new LinkedHashMap<>(64, 0.75f, true);
+
+	/** The same images, changed under the lock but read without it by {@link #scaledImage(String, double, double)}. */
+	protected static ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
 	
 	protected static BufferedImage dummy = null ;
+
+	/** Neutral image drawn while a requested image is read, see {@link #placeholderImage()}. */
+	protected static BufferedImage placeholder = null ;
+
+	/** Neutral color used to fill areas while their image is read. */
+	public static final Color PLACEHOLDER_COLOR = new Color(128, 128, 128, 64);
+
+	protected static long maxBytes = DEFAULT_MAX_BYTES;
+
+	protected static boolean softReferences = false;
+
+	/** Bytes of the images in the cache. */
+	protected static long bytes = 0;
+
+	protected static long hits = 0, misses = 0, evictions = 0;
+
+	/** Maximum number of levels of the mipmaps. */
+	public static final int MAX_LEVELS = 12;
+
+	/** Maximum number of loader threads. */
+	public static final int LOADER_THREADS = 4;
+
+	/** Time after which a request not repeated is cancelled. */
+	public static final long STALE_MILLIS = 5000;
+
+	/** Threads reading the requested images, made at the first request. */
+	protected static ExecutorService loader = null;
+
+	/** Images waiting to be read by the loader threads, with the time of their last request. */
+	protected static HashMap<String, Long> pending = new HashMap<>();
+
+	protected static long cancellations = 0;
+
+	/** Incremented each time a requested image arrives or its request is cancelled. */
+	protected static volatile int version = 0;
+
+	protected static CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+
+	/** Told when requested images arrive in the cache. */
+	public interface Listener {
+		/** The image requested under the given name arrived in the cache or its request was
+		 * cancelled. Called from a loader thread. */
+		void imageChanged(String fileNameOrUrl);
+	}
 		
 	public void init() {
-		BufferedImage img = new BufferedImage(16, 16, BufferedImage.TYPE_INT_RGB);
-		
-		Graphics2D g2 = img.createGraphics();
-		g2.setColor(Color.RED);
-		g2.drawRect(0, 0, img.getWidth()-1, img.getHeight()-1);
-		g2.drawLine(0, 0, img.getWidth()-1, img.getHeight()-1);
-		g2.drawLine(0, img.getHeight()-1, img.getWidth()-1, 0);
-		
-		dummy = img ;
+		dummyImage();
 	}
 	
-	
 	public static BufferedImage loadImage(String fileNameOrUrl) {
 		return loadImage(fileNameOrUrl, false);
 	}
 
-
+	/**
+	 * The image of the given name, read if not in the cache. Return the dummy image if
+	 * the image cannot be read. An image that could not be read before is read again
+	 * only if forceTryReload is true.
+	 */
 	public static BufferedImage loadImage(String fileNameOrUrl, boolean forceTryReload) {
-		if (imageCache.get(fileNameOrUrl) == null) {
-			URL url = ImageCache.class.getClassLoader().getResource(fileNameOrUrl);
-			BufferedImage image = null ;
-			
-			if (url != null) { // The image is in the class path.
-				try {
-					image = ImageIO.read(url);
-					imageCache.put(fileNameOrUrl, image);
-				}
-				catch (Exception e) {
-					e.printStackTrace();
-				}
+		BufferedImage image = cached(fileNameOrUrl, forceTryReload);
+
+		if (image == null) {
+			image = readImage(fileNameOrUrl);
+			put(fileNameOrUrl, image);
+		}
+
+		return image;
+	}
+
+	/**
+	 * The image of the given name if it is in the cache, else null and the image is read
+	 * by a loader thread. The listeners are told when it arrives. Requesting an image
+	 * already waiting for a loader thread only marks it as still referenced.
+	 */
+	public static BufferedImage requestImage(String fileNameOrUrl) {
+		synchronized (lock) {
+			long now = System.currentTimeMillis();
+
+			if (pending.containsKey(fileNameOrUrl)) {
+				pending.put(fileNameOrUrl, now);
+				return null;
 			}
-			else {
-				try {
-					url = new URL(fileNameOrUrl);
-					
-					image = ImageIO.read(url);
-					imageCache.put(fileNameOrUrl, image);
-				}
-				catch (Exception e) {
-					try {
-						image = ImageIO.read( new File( fileNameOrUrl ) );	// Try the file.
-						imageCache.put( fileNameOrUrl, image );
-					}
-					catch (Exception ex) {
-						image = dummy ;
-						imageCache.put( fileNameOrUrl, image );
-						Logger.getLogger(ImageCache.class.getSimpleName()).log(Level.WARNING, "Cannot read image '%s'.".format(fileNameOrUrl), e);
+
+			BufferedImage image = cached(fileNameOrUrl, false);
+
+			if (image == null) {
+				pending.put(fileNameOrUrl, now);
+				loader().execute(() -> load(fileNameOrUrl));
+			}
+
+			return image;
+		}
+	}
+	
+	public static BufferedImage dummyImage() {
+		synchronized (lock) {
+			if (dummy == null) {
+				BufferedImage img = new BufferedImage(16, 16, BufferedImage.TYPE_INT_RGB);
+				
+				Graphics2D g2 = img.createGraphics();
+				g2.setColor(Color.RED);
+				g2.drawRect(0, 0, img.getWidth()-1, img.getHeight()-1);
+				g2.drawLine(0, 0, img.getWidth()-1, img.getHeight()-1);
+				g2.drawLine(0, img.getHeight()-1, img.getWidth()-1, 0);
+				g2.dispose();
+				
+				dummy = img ;
+			}
+
+			return dummy ;
+		}
+	}
+
+	/**
+	 * A variant of the image of the given name prepared to be drawn at the given size in
+	 * pixels of the device, or null if the image is not in the cache. The variant is the
+	 * smallest level of the mipmap of the image at least as large as the size, in a format
+	 * Java2D draws without conversion, the image itself if it is already in such a format
+	 * and large enough. The size in bytes of the levels made is counted in the budget.
+	 */
+	public static BufferedImage scaledImage(String fileNameOrUrl, double width, double height) {
+		Entry entry = entries.get(fileNameOrUrl);
+		Mipmap mipmap = entry != null ? entry.mipmap() : null;
+
+		if (mipmap == null || mipmap.image == dummy)
+			return mipmap != null ? mipmap.image : null;
+
+		int level = levelFor(mipmap.image, width, height);
+		BufferedImage levels[] = mipmap.levels;
+
+		if (levels[level] != null)
+			return levels[level];
+
+		// Start from the nearest larger level already made. The levels are made outside the
+		// lock, several threads may make the same ones.
+		int from = level - 1;
+
+		while (from >= 0 && levels[from] == null)
+			from--;
+
+		BufferedImage base = from >= 0 ? levels[from] : mipmap.image;
+		BufferedImage made[] = new BufferedImage[level + 1];
+
+		for (int l = from + 1; l <= level; l++) {
+			base = resize(base, levelSize(mipmap.image.getWidth(), l), levelSize(mipmap.image.getHeight(), l));
+			made[l] = base;
+		}
+
+		synchronized (lock) {
+			if (entries.get(fileNameOrUrl) == entry) {
+				levels = mipmap.levels.clone();
+
+				for (int l = from + 1; l <= level; l++) {
+					if (levels[l] == null) {
+						levels[l] = made[l];
+						long size = (long)made[l].getWidth() * made[l].getHeight() * 4;
+						entry.bytes += size;
+						bytes += size;
 					}
 				}
+
+				mipmap.levels = levels;
+				evict(fileNameOrUrl);
+				return levels[level];
 			}
-			
-			return image ;
 		}
-		else {
-			if(imageCache.get(fileNameOrUrl) == dummy && forceTryReload) {
-				imageCache.remove(fileNameOrUrl) ;
-				return loadImage(fileNameOrUrl);
+
+		return base;
+	}
+
+	/** A small neutral image, drawn in place of a requested image until it arrives. */
+	public static BufferedImage placeholderImage() {
+		synchronized (lock) {
+			if (placeholder == null) {
+				BufferedImage img = new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB);
+
+				Graphics2D g2 = img.createGraphics();
+				g2.setColor(PLACEHOLDER_COLOR);
+				g2.fillRect(0, 0, img.getWidth(), img.getHeight());
+				g2.dispose();
+
+				placeholder = img ;
 			}
+
+			return placeholder ;
+		}
+	}
+
+// Access
+
+	/** Budget in bytes of the cache. */
+	public static long getMaxBytes() {
+		synchronized (lock) { return maxBytes; }
+	}
+
+	/** True if the images are kept through soft references. */
+	public static boolean isSoftReferences() {
+		synchronized (lock) { return softReferences; }
+	}
+
+	/** Bytes of the images in the cache. */
+	public static long getBytes() {
+		synchronized (lock) { return bytes; }
+	}
+
+	/** Number of images in the cache. */
+	public static int getSize() {
+		synchronized (lock) { return imageCache.size(); }
+	}
+
+	/** Number of images found in the cache. */
+	public static long getHits() {
+		synchronized (lock) { return hits; }
+	}
+
+	/** Number of images that had to be read. */
+	public static long getMisses() {
+		synchronized (lock) { return misses; }
+	}
+
+	/** Number of images evicted to respect the budget, or reclaimed by the garbage collector. */
+	public static long getEvictions() {
+		synchronized (lock) { return evictions; }
+	}
+
+	/** Number of requests cancelled before their image was read. */
+	public static long getCancellations() {
+		synchronized (lock) { return cancellations; }
+	}
+
+	/** Number of images requested and not yet read. */
+	public static int getPending() {
+		synchronized (lock) { return pending.size(); }
+	}
+
+	/** True if the image of the given name was requested and is not yet read. */
+	public static boolean isPending(String fileNameOrUrl) {
+		synchronized (lock) { return pending.containsKey(fileNameOrUrl); }
+	}
+
+	/** Incremented each time a requested image arrives or its request is cancelled, a
+	 * renderer that drew placeholders must draw them again when it changes. */
+	public static int getVersion() {
+		return version;
+	}
+
+// Command
+
+	/** Set the budget in bytes of the cache, evicting images if needed. */
+	public static void setMaxBytes(long maxBytes) {
+		synchronized (lock) {
+			ImageCache.maxBytes = maxBytes;
+			evict(null);
+		}
+	}
+
+	/** Keep the images read from now through soft references if true, else through strong ones. */
+	public static void setSoftReferences(boolean on) {
+		synchronized (lock) { softReferences = on; }
+	}
+
+	/** Remove all the images. */
+	public static void clear() {
+		synchronized (lock) {
+			imageCache.clear();
+			entries.clear();
+			bytes = 0;
+		}
+	}
+
+	/** Reset the hit, miss, eviction and cancellation counters. */
+	public static void resetCounters() {
+		synchronized (lock) {
+			hits = 0;
+			misses = 0;
+			evictions = 0;
+			cancellations = 0;
+		}
+	}
+
+	/** Cancel the request of an image if it is still waiting for a loader thread. */
+	public static void cancel(String fileNameOrUrl) {
+		synchronized (lock) {
+			if (pending.remove(fileNameOrUrl) != null)
+				cancellations++;
+		}
+	}
+
+	public static void addListener(Listener listener) {
+		listeners.add(listener);
+	}
+
+	public static void removeListener(Listener listener) {
+		listeners.remove(listener);
+	}
+
+	/** The loader threads, made if needed. */
+	protected static ExecutorService loader() {
+		synchronized (lock) {
+			if (loader == null) {
+				int threads = Math.max(1, Math.min(LOADER_THREADS, Runtime.getRuntime().availableProcessors()));
+
+				loader = Executors.newFixedThreadPool(threads, task -> {
+					Thread thread = new Thread(task, "GraphStream image loader");
+					thread.setDaemon(true);
+					return thread;
+				});
+			}
+
+			return loader;
+		}
+	}
+
+	/** Read a requested image in a loader thread, unless it is no longer referenced. */
+	protected static void load(String name) {
+		boolean stale;
+
+		synchronized (lock) {
+			Long requested = pending.get(name);
+
+			if (requested == null)
+				return;
+
+			stale = System.currentTimeMillis() - requested > STALE_MILLIS;
+
+			if (stale) {
+				pending.remove(name);
+				cancellations++;
+			}
+		}
+
+		if (!stale) {
+			BufferedImage image = readImage(name);
+
+			synchronized (lock) {
+				put(name, image);
+				pending.remove(name);
+			}
+		}
+
+		synchronized (lock) {
+			version++;
+		}
+
+		for (Listener listener : listeners)
+			listener.imageChanged(name);
+	}
+
+	/** The image in the cache, or null if it must be read. */
+	protected static BufferedImage cached(String name, boolean forceTryReload) {
+		synchronized (lock) {
+			Entry entry = imageCache.get(name);
+			BufferedImage image = entry != null ? entry.get() : null;
+
+			if (image == null && entry != null) {
+				remove(name, entry);
+				evictions++;
+			}
+			else if (image != null && image == dummy && forceTryReload) {
+				remove(name, entry);
+				image = null;
+			}
+
+			if (image != null)
+				hits++;
 			else
-				return imageCache.get(fileNameOrUrl);
+				misses++;
+
+			return image;
 		}
 	}
-	
-	public static BufferedImage dummyImage() {
-		return dummy ;
+
+	/** Put an image in the cache and evict the least recently used ones above the budget. */
+	protected static void put(String name, BufferedImage image) {
+		synchronized (lock) {
+			Entry entry = new Entry(image, softReferences && image != dummy);
+			Entry old = imageCache.put(name, entry);
+			entries.put(name, entry);
+
+			if (old != null)
+				bytes -= old.bytes;
+
+			bytes += entry.bytes;
+			evict(name);
+		}
+	}
+
+	/** Evict the least recently used images, but the given one, until the budget is respected. */
+	protected static void evict(String kept) {
+		Iterator<Map.Entry<String, Entry>> i = imageCache.entrySet().iterator();
+
+		while (bytes > maxBytes && i.hasNext()) {
+			Map.Entry<String, Entry> e = i.next();
+
+			if (!e.getKey().equals(kept)) {
+				bytes -= e.getValue().bytes;
+				entries.remove(e.getKey());
+				i.remove();
+				evictions++;
+			}
+		}
+	}
+
+	/** The smallest level of the mipmap of the image at least as large as the given size. */
+	protected static int levelFor(BufferedImage image, double width, double height) {
+		int level = 0;
+
+		while (level + 1 < MAX_LEVELS
+		&& levelSize(image.getWidth(), level + 1) >= width
+		&& levelSize(image.getHeight(), level + 1) >= height
+		&& (levelSize(image.getWidth(), level) > 1 || levelSize(image.getHeight(), level) > 1))
+			level++;
+
+		return level;
+	}
+
+	protected static int levelSize(int size, int level) {
+		return Math.max(1, size >> level);
+	}
+
+	/** A copy of the image at the given size, premultiplied, filtered bilinearly. Each halving
+	 * therefore averages the pixels by blocks of two by two. */
+	protected static BufferedImage resize(BufferedImage image, int width, int height) {
+		BufferedImage resized = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+		Graphics2D g2 = resized.createGraphics();
+
+		g2.setComposite(AlphaComposite.Src);
+		g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		g2.drawImage(image, 0, 0, width, height, null);
+		g2.dispose();
+
+		return resized;
+	}
+
+	protected static void remove(String name, Entry entry) {
+		imageCache.remove(name);
+		entries.remove(name);
+		bytes -= entry.bytes;
+	}
+
+	/** Read an image from the class path, an URL or a file, the dummy image if it cannot be read. */
+	protected static BufferedImage readImage(String fileNameOrUrl) {
+		URL url = ImageCache.class.getClassLoader().getResource(fileNameOrUrl);
+		BufferedImage image = null ;
+		
+		if (url != null) { // The image is in the class path.
+			try {
+				image = ImageIO.read(url);
+			}
+			catch (Exception e) {
+				Logger.getLogger(ImageCache.class.getSimpleName()).log(Level.WARNING, String.format("Cannot read image '%s'.", fileNameOrUrl), e);
+			}
+		}
+		else {
+			try {
+				url = new URL(fileNameOrUrl);
+				
+				image = ImageIO.read(url);
+			}
+			catch (Exception e) {
+				try {
+					image = ImageIO.read( new File( fileNameOrUrl ) );	// Try the file.
+				}
+				catch (Exception ex) {
+					Logger.getLogger(ImageCache.class.getSimpleName()).log(Level.WARNING, String.format("Cannot read image '%s'.", fileNameOrUrl), e);
+				}
+			}
+		}
+		
+		return image != null ? image : dummyImage();
+	}
+
+	/** An image of the cache with its mipmap and their size in bytes, changed under the lock. */
+	protected static class Entry {
+		protected final Mipmap mipmap;
+
+		protected final SoftReference<Mipmap> reference;
+
+		protected long bytes;
+
+		protected Entry(BufferedImage image, boolean soft) {
+			Mipmap mipmap = new Mipmap(image);
+
+			this.mipmap = soft ? null : mipmap;
+			this.reference = soft ? new SoftReference<>(mipmap) : null;
+			this.bytes = (long)image.getWidth() * image.getHeight() * Math.max(1, image.getColorModel().getPixelSize() / 8);
+		}
+
+		/** The image and its levels, null if reclaimed by the garbage collector. */
+		protected Mipmap mipmap() {
+			return reference != null ? reference.get() : mipmap;
+		}
+
+		protected BufferedImage get() {
+			Mipmap mipmap = mipmap();
+			return mipmap != null ? mipmap.image : null;
+		}
+	}
+
+	/**
+	 * An image and the levels of its mipmap made until now, kept under the same reference so
+	 * that the garbage collector reclaims them together. The first level is the image itself
+	 * when Java2D draws it without conversion. The levels are replaced by a copy under the
+	 * lock when some are added, and read without it.
+	 */
+	protected static class Mipmap {
+		protected final BufferedImage image;
+
+		protected volatile BufferedImage levels[] = new BufferedImage[MAX_LEVELS];
+
+		protected Mipmap(BufferedImage image) {
+			this.image = image;
+
+			if (isCompatible(image))
+				levels[0] = image;
+		}
+
+		protected static boolean isCompatible(BufferedImage image) {
+			switch (image.getType()) {
+				case BufferedImage.TYPE_INT_ARGB_PRE:
+				case BufferedImage.TYPE_INT_ARGB:
+				case BufferedImage.TYPE_INT_RGB:
+					return true;
+				default:
+					return false;
+			}
+		}
 	}
 }
@@ -0,0 +1,169 @@
+/*
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ *
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ *
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+
+ /**
+  * @author Antoine Dutot <antoine.dutot@graphstream-project.org>
+  * @author Guilhelm Savin <guilhelm.savin@graphstream-project.org>
+  * @author Hicham Brahimi <hicham.brahimi@graphstream-project.org>
+  */
+
+package org.graphstream.ui.swing.util;
+
+import org.graphstream.ui.graphicGraph.GraphicGraph;
+import org.graphstream.ui.graphicGraph.StyleGroup;
+import org.graphstream.ui.graphicGraph.stylesheet.Selector;
+import org.graphstream.ui.graphicGraph.stylesheet.StyleConstants;
+import org.graphstream.ui.graphicGraph.stylesheet.Values;
+import org.graphstream.ui.view.util.GraphMetrics;
+
+/**
+ * Level of detail of the style groups at the current zoom.
+ *
+ * The level of detail is enabled by the "ui.lod" graph attribute. Then, the node
+ * groups whose size in pixels is under the "ui.lod.node" graph attribute (1.5 pixels
+ * by default) are reduced: their nodes are plotted as single pixels, without shadow,
+ * label or icon. When most of the nodes are reduced, the edge groups whose width in
+ * pixels is at most the "ui.lod.edge" graph attribute (1 pixel by default) are reduced
+ * too: their edges are drawn as plain 1 pixel lines, without shadow, arrow or label.
+ *
+ * The sizes are evaluated at each frame, full detail comes back when zooming in.
+ * Elements with events (clicked, selected...) are always drawn in full detail, as
+ * are the node groups whose size mode is "fit" and the sprites.
+ */
+public class LevelOfDetail {
+	/** Default size in pixels under which nodes are reduced. */
+	public static final double DEFAULT_NODE_THRESHOLD = 1.5;
+
+	/** Default width in pixels under which edges are reduced. */
+	public static final double DEFAULT_EDGE_THRESHOLD = 1;
+
+	protected boolean enabled = false;
+
+	protected double nodeThreshold = DEFAULT_NODE_THRESHOLD;
+
+	protected double edgeThreshold = DEFAULT_EDGE_THRESHOLD;
+
+	/** True if most of the nodes are reduced, the edges can then be reduced. */
+	protected boolean nodesReduced = false;
+
+	protected GraphMetrics metrics;
+
+	protected SpatialIndex index;
+
+// Access
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/** True if the elements of the group must be drawn with the reduced level of detail. */
+	public boolean isReduced(StyleGroup group) {
+		if(enabled) {
+			if(group.getType() == Selector.Type.NODE)
+				return isNodeReduced(group);
+			else if(group.getType() == Selector.Type.EDGE)
+				return nodesReduced && isEdgeReduced(group);
+		}
+
+		return false;
+	}
+
+	/** Side in pixels of the square used to plot the nodes of a reduced group. */
+	public int plotSize(StyleGroup group) {
+		return Math.max(1, (int)Math.round(nodeSizePx(group)));
+	}
+
+	protected boolean isNodeReduced(StyleGroup group) {
+		return group.getShape() != StyleConstants.Shape.JCOMPONENT
+			&& group.getSizeMode() != StyleConstants.SizeMode.FIT
+			&& nodeSizePx(group) < nodeThreshold;
+	}
+
+	protected boolean isEdgeReduced(StyleGroup group) {
+		if(group.getSizeMode() == StyleConstants.SizeMode.DYN_SIZE && group.hasDynamicElements())
+			return false;
+
+		return metrics.lengthToPx(group.getSize(), 0) + strokePx(group) <= edgeThreshold;
+	}
+
+	/** The largest size in pixels of the nodes of a group. */
+	protected double nodeSizePx(StyleGroup group) {
+		Values size = group.getSize();
+		double px = metrics.lengthToPx(size, 0);
+
+		if(size.size() > 1)
+			px = Math.max(px, metrics.lengthToPx(size, 1));
+
+		if(group.getSizeMode() == StyleConstants.SizeMode.DYN_SIZE && index != null) {
+			for(StyleConstants.Units units : StyleConstants.Units.values())
+				px = Math.max(px, metrics.lengthToPx(index.maxDynSize(units), units));
+		}
+
+		return px + strokePx(group);
+	}
+
+	protected double strokePx(StyleGroup group) {
+		if(group.getStrokeMode() != StyleConstants.StrokeMode.NONE)
+			return 2 * metrics.lengthToPx(group.getStrokeWidth());
+
+		return 0;
+	}
+
+// Command
+
+	/** Read the level of detail settings in the graph attributes and evaluate the node groups at the
+	 * current zoom. This must be called at each frame, once the camera metrics are set. */
+	public void configure(GraphicGraph graph, GraphMetrics metrics, SpatialIndex index) {
+		this.metrics = metrics;
+		this.index = index;
+		this.enabled = graph.hasAttribute("ui.lod");
+		this.nodesReduced = false;
+
+		if(enabled) {
+			nodeThreshold = threshold(graph, "ui.lod.node", DEFAULT_NODE_THRESHOLD);
+			edgeThreshold = threshold(graph, "ui.lod.edge", DEFAULT_EDGE_THRESHOLD);
+
+			int total = 0;
+			int reduced = 0;
+
+			for(StyleGroup group : graph.getStyleGroups().groups()) {
+				if(group.getType() == Selector.Type.NODE) {
+					total += group.getElementCount();
+
+					if(isNodeReduced(group))
+						reduced += group.getElementCount();
+				}
+			}
+
+			nodesReduced = total > 0 && reduced * 2 >= total;
+		}
+	}
+
+	protected double threshold(GraphicGraph graph, String attribute, double defaultValue) {
+		double value = graph.getNumber(attribute);
+
+		return Double.isNaN(value) ? defaultValue : value;
+	}
+}
@@ -41,7 +41,7 @@ import org.graphstream.ui.graphicGraph.stylesheet.StyleConstants.StrokeMode;
 import org.graphstream.ui.view.camera.DefaultCamera2D;
 import org.graphstream.ui.swing.renderer.AreaSkeleton;
 import org.graphstream.ui.swing.renderer.ConnectorSkeleton;
-import org.graphstream.ui.swing.renderer.Skeleton;
+import org.graphstream.ui.swing.renderer.SkeletonStore;
 
 public class ShapeUtil {
 	
@@ -53,11 +53,11 @@ public class ShapeUtil {
 	  * @param camera the camera.
 	  * @return The radius. */
 	public static double evalTargetRadius2D(GraphicEdge edge, DefaultCamera2D camera) {
-		ConnectorSkeleton eskel = (ConnectorSkeleton)edge.getAttribute(Skeleton.attributeName);
+		ConnectorSkeleton eskel = (ConnectorSkeleton)SkeletonStore.get(camera, edge);
 		if(eskel != null) {
 			return evalTargetRadius2D(
 	    		edge.to.getStyle(),
-	    		(AreaSkeleton)edge.to.getAttribute(Skeleton.attributeName),
+	    		(AreaSkeleton)SkeletonStore.get(camera, edge.to),
 	    		new Point3(eskel.from().x, eskel.from().y, eskel.from().z),
 	    		new Point3(eskel.to().x, eskel.to().y, eskel.to().z),
 	   	 		camera);
@@ -78,7 +78,7 @@ public class ShapeUtil {
 	  * @param the camera.
 	  * @return The radius. */
 	public static double evalTargetRadius2D(Point3 from, Point3 to, GraphicNode node, DefaultCamera2D camera) {
-		return evalTargetRadius2D(node.getStyle(), (AreaSkeleton)node.getAttribute(Skeleton.attributeName),
+		return evalTargetRadius2D(node.getStyle(), (AreaSkeleton)SkeletonStore.get(camera, node),
 	            from, null, null, to, camera);
 	}
 	
@@ -108,7 +108,7 @@ public class ShapeUtil {
 	  * @return the radius. */
  	public static double evalTargetRadius2D(GraphicEdge edge, Point3 p0, Point3 p1, Point3 p2, Point3 p3, DefaultCamera2D camera) {
  		return evalTargetRadius2D(edge.to.getStyle(),
- 	 			(AreaSkeleton)edge.to.getAttribute(Skeleton.attributeName),
+ 	 			(AreaSkeleton)SkeletonStore.get(camera, edge.to),
  	 			p0, p1, p2, p3, camera);
  	}
  	
@@ -0,0 +1,276 @@
+/*
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ *
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ *
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+
+ /**
+  * @author Antoine Dutot <antoine.dutot@graphstream-project.org>
+  * @author Guilhelm Savin <guilhelm.savin@graphstream-project.org>
+  * @author Hicham Brahimi <hicham.brahimi@graphstream-project.org>
+  */
+
+
+package org.graphstream.ui.swing.util;
+
+import java.util.Arrays;
+
+/**
+ * Bounds of a set of points identified by dense slots, maintained incrementally.
+ *
+ * The slots are kept in four binary heaps, ordered by smallest x, largest x, smallest
+ * y and largest y, whose first slot gives the bound. Adding, moving or removing a
+ * point costs a few sifts in each heap, so the bounds are known in constant time
+ * without scanning all the points. When most points change at once, the heaps are
+ * rebuilt in linear time instead.
+ */
+public class SlotBounds {
+	protected Heap minX = new Heap(), maxX = new Heap(), minY = new Heap(), maxY = new Heap();
+
+// Access
+
+	/** True if there is no point. */
+	public boolean isEmpty() {
+		return minX.size == 0;
+	}
+
+	public int size() {
+		return minX.size;
+	}
+
+	/** Bounds of the points, undefined if there is no point. */
+	public double minX() {
+		return minX.first();
+	}
+
+	public double maxX() {
+		return -maxX.first();
+	}
+
+	public double minY() {
+		return minY.first();
+	}
+
+	public double maxY() {
+		return -maxY.first();
+	}
+
+// Command
+
+	/** Add the point at the slot, or move it if it is already there. */
+	public void put(int slot, double x, double y) {
+		minX.put(slot, x);
+		maxX.put(slot, -x);
+		minY.put(slot, y);
+		maxY.put(slot, -y);
+	}
+
+	/** Remove the point at the slot, if any. */
+	public void remove(int slot) {
+		minX.remove(slot);
+		maxX.remove(slot);
+		minY.remove(slot);
+		maxY.remove(slot);
+	}
+
+	/** The point at a slot moved to another slot, that must be free. */
+	public void move(int from, int to) {
+		minX.move(from, to);
+		maxX.move(from, to);
+		minY.move(from, to);
+		maxY.move(from, to);
+	}
+
+	public void clear() {
+		minX.clear();
+		maxX.clear();
+		minY.clear();
+		maxY.clear();
+	}
+
+	/** Add the point at the slot without ordering the heaps, {@link #order()} must be called after. */
+	public void append(int slot, double x, double y) {
+		minX.append(slot, x);
+		maxX.append(slot, -x);
+		minY.append(slot, y);
+		maxY.append(slot, -y);
+	}
+
+	/** Order the heaps after points were appended. */
+	public void order() {
+		minX.order();
+		maxX.order();
+		minY.order();
+		maxY.order();
+	}
+
+	/** Binary heap of slots giving the smallest key, the slots can be updated or removed. */
+	protected static class Heap {
+		/** The slots, in heap order. */
+		protected int items[] = new int[16];
+
+		/** Position of the slots in the heap, or -1. */
+		protected int positions[] = new int[16];
+
+		/** Keys of the slots. */
+		protected double keys[] = new double[16];
+
+		protected int size = 0;
+
+		public Heap() {
+			Arrays.fill(positions, -1);
+		}
+
+		protected double first() {
+			return keys[items[0]];
+		}
+
+		protected void put(int slot, double key) {
+			ensure(slot);
+
+			int p = positions[slot];
+
+			if(p < 0) {
+				append(slot, key);
+				up(size - 1);
+			}
+			else if(key != keys[slot]) {
+				double old = keys[slot];
+				keys[slot] = key;
+
+				if(key < old)
+					up(p);
+				else
+					down(p);
+			}
+		}
+
+		protected void append(int slot, double key) {
+			ensure(slot);
+
+			if(size == items.length)
+				items = Arrays.copyOf(items, size * 2);
+
+			keys[slot] = key;
+			items[size] = slot;
+			positions[slot] = size++;
+		}
+
+		protected void remove(int slot) {
+			int p = slot < positions.length ? positions[slot] : -1;
+
+			if(p >= 0) {
+				int last = items[--size];
+
+				positions[slot] = -1;
+
+				if(last != slot) {
+					items[p] = last;
+					positions[last] = p;
+					up(p);
+					down(positions[last]);
+				}
+			}
+		}
+
+		protected void move(int from, int to) {
+			int p = from < positions.length ? positions[from] : -1;
+
+			if(p >= 0) {
+				ensure(to);
+				items[p] = to;
+				positions[to] = p;
+				keys[to] = keys[from];
+				positions[from] = -1;
+			}
+		}
+
+		protected void clear() {
+			for(int i = 0; i < size; i++)
+				positions[items[i]] = -1;
+
+			size = 0;
+		}
+
+		/** Floyd's heap construction. */
+		protected void order() {
+			for(int i = size / 2 - 1; i >= 0; i--)
+				down(i);
+		}
+
+		protected void up(int p) {
+			int slot = items[p];
+			double key = keys[slot];
+
+			while(p > 0) {
+				int parent = (p - 1) >> 1;
+				int other = items[parent];
+
+				if(keys[other] <= key)
+					break;
+
+				items[p] = other;
+				positions[other] = p;
+				p = parent;
+			}
+
+			items[p] = slot;
+			positions[slot] = p;
+		}
+
+		protected void down(int p) {
+			int slot = items[p];
+			double key = keys[slot];
+			int half = size >> 1;
+
+			while(p < half) {
+				int child = 2 * p + 1;
+
+				if(child + 1 < size && keys[items[child + 1]] < keys[items[child]])
+					child++;
+
+				int other = items[child];
+
+				if(key <= keys[other])
+					break;
+
+				items[p] = other;
+				positions[other] = p;
+				p = child;
+			}
+
+			items[p] = slot;
+			positions[slot] = p;
+		}
+
+		protected void ensure(int slot) {
+			if(slot >= positions.length) {
+				int capacity = Math.max(slot + 1, positions.length * 2);
+				int old = positions.length;
+
+				positions = Arrays.copyOf(positions, capacity);
+				keys = Arrays.copyOf(keys, capacity);
+				Arrays.fill(positions, old, capacity, -1);
+			}
+		}
+	}
+}
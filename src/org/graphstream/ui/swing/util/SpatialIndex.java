@@ -0,0 +1,617 @@
+/*
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ *
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ *
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+
+ /**
+  * @author Antoine Dutot <antoine.dutot@graphstream-project.org>
+  * @author Guilhelm Savin <guilhelm.savin@graphstream-project.org>
+  * @author Hicham Brahimi <hicham.brahimi@graphstream-project.org>
+  */
+
+package org.graphstream.ui.swing.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.function.Consumer;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Node;
+import org.graphstream.stream.SinkAdapter;
+import org.graphstream.ui.graphicGraph.GraphicEdge;
+import org.graphstream.ui.graphicGraph.GraphicElement;
+import org.graphstream.ui.graphicGraph.GraphicGraph;
+import org.graphstream.ui.graphicGraph.GraphicNode;
+import org.graphstream.ui.graphicGraph.GraphicSprite;
+import org.graphstream.ui.graphicGraph.stylesheet.StyleConstants;
+import org.graphstream.ui.graphicGraph.stylesheet.Value;
+
+/**
+ * Uniform grid in graph units over the nodes, edges and sprites of a graphic graph.
+ *
+ * The index is a sink of the graphic graph: it follows node additions, removals
+ * and moves as well as edge additions and removals from the graph events. Nodes
+ * are stored in the cell of their center, edges in the cells covered by the box
+ * of their two end points. Edges covering too many cells are kept aside and
+ * always reported.
+ *
+ * The cell coordinates are bounded, see {@link #MAX_CELL}. Elements lying beyond
+ * these bounds, for example at an infinite position or moved very far from the
+ * graph the grid was built for, are also kept aside and always reported.
+ *
+ * Sprites whose position is given in graph units and that are not attached are
+ * stored in the cell of their position. The other sprites depend on the element
+ * they are attached to or on the view, they are always reported. The sprites are
+ * indexed again at the next query when one of them is added, moved, attached,
+ * detached or removed.
+ *
+ * The cell size is chosen from the graph bounds and the node count. The grid is
+ * rebuilt lazily, at the next query, when it no longer matches the graph (first
+ * use, element count mismatch or a graph that grew or shrank a lot).
+ */
+public class SpatialIndex extends SinkAdapter {
+	/** Maximum number of cells an edge may cover before being kept aside. */
+	protected static final int MAX_CELLS_PER_ENTRY = 16;
+
+	/** The grid is rebuilt when the ideal cell size drifts beyond this factor. */
+	protected static final double REBUILD_FACTOR = 4;
+
+	/** Bound of the cell coordinates, the cells are clamped in [-MAX_CELL, MAX_CELL]. */
+	protected static final int MAX_CELL = 1 << 20;
+
+	protected GraphicGraph graph;
+
+	/** Node entries by node identifier. */
+	protected HashMap<String,Entry> nodes = new HashMap<>();
+
+	/** Edge entries by edge identifier. */
+	protected HashMap<String,Entry> edges = new HashMap<>();
+
+	/** Sprite entries by sprite identifier. */
+	protected HashMap<String,Entry> sprites = new HashMap<>();
+
+	protected Cells nodeCells = new Cells(), edgeCells = new Cells(), spriteCells = new Cells();
+
+	/** Nodes beyond the bounds of the grid. */
+	protected ArrayList<Entry> largeNodes = new ArrayList<>();
+
+	/** Edges covering too many cells or beyond the bounds of the grid. */
+	protected ArrayList<Entry> largeEdges = new ArrayList<>();
+
+	/** Sprites not positioned in graph units, or beyond the bounds of the grid. */
+	protected ArrayList<Entry> largeSprites = new ArrayList<>();
+
+	/** Size of a cell in graph units. */
+	protected double cellSize = 1;
+
+	/** False if the grid must be rebuilt before the next query. */
+	protected boolean valid = false;
+
+	/** False if the sprites must be indexed again before the next query. */
+	protected boolean spritesValid = false;
+
+	/** Stamp of the current query, avoids reporting an edge once per covered cell. */
+	protected int stamp = 0;
+
+	/** Largest "ui.size" seen on a node, per unit. */
+	protected double maxDynSize[] = new double[StyleConstants.Units.values().length];
+
+	public SpatialIndex(GraphicGraph graph) {
+		this.graph = graph;
+	}
+
+// Access
+
+	/** Size of a grid cell in graph units. */
+	public double getCellSize() {
+		return cellSize;
+	}
+
+	/** The largest "ui.size" value seen on a node, for the given units. */
+	public double maxDynSize(StyleConstants.Units units) {
+		return maxDynSize[units.ordinal()];
+	}
+
+	/** Call the action for each node whose center may be in the given area, in graph units. */
+	public void nodesIn(double x1, double y1, double x2, double y2, Consumer<GraphicNode> action) {
+		checkGrid();
+		query(nodes, nodeCells, largeNodes, x1, y1, x2, y2, action);
+	}
+
+	/** Call the action for each edge whose end points box may intersect the given area, in graph units. */
+	public void edgesIn(double x1, double y1, double x2, double y2, Consumer<GraphicEdge> action) {
+		checkGrid();
+		query(edges, edgeCells, largeEdges, x1, y1, x2, y2, action);
+	}
+
+	/** Call the action for each sprite whose position may be in the given area, in graph units. */
+	public void spritesIn(double x1, double y1, double x2, double y2, Consumer<GraphicSprite> action) {
+		checkGrid();
+
+		if(!spritesValid || sprites.size() != graph.getSpriteCount())
+			rebuildSprites();
+
+		query(sprites, spriteCells, largeSprites, x1, y1, x2, y2, action);
+	}
+
+// Command
+
+	/** Force a rebuild of the grid at the next query. */
+	public void invalidate() {
+		valid = false;
+	}
+
+	/** Update the node and its edges after a move that may not have been notified by an event. */
+	public void nodeMoved(GraphicNode node) {
+		if(valid) {
+			update(nodes.get(node.getId()), nodeCells, largeNodes);
+
+			if(node.getDegree() > 0)
+				node.edges().forEach(edge -> update(edges.get(edge.getId()), edgeCells, largeEdges));
+		}
+	}
+
+	protected void checkGrid() {
+		if(!valid || nodes.size() != graph.getNodeCount() || edges.size() != graph.getEdgeCount()) {
+			rebuild();
+		} else {
+			double ideal = idealCellSize();
+
+			if(cellSize > ideal * REBUILD_FACTOR || cellSize * REBUILD_FACTOR < ideal)
+				rebuild();
+		}
+	}
+
+	protected double idealCellSize() {
+		double w = graph.getMaxPos().x - graph.getMinPos().x;
+		double h = graph.getMaxPos().y - graph.getMinPos().y;
+		double size = Math.max(w, h) / Math.ceil(Math.sqrt(Math.max(1, graph.getNodeCount())));
+
+		if(size > 0 && !Double.isInfinite(size))
+			return size;
+
+		return 1;
+	}
+
+	protected void rebuild() {
+		clear();
+		graph.computeBounds();
+		cellSize = idealCellSize();
+		graph.nodes().forEach(node -> addNode((GraphicNode)node));
+		graph.edges().forEach(edge -> addEdge((GraphicEdge)edge));
+		valid = true;
+	}
+
+	protected void rebuildSprites() {
+		sprites.clear();
+		spriteCells.clear();
+		largeSprites.clear();
+		graph.sprites().forEach(sprite -> {
+			Entry entry = new Entry(sprite);
+			sprites.put(sprite.getId(), entry);
+			insert(entry, spriteCells, largeSprites);
+		});
+		spritesValid = true;
+	}
+
+	protected void clear() {
+		nodes.clear();
+		edges.clear();
+		nodeCells.clear();
+		edgeCells.clear();
+		largeNodes.clear();
+		largeEdges.clear();
+		spritesValid = false;
+
+		for(int i = 0; i < maxDynSize.length; i++)
+			maxDynSize[i] = 0;
+	}
+
+	protected void addNode(GraphicNode node) {
+		Entry entry = new Entry(node);
+		nodes.put(node.getId(), entry);
+		trackSize(node.getAttribute("ui.size"));
+		insert(entry, nodeCells, largeNodes);
+	}
+
+	protected void addEdge(GraphicEdge edge) {
+		Entry entry = new Entry(edge);
+		edges.put(edge.getId(), entry);
+		insert(entry, edgeCells, largeEdges);
+	}
+
+	protected void remove(Entry entry, Cells cells, ArrayList<Entry> large) {
+		if(entry != null) {
+			if(entry.large) {
+				large.remove(entry);
+			} else {
+				for(int x = entry.x1; x <= entry.x2; x++) {
+					for(int y = entry.y1; y <= entry.y2; y++) {
+						long key = key(x, y);
+						ArrayList<Entry> cell = cells.get(key);
+
+						if(cell != null) {
+							cell.remove(entry);
+							if(cell.isEmpty())
+								cells.remove(key);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	protected void insert(Entry entry, Cells cells, ArrayList<Entry> large) {
+		entry.computeCells();
+
+		if(entry.outside || ((long)entry.x2 - entry.x1 + 1) * ((long)entry.y2 - entry.y1 + 1) > MAX_CELLS_PER_ENTRY) {
+			entry.large = true;
+			large.add(entry);
+		} else {
+			entry.large = false;
+
+			for(int x = entry.x1; x <= entry.x2; x++) {
+				for(int y = entry.y1; y <= entry.y2; y++) {
+					cells.add(key(x, y), entry);
+				}
+			}
+		}
+	}
+
+	/** Move the entry in the grid if the cells it covers changed. */
+	protected void update(Entry entry, Cells cells, ArrayList<Entry> large) {
+		if(entry != null) {
+			int x1 = entry.x1, y1 = entry.y1, x2 = entry.x2, y2 = entry.y2;
+			boolean outside = entry.outside;
+
+			entry.computeCells();
+
+			if(x1 != entry.x1 || y1 != entry.y1 || x2 != entry.x2 || y2 != entry.y2 || outside != entry.outside) {
+				int nx1 = entry.x1, ny1 = entry.y1, nx2 = entry.x2, ny2 = entry.y2;
+				entry.x1 = x1; entry.y1 = y1; entry.x2 = x2; entry.y2 = y2;
+				remove(entry, cells, large);
+				entry.x1 = nx1; entry.y1 = ny1; entry.x2 = nx2; entry.y2 = ny2;
+				insert(entry, cells, large);
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	protected <T extends GraphicElement> void query(HashMap<String,Entry> entries, Cells cells, ArrayList<Entry> large,
+			double x1, double y1, double x2, double y2, Consumer<T> action) {
+		int cx1 = cell(Math.min(x1, x2));
+		int cy1 = cell(Math.min(y1, y2));
+		int cx2 = cell(Math.max(x1, x2));
+		int cy2 = cell(Math.max(y1, y2));
+
+		if(((long)cx2 - cx1 + 1) * ((long)cy2 - cy1 + 1) > entries.size()) {
+			// Browsing the cells would cost more than browsing the elements.
+			entries.values().forEach(entry -> action.accept((T)entry.element));
+		} else {
+			stamp++;
+
+			for(int x = cx1; x <= cx2; x++) {
+				for(int y = cy1; y <= cy2; y++) {
+					ArrayList<Entry> cell = cells.get(key(x, y));
+
+					if(cell != null) {
+						for(int i = 0; i < cell.size(); i++) {
+							Entry entry = cell.get(i);
+
+							if(entry.stamp != stamp) {
+								entry.stamp = stamp;
+								action.accept((T)entry.element);
+							}
+						}
+					}
+				}
+			}
+
+			for(int i = 0; i < large.size(); i++)
+				action.accept((T)large.get(i).element);
+		}
+	}
+
+	protected void trackSize(Object size) {
+		if(size instanceof Number || size instanceof CharSequence) {
+			try {
+				Value value = StyleConstants.convertValue(size);
+				int units = value.units.ordinal();
+
+				if(value.value > maxDynSize[units])
+					maxDynSize[units] = value.value;
+			} catch(RuntimeException e) {
+				// Not a size, the renderer will complain about it.
+			}
+		}
+	}
+
+	/** The cell of the coordinate, clamped in [-MAX_CELL, MAX_CELL]. NaN gives the cell 0. */
+	protected int cell(double v) {
+		double c = Math.floor(v / cellSize);
+
+		if(c < -MAX_CELL)
+			return -MAX_CELL;
+		if(c > MAX_CELL)
+			return MAX_CELL;
+
+		return (int)c;
+	}
+
+	protected static long key(int x, int y) {
+		return ((long)x << 32) | (y & 0xFFFFFFFFL);
+	}
+
+	protected static boolean isPosition(String attribute) {
+		return attribute.equals("x") || attribute.equals("y") || attribute.equals("xy") || attribute.equals("xyz");
+	}
+
+	protected static boolean isSprite(String attribute) {
+		return attribute.startsWith("ui.sprite.");
+	}
+
+// Command -- Sink
+
+	@Override
+	public void nodeAdded(String sourceId, long timeId, String nodeId) {
+		if(valid) {
+			Node node = graph.getNode(nodeId);
+
+			if(node != null)
+				addNode((GraphicNode)node);
+		}
+	}
+
+	@Override
+	public void nodeRemoved(String sourceId, long timeId, String nodeId) {
+		if(valid)
+			remove(nodes.remove(nodeId), nodeCells, largeNodes);
+	}
+
+	@Override
+	public void edgeAdded(String sourceId, long timeId, String edgeId, String fromNodeId, String toNodeId, boolean directed) {
+		if(valid) {
+			Edge edge = graph.getEdge(edgeId);
+
+			if(edge != null)
+				addEdge((GraphicEdge)edge);
+		}
+	}
+
+	@Override
+	public void edgeRemoved(String sourceId, long timeId, String edgeId) {
+		if(valid)
+			remove(edges.remove(edgeId), edgeCells, largeEdges);
+	}
+
+	@Override
+	public void graphCleared(String sourceId, long timeId) {
+		clear();
+		valid = false;
+	}
+
+	@Override
+	public void graphAttributeAdded(String sourceId, long timeId, String attribute, Object value) {
+		if(isSprite(attribute))
+			spritesValid = false;
+	}
+
+	@Override
+	public void graphAttributeChanged(String sourceId, long timeId, String attribute, Object oldValue, Object newValue) {
+		if(isSprite(attribute))
+			spritesValid = false;
+	}
+
+	@Override
+	public void graphAttributeRemoved(String sourceId, long timeId, String attribute) {
+		if(isSprite(attribute))
+			spritesValid = false;
+	}
+
+	@Override
+	public void nodeAttributeAdded(String sourceId, long timeId, String nodeId, String attribute, Object value) {
+		nodeAttributeChanged(sourceId, timeId, nodeId, attribute, null, value);
+	}
+
+	@Override
+	public void nodeAttributeChanged(String sourceId, long timeId, String nodeId, String attribute, Object oldValue, Object newValue) {
+		if(valid) {
+			if(isPosition(attribute)) {
+				Node node = graph.getNode(nodeId);
+
+				if(node != null)
+					nodeMoved((GraphicNode)node);
+			}
+			else if(attribute.equals("ui.size")) {
+				trackSize(newValue);
+			}
+			else if(isSprite(attribute)) {
+				spritesValid = false;
+			}
+		}
+	}
+
+	@Override
+	public void nodeAttributeRemoved(String sourceId, long timeId, String nodeId, String attribute) {
+		if(isSprite(attribute))
+			spritesValid = false;
+	}
+
+	@Override
+	public void edgeAttributeAdded(String sourceId, long timeId, String edgeId, String attribute, Object value) {
+		if(isSprite(attribute))
+			spritesValid = false;
+	}
+
+	@Override
+	public void edgeAttributeChanged(String sourceId, long timeId, String edgeId, String attribute, Object oldValue, Object newValue) {
+		if(isSprite(attribute))
+			spritesValid = false;
+	}
+
+	@Override
+	public void edgeAttributeRemoved(String sourceId, long timeId, String edgeId, String attribute) {
+		if(isSprite(attribute))
+			spritesValid = false;
+	}
+
+	/** An indexed element with the range of cells it covers. */
+	protected class Entry {
+		protected GraphicElement element;
+
+		protected int x1, y1, x2, y2;
+
+		/** True if the element is beyond the bounds of the grid or not positioned in graph units. */
+		protected boolean outside = false;
+
+		protected boolean large = false;
+
+		protected int stamp = 0;
+
+		public Entry(GraphicElement element) {
+			this.element = element;
+		}
+
+		protected void computeCells() {
+			if(element instanceof GraphicEdge) {
+				GraphicEdge edge = (GraphicEdge)element;
+				x1 = cell(Math.min(edge.from.x, edge.to.x));
+				y1 = cell(Math.min(edge.from.y, edge.to.y));
+				x2 = cell(Math.max(edge.from.x, edge.to.x));
+				y2 = cell(Math.max(edge.from.y, edge.to.y));
+			} else {
+				x1 = x2 = cell(element.getX());
+				y1 = y2 = cell(element.getY());
+			}
+
+			outside = x1 == -MAX_CELL || y1 == -MAX_CELL || x2 == MAX_CELL || y2 == MAX_CELL;
+
+			if(element instanceof GraphicSprite) {
+				GraphicSprite sprite = (GraphicSprite)element;
+				outside |= sprite.isAttached() || sprite.getUnits() != StyleConstants.Units.GU;
+			}
+		}
+	}
+
+	/**
+	 * Lists of entries by packed cell coordinates, in an open addressing table with linear
+	 * probing, so that the cells are found without boxing their key.
+	 */
+	protected static class Cells {
+		protected long keys[] = new long[64];
+
+		/** The list of entries of each key, null for free slots. */
+		protected Object lists[] = new Object[64];
+
+		protected int size = 0;
+
+		@SuppressWarnings("unchecked")
+		public ArrayList<Entry> get(long key) {
+			int mask = keys.length - 1;
+
+			for(int i = slot(key, mask); lists[i] != null; i = (i + 1) & mask) {
+				if(keys[i] == key)
+					return (ArrayList<Entry>)lists[i];
+			}
+
+			return null;
+		}
+
+		/** Add the entry to the list of the key, creating it if needed. */
+		public void add(long key, Entry entry) {
+			ArrayList<Entry> list = get(key);
+
+			if(list == null) {
+				if((size + 1) * 2 > keys.length)
+					grow();
+
+				list = new ArrayList<>(2);
+				put(key, list);
+				size++;
+			}
+
+			list.add(entry);
+		}
+
+		public void remove(long key) {
+			int mask = keys.length - 1;
+			int i = slot(key, mask);
+
+			while(lists[i] != null && keys[i] != key)
+				i = (i + 1) & mask;
+
+			if(lists[i] == null)
+				return;
+
+			lists[i] = null;
+			size--;
+
+			// Move back the following keys that can no longer be reached.
+			for(int j = (i + 1) & mask; lists[j] != null; j = (j + 1) & mask) {
+				int k = slot(keys[j], mask);
+
+				if(i <= j ? (k <= i || k > j) : (k <= i && k > j)) {
+					keys[i] = keys[j];
+					lists[i] = lists[j];
+					lists[j] = null;
+					i = j;
+				}
+			}
+		}
+
+		public void clear() {
+			Arrays.fill(lists, null);
+			size = 0;
+		}
+
+		protected void put(long key, Object list) {
+			int mask = keys.length - 1;
+			int i = slot(key, mask);
+
+			while(lists[i] != null)
+				i = (i + 1) & mask;
+
+			keys[i] = key;
+			lists[i] = list;
+		}
+
+		protected void grow() {
+			long oldKeys[] = keys;
+			Object oldLists[] = lists;
+
+			keys = new long[oldKeys.length * 2];
+			lists = new Object[oldLists.length * 2];
+
+			for(int i = 0; i < oldKeys.length; i++) {
+				if(oldLists[i] != null)
+					put(oldKeys[i], oldLists[i]);
+			}
+		}
+
+		protected static int slot(long key, int mask) {
+			long h = key * 0x9E3779B97F4A7C15L;
+			return (int)(h ^ (h >>> 32)) & mask;
+		}
+	}
+}
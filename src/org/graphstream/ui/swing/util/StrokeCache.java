@@ -0,0 +1,99 @@
+/*
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ *
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ *
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+
+ /**
+  * @author Antoine Dutot <antoine.dutot@graphstream-project.org>
+  * @author Guilhelm Savin <guilhelm.savin@graphstream-project.org>
+  * @author Hicham Brahimi <hicham.brahimi@graphstream-project.org>
+  */
+
+
+package org.graphstream.ui.swing.util;
+
+import java.awt.Stroke;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Strokes shared by all the renderers.
+ *
+ * A stroke is identified by its kind, a {@link Maker} that creates it, its width and
+ * the length of its dashes. The width and dash are quantized, keeping 15 bits of
+ * mantissa (a relative error under 0.002%), so that elements whose sizes differ by
+ * less than that share their stroke. The strokes are kept in a direct-mapped table of
+ * {@link #SLOTS} slots: a stroke replaces the one in its slot, which bounds the cache.
+ */
+public class StrokeCache {
+	/** Number of slots of the table, a power of two. */
+	public static final int SLOTS = 256;
+
+	/** Bits of mantissa dropped by the quantization. */
+	protected static final int DROPPED_BITS = 8;
+
+	/** Creates a stroke of a kind. */
+	public interface Maker {
+		Stroke make(float width, float dash);
+	}
+
+	protected static final AtomicReferenceArray<Entry> entries = new AtomicReferenceArray<>(SLOTS);
+
+// Access
+
+	/** The stroke of the kind with the given width and dash length, made if needed. */
+	public static Stroke get(Maker kind, double width, double dash) {
+		int w = quantize(width);
+		int d = quantize(dash);
+		int slot = ((System.identityHashCode(kind) * 31 + w) * 31 + d) * 0x9E3779B9 >>> 24;
+		Entry entry = entries.get(slot);
+
+		if(entry == null || entry.kind != kind || entry.width != w || entry.dash != d) {
+			entry = new Entry(kind, w, d, kind.make(Float.intBitsToFloat(w), Float.intBitsToFloat(d)));
+			entries.set(slot, entry);
+		}
+
+		return entry.stroke;
+	}
+
+	/** The bits of the value as a float, rounded to the kept bits of mantissa. */
+	protected static int quantize(double value) {
+		int bits = Float.floatToIntBits((float)value);
+
+		return (bits + (1 << (DROPPED_BITS - 1))) & ~((1 << DROPPED_BITS) - 1);
+	}
+
+	protected static class Entry {
+		protected final Maker kind;
+
+		protected final int width, dash;
+
+		protected final Stroke stroke;
+
+		protected Entry(Maker kind, int width, int dash, Stroke stroke) {
+			this.kind = kind;
+			this.width = width;
+			this.dash = dash;
+			this.stroke = stroke;
+		}
+	}
+}
@@ -0,0 +1,132 @@
+/*
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ *
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ *
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+
+ /**
+  * @author Antoine Dutot <antoine.dutot@graphstream-project.org>
+  * @author Guilhelm Savin <guilhelm.savin@graphstream-project.org>
+  * @author Hicham Brahimi <hicham.brahimi@graphstream-project.org>
+  */
+
+
+package org.graphstream.ui.swing.util;
+
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+
+/**
+ * A view of a shape moved by an offset.
+ *
+ * The view does not copy the shape, it can be set again to another shape or offset,
+ * so that a shape can be drawn in another space without allocating a transformed copy.
+ */
+public class TranslatedShape implements Shape {
+	protected Shape shape;
+
+	protected double dx, dy;
+
+	/**
+	 * Transform given to the path iterators of the shape, set again at each call. The
+	 * iterators keep it, so an iterator must be consumed before the next one is asked.
+	 */
+	protected final AffineTransform moved = new AffineTransform();
+
+// Command
+
+	/** View the shape moved by (dx,dy), return this view. */
+	public TranslatedShape set(Shape shape, double dx, double dy) {
+		this.shape = shape;
+		this.dx = dx;
+		this.dy = dy;
+		return this;
+	}
+
+// Access
+
+	@Override
+	public Rectangle getBounds() {
+		return getBounds2D().getBounds();
+	}
+
+	@Override
+	public Rectangle2D getBounds2D() {
+		Rectangle2D bounds = shape.getBounds2D();
+		bounds.setRect(bounds.getX() + dx, bounds.getY() + dy, bounds.getWidth(), bounds.getHeight());
+		return bounds;
+	}
+
+	@Override
+	public boolean contains(double x, double y) {
+		return shape.contains(x - dx, y - dy);
+	}
+
+	@Override
+	public boolean contains(Point2D p) {
+		return contains(p.getX(), p.getY());
+	}
+
+	@Override
+	public boolean intersects(double x, double y, double w, double h) {
+		return shape.intersects(x - dx, y - dy, w, h);
+	}
+
+	@Override
+	public boolean intersects(Rectangle2D r) {
+		return intersects(r.getX(), r.getY(), r.getWidth(), r.getHeight());
+	}
+
+	@Override
+	public boolean contains(double x, double y, double w, double h) {
+		return shape.contains(x - dx, y - dy, w, h);
+	}
+
+	@Override
+	public boolean contains(Rectangle2D r) {
+		return contains(r.getX(), r.getY(), r.getWidth(), r.getHeight());
+	}
+
+	@Override
+	public PathIterator getPathIterator(AffineTransform at) {
+		return shape.getPathIterator(moved(at));
+	}
+
+	@Override
+	public PathIterator getPathIterator(AffineTransform at, double flatness) {
+		return shape.getPathIterator(moved(at), flatness);
+	}
+
+	protected AffineTransform moved(AffineTransform at) {
+		if (at != null)
+			moved.setTransform(at);
+		else
+			moved.setToIdentity();
+
+		moved.translate(dx, dy);
+		return moved;
+	}
+}
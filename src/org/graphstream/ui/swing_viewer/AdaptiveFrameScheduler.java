@@ -0,0 +1,260 @@
+/*
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ *
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ *
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+
+ /**
+  * @author Antoine Dutot <antoine.dutot@graphstream-project.org>
+  * @author Guilhelm Savin <guilhelm.savin@graphstream-project.org>
+  * @author Hicham Brahimi <hicham.brahimi@graphstream-project.org>
+  */
+
+
+package org.graphstream.ui.swing_viewer;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+/**
+ * Frame scheduler ticking at a target rate while the graph changes, and slower and
+ * slower when it does not.
+ * 
+ * <p>
+ * The ticks are made by a one shot Swing timer armed again after each tick, so ticks
+ * never pile up in the Swing thread: when a frame takes longer than the frame period,
+ * the ticks that should have happened in the mean time are dropped. The delay before
+ * the next tick is the frame period minus the cost of the last frame, the longest of
+ * the last tick and of the last rendering reported by a view. It is never less than a
+ * minimum gap, leaving the Swing thread some time to process the input events on slow
+ * frames.
+ * </p>
+ * 
+ * <p>
+ * When the graph did not change during the idle time, the delay doubles at each tick,
+ * up to the maximum idle delay. A call to {@link #wake()}, when events are posted in
+ * the pipe created by the viewer or when the user acts on a view, makes the next tick
+ * happen at once and returns to the target rate.
+ * </p>
+ */
+public class AdaptiveFrameScheduler implements FrameScheduler, ActionListener {
+	/**
+	 * The viewer ticked.
+	 */
+	protected SwingViewer viewer;
+
+	/**
+	 * One shot timer in the Swing thread.
+	 */
+	protected Timer timer;
+
+	/**
+	 * Delay between two frames at the target rate, in milliseconds.
+	 */
+	protected int period;
+
+	/**
+	 * Minimum delay between the end of a tick and the next one, in milliseconds.
+	 */
+	protected int minimumGap = 5;
+
+	/**
+	 * Time without change after which the ticks slow down, in milliseconds.
+	 */
+	protected int idleAfter = 1000;
+
+	/**
+	 * Longest delay between two ticks when the graph does not change, in milliseconds.
+	 */
+	protected int maximumIdleDelay = 500;
+
+	/**
+	 * Current delay when idle, doubled at each idle tick.
+	 */
+	protected int idleDelay;
+
+	/**
+	 * Time of the last change of the graph or call to {@link #wake()}, in nanoseconds.
+	 */
+	protected volatile long lastActivity;
+
+	/**
+	 * Time of the last tick and of the last rendering of a view, in nanoseconds.
+	 */
+	protected long lastTickTime = 0;
+	protected volatile long lastRenderTime = 0;
+
+	/**
+	 * Is the next tick delayed because the graph did not change?
+	 */
+	protected AtomicBoolean idle = new AtomicBoolean(false);
+
+	/**
+	 * New scheduler at 25 frames per second, the rate of the previous fixed timer.
+	 */
+	public AdaptiveFrameScheduler() {
+		this(25);
+	}
+
+	/**
+	 * New scheduler at the given number of frames per second.
+	 */
+	public AdaptiveFrameScheduler(int targetFps) {
+		setTargetFps(targetFps);
+	}
+
+	// Access
+
+	/**
+	 * Delay between two frames at the target rate, in milliseconds.
+	 */
+	public int getPeriod() {
+		return period;
+	}
+
+	/**
+	 * Cost of the last frame, the longest of the last tick and of the last rendering of a
+	 * view, in nanoseconds.
+	 */
+	public long getLastFrameTime() {
+		return Math.max(lastTickTime, lastRenderTime);
+	}
+
+	/**
+	 * Are the ticks slowed down because the graph did not change?
+	 */
+	public boolean isIdle() {
+		return idle.get();
+	}
+
+	// Command
+
+	public void setTargetFps(int targetFps) {
+		if (targetFps <= 0)
+			throw new RuntimeException("the target frame rate must be positive");
+
+		period = Math.max(1, 1000 / targetFps);
+		idleDelay = period;
+	}
+
+	/**
+	 * Set the time without change after which the ticks slow down and the longest delay
+	 * between two ticks then, in milliseconds.
+	 */
+	public void setIdleBackoff(int idleAfter, int maximumIdleDelay) {
+		this.idleAfter = idleAfter;
+		this.maximumIdleDelay = Math.max(period, maximumIdleDelay);
+	}
+
+	/**
+	 * Set the minimum delay between the end of a tick and the next one, in milliseconds.
+	 */
+	public void setMinimumGap(int minimumGap) {
+		this.minimumGap = Math.max(0, minimumGap);
+	}
+
+	@Override
+	public void start(SwingViewer viewer) {
+		this.viewer = viewer;
+		lastActivity = System.nanoTime();
+		timer = new Timer(period, this);
+		timer.setRepeats(false);
+		timer.setCoalesce(true);
+		timer.start();
+	}
+
+	@Override
+	public void stop() {
+		if (timer != null) {
+			timer.stop();
+			timer.removeActionListener(this);
+		}
+
+		viewer = null;
+	}
+
+	@Override
+	public void wake() {
+		lastActivity = System.nanoTime();
+
+		if (idle.compareAndSet(true, false))
+			SwingUtilities.invokeLater(() -> schedule(0));
+	}
+
+	@Override
+	public void frameRendered(long nanos) {
+		lastRenderTime = nanos;
+	}
+
+	/**
+	 * Tick the viewer and arm the timer for the next tick. Called by the timer in the
+	 * Swing thread.
+	 */
+	@Override
+	public void actionPerformed(ActionEvent e) {
+		SwingViewer viewer = this.viewer;
+
+		if (viewer == null)
+			return;
+
+		long start = System.nanoTime();
+
+		// Events arriving while the viewer pumps will be seen by the next test.
+		idle.set(false);
+
+		boolean changed = viewer.tick();
+		long now = System.nanoTime();
+
+		lastTickTime = now - start;
+
+		if (changed)
+			lastActivity = now;
+
+		if (now - lastActivity < idleAfter * 1000000L) {
+			idleDelay = period;
+			schedule(Math.max(minimumGap, period - (int) (getLastFrameTime() / 1000000L)));
+		} else {
+			idleDelay = Math.min(idleDelay * 2, maximumIdleDelay);
+			idle.set(true);
+			schedule(idleDelay);
+
+			// Woken between the test and the flag.
+			if (lastActivity - now > 0)
+				wake();
+		}
+	}
+
+	/**
+	 * Arm the timer for a tick in the given delay in milliseconds. Called in the Swing
+	 * thread.
+	 */
+	protected void schedule(int delay) {
+		if (viewer != null) {
+			timer.setInitialDelay(delay);
+			timer.restart();
+		}
+	}
+}
@@ -0,0 +1,150 @@
+/*
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ *
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ *
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+
+ /**
+  * @author Antoine Dutot <antoine.dutot@graphstream-project.org>
+  * @author Guilhelm Savin <guilhelm.savin@graphstream-project.org>
+  * @author Hicham Brahimi <hicham.brahimi@graphstream-project.org>
+  */
+
+
+package org.graphstream.ui.swing_viewer;
+
+import org.graphstream.stream.thread.ThreadProxyPipe;
+
+/**
+ * Thread proxy pipe that can be pumped in bounded slices.
+ * 
+ * <p>
+ * {@link #pump()} processes all the events waiting in the pipe, which can freeze the
+ * Swing thread for a long time when a source posts a burst of events. Instead,
+ * {@link #pump(long, int)} stops after a given time or number of events, the remaining
+ * events are left in the pipe for the next call. The pipe also measures the number of
+ * waiting events and the rate at which they are processed.
+ * </p>
+ */
+public class BudgetedProxyPipe extends ThreadProxyPipe {
+	/**
+	 * Number of events between two readings of the clock.
+	 */
+	protected static final int CLOCK_INTERVAL = 16;
+
+	/**
+	 * Total number of events processed. Volatile since pumping occurs in the Swing thread
+	 * while the counter can be read from any thread.
+	 */
+	protected volatile long pumped = 0;
+
+	/**
+	 * Smoothed number of events processed per second while pumping.
+	 */
+	protected volatile double drainRate = 0;
+
+	public BudgetedProxyPipe() {
+		super();
+	}
+
+	// Access
+
+	/**
+	 * Number of events waiting in the pipe. Can be called from any thread.
+	 */
+	public int getBacklog() {
+		lock.lock();
+
+		try {
+			return events.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Number of events processed per second while pumping, smoothed over the last pumps.
+	 */
+	public double getDrainRate() {
+		return drainRate;
+	}
+
+	/**
+	 * Total number of events processed.
+	 */
+	public long getPumpedEvents() {
+		return pumped;
+	}
+
+	// Command
+
+	@Override
+	public void pump() {
+		pump(0, 0);
+	}
+
+	/**
+	 * Process the waiting events until there are none, or during at most the given time in
+	 * nanoseconds, or at most the given number of events. A budget of zero is not a limit.
+	 * The time budget is checked every few events, so it can be exceeded by the time of
+	 * these events. At least one event is processed if the pipe is not empty.
+	 * 
+	 * @return The number of events processed.
+	 */
+	public int pump(long nanos, int maxEvents) {
+		long start = System.nanoTime();
+		int count = 0;
+		GraphEvents e;
+
+		do {
+			Object[] data;
+
+			lock.lock();
+
+			try {
+				e = events.poll();
+				data = eventsData.poll();
+			} finally {
+				lock.unlock();
+			}
+
+			if (e != null) {
+				processMessage(e, data);
+				count++;
+
+				if (maxEvents > 0 && count >= maxEvents)
+					break;
+				if (nanos > 0 && count % CLOCK_INTERVAL == 0 && System.nanoTime() - start >= nanos)
+					break;
+			}
+		} while (e != null);
+
+		if (count > 0) {
+			double rate = count * 1e9 / Math.max(1, System.nanoTime() - start);
+
+			pumped += count;
+			drainRate = drainRate == 0 ? rate : drainRate * 0.8 + rate * 0.2;
+		}
+
+		return count;
+	}
+}
@@ -31,11 +31,13 @@
   
 package org.graphstream.ui.swing_viewer;
 
+import java.awt.AWTEvent;
 import java.awt.BorderLayout;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.event.ComponentEvent;
 import java.awt.event.ComponentListener;
+import java.awt.event.InputEvent;
 import java.awt.event.KeyListener;
 import java.awt.event.MouseListener;
 import java.awt.event.MouseMotionListener;
@@ -49,6 +51,7 @@ import javax.swing.JFrame;
 
 import org.graphstream.ui.graphicGraph.GraphicElement;
 import org.graphstream.ui.graphicGraph.GraphicGraph;
+import org.graphstream.ui.swing.SwingCamera;
 import org.graphstream.ui.swing_viewer.util.DefaultMouseManager;
 import org.graphstream.ui.swing_viewer.util.DefaultShortcutManager;
 import org.graphstream.ui.swing_viewer.util.MouseOverMouseManager;
@@ -158,6 +161,10 @@ public class DefaultView extends ViewPanel implements WindowListener, ComponentL
 		setMouseManager(null);
 		setShortcutManager(null);
 		renderer.open(graph, this);
+
+		// The viewer loop only draws the graph when it is woken up or ticks.
+		if (viewer instanceof SwingViewer && renderer.getCamera() instanceof SwingCamera)
+			((SwingCamera) renderer.getCamera()).setViewListener(camera -> ((SwingViewer) viewer).getFrameScheduler().wake());
 	}
 
 	// Access
@@ -241,6 +248,8 @@ public class DefaultView extends ViewPanel implements WindowListener, ComponentL
 	}
 
 	public void render(Graphics2D g) {
+		long start = System.nanoTime();
+
 		// this might only be needed to fix a bug in JetBrains IntelliJ:
 		// Even if this JComponent is part of a complex AWT layout, getX() and getY() always returns (0,0) - even if
 		// the Graphics2D tranformation is not the identity (e.g. performs a translation). This leads to wrong
@@ -256,6 +265,20 @@ public class DefaultView extends ViewPanel implements WindowListener, ComponentL
 			graph.removeAttribute("ui.screenshot");
 			renderer.screenshot(screenshot, getWidth(), getHeight());
 		}
+
+		if (viewer instanceof SwingViewer)
+			((SwingViewer) viewer).getFrameScheduler().frameRendered(System.nanoTime() - start);
+	}
+
+	/**
+	 * Wake the viewer loop on input events, they may change the graph or the camera.
+	 */
+	@Override
+	protected void processEvent(AWTEvent e) {
+		if (e instanceof InputEvent && viewer instanceof SwingViewer)
+			((SwingViewer) viewer).getFrameScheduler().wake();
+
+		super.processEvent(e);
 	}
 
 	// Selection
@@ -0,0 +1,74 @@
+/*
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ *
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ *
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+
+ /**
+  * @author Antoine Dutot <antoine.dutot@graphstream-project.org>
+  * @author Guilhelm Savin <guilhelm.savin@graphstream-project.org>
+  * @author Hicham Brahimi <hicham.brahimi@graphstream-project.org>
+  */
+
+
+package org.graphstream.ui.swing_viewer;
+
+/**
+ * Decides when the {@link SwingViewer} loop runs.
+ * 
+ * <p>
+ * At each tick, in the Swing thread, the scheduler calls {@link SwingViewer#tick()}
+ * which pumps the events and displays the views if the graph changed. The scheduler
+ * chooses the delay before the next tick, for example from the cost of the last
+ * frames and from the activity of the graph.
+ * </p>
+ * 
+ * <p>
+ * The default scheduler is an {@link AdaptiveFrameScheduler}, another one can be given
+ * with {@link SwingViewer#setFrameScheduler(FrameScheduler)}.
+ * </p>
+ */
+public interface FrameScheduler {
+	/**
+	 * Start ticking the viewer. Called in the thread creating the viewer.
+	 */
+	void start(SwingViewer viewer);
+
+	/**
+	 * Stop ticking the viewer, no tick happens after this call returns if it is called in
+	 * the Swing thread.
+	 */
+	void stop();
+
+	/**
+	 * Something happened, events arrived or the user acted on a view, tick as soon as
+	 * possible. Can be called from any thread, it must be cheap since it can be called for
+	 * each graph event.
+	 */
+	void wake();
+
+	/**
+	 * A view rendered a frame in the given time in nanoseconds. Can be called from any
+	 * thread.
+	 */
+	void frameRendered(long nanos);
+}
@@ -33,14 +33,19 @@ package org.graphstream.ui.swing_viewer;
 
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.util.concurrent.locks.ReentrantLock;
 
 import javax.swing.Timer;
 
 import org.graphstream.graph.Graph;
 import org.graphstream.stream.ProxyPipe;
+import org.graphstream.stream.Sink;
+import org.graphstream.stream.SinkAdapter;
 import org.graphstream.stream.Source;
 import org.graphstream.stream.thread.ThreadProxyPipe;
 import org.graphstream.ui.graphicGraph.GraphicGraph;
+import org.graphstream.ui.layout.Layout;
+import org.graphstream.ui.layout.LayoutRunner;
 import org.graphstream.ui.swing.SwingGraphRenderer;
 import org.graphstream.ui.view.GraphRenderer;
 import org.graphstream.ui.view.View;
@@ -91,6 +96,34 @@ import org.graphstream.ui.view.Viewer;
  * yourself and only pass a {@link Source}, the viewer <u>will not</u> display
  * the events that occured on the source before it is connected to it.
  * </p>
+ * 
+ * <p>
+ * The graphic graph is protected by a lock, see {@link #getGraphLock()}. The
+ * viewer loop holds it while it pumps the events, and the {@link ThreadedView}s
+ * hold it while they process the mouse and key events. When the lock is held by
+ * another thread, the viewer loop does not wait, the events are pumped at the next
+ * tick.
+ * </p>
+ * 
+ * <p>
+ * The ticks of the viewer loop are chosen by a {@link FrameScheduler}, by default an
+ * {@link AdaptiveFrameScheduler} that ticks at 25 frames per second while the graph
+ * changes and slows down when it does not. These wake it at once: the changes of the
+ * graphic graph, the events posted in the pipes created by the viewer for a graph in
+ * another thread and for the layout, the changes of the view made through the Swing
+ * cameras of the views, and the input events of the views. Other changes are only seen at
+ * the next tick, up to half a second later with the default scheduler when idle: the
+ * events posted in a pipe given to the viewer, the changed flag of the graphic graph set
+ * directly, and the changes of cameras of other renderers. Call
+ * {@link FrameScheduler#wake()} to have them shown at once.
+ * </p>
+ * 
+ * <p>
+ * At each tick, the graph pipe is pumped during at most a time budget, see
+ * {@link #setPumpBudget(int, int)}, the remaining events are pumped at the next ticks.
+ * The number of waiting events and the rate at which they are processed are given by
+ * {@link #getBacklog()} and {@link #getDrainRate()}.
+ * </p>
  */
 public class SwingViewer extends Viewer implements ActionListener {
 
@@ -98,13 +131,46 @@ public class SwingViewer extends Viewer implements ActionListener {
 
 	/**
 	 * Timer in the Swing thread.
+	 * 
+	 * @deprecated The viewer loop no longer runs on a Swing timer, it is run by the
+	 *             frame scheduler, see {@link #getFrameScheduler()}. This field is
+	 *             always null.
 	 */
+	@Deprecated
 	protected Timer timer ;
 
 	/**
 	 * Delay in milliseconds between frames.
+	 * 
+	 * @deprecated The delay between frames is chosen by the frame scheduler, see
+	 *             {@link AdaptiveFrameScheduler#setTargetFps(int)}. This field is not
+	 *             read.
 	 */
+	@Deprecated
 	protected int delay = 40;
+
+	/**
+	 * Chooses when the viewer loop runs in the Swing thread.
+	 */
+	protected FrameScheduler scheduler = new AdaptiveFrameScheduler();
+
+	/**
+	 * Sink of the graphic graph waking the scheduler on each change.
+	 */
+	protected Sink wakeUp = new WakeUp();
+	
+	/**
+	 * Lock on the graphic graph, held while the graph is modified by the viewer
+	 * loop or rendered by a render thread.
+	 */
+	protected ReentrantLock graphLock = new ReentrantLock();
+
+	/**
+	 * Time in nanoseconds and number of events the viewer loop may spend pumping the
+	 * graph pipe at each tick, zero for no limit.
+	 */
+	protected long pumpTimeBudget = 20000000;
+	protected int pumpEventBudget = 0;
 	
 	/**
 	 * Name of the default view.
@@ -166,7 +232,7 @@ public class SwingViewer extends Viewer implements ActionListener {
 		case GRAPH_IN_ANOTHER_THREAD:
 			graphInAnotherThread = true;
 
-			ThreadProxyPipe tpp = new ThreadProxyPipe();
+			BudgetedProxyPipe tpp = new WakingProxyPipe();
 			tpp.init(graph, true);
 
 			init(new GraphicGraph(newGGId()), tpp, (Source) null);
@@ -192,11 +258,12 @@ public class SwingViewer extends Viewer implements ActionListener {
 		this.graph = graph;
 		this.pumpPipe = ppipe;
 		this.sourceInSameThread = source;
-
-		this.timer = new Timer(delay, this);
 		
 		assert ((ppipe != null && source == null) || (ppipe == null && source != null));
 
+		// Changes of the graphic graph, whatever their source, wake the viewer loop.
+		graph.addSink(wakeUp);
+
 		if (pumpPipe != null)
 			pumpPipe.addSink(graph);
 		if (sourceInSameThread != null) {
@@ -205,9 +272,7 @@ public class SwingViewer extends Viewer implements ActionListener {
 			sourceInSameThread.addSink(graph);
 		}
 		
-		timer.setCoalesce(true);
-		timer.setRepeats(true);
-		timer.start();
+		scheduler.start(this);
 	}
 
 	/**
@@ -220,7 +285,9 @@ public class SwingViewer extends Viewer implements ActionListener {
 			for (View view : views.values())
 				view.close(graph);
 
-			timer.removeActionListener(this);
+			scheduler.stop();
+
+			graph.removeSink(wakeUp);
 
 			if (pumpPipe != null)
 				pumpPipe.removeSink(graph);
@@ -230,12 +297,49 @@ public class SwingViewer extends Viewer implements ActionListener {
 			graph = null;
 			pumpPipe = null;
 			sourceInSameThread = null;
-			timer = null;
 		}
 	}
 
 	// Access
 
+	/**
+	 * The lock on the graphic graph. Code that modifies the graphic graph outside of
+	 * the viewer loop, for example in the Swing thread with a source in the same
+	 * thread, must hold it when a {@link ThreadedView} is used.
+	 */
+	public ReentrantLock getGraphLock() {
+		return graphLock;
+	}
+
+	/**
+	 * The scheduler of the viewer loop.
+	 */
+	public FrameScheduler getFrameScheduler() {
+		return scheduler;
+	}
+
+	/**
+	 * Number of events waiting in the graph pipe. Only known for the pipe the viewer
+	 * creates for a graph in another thread, or a {@link BudgetedProxyPipe}, else zero.
+	 */
+	public int getBacklog() {
+		if (pumpPipe instanceof BudgetedProxyPipe)
+			return ((BudgetedProxyPipe) pumpPipe).getBacklog();
+
+		return 0;
+	}
+
+	/**
+	 * Number of events of the graph pipe processed per second while pumping, smoothed
+	 * over the last ticks. Only known for a {@link BudgetedProxyPipe}, else zero.
+	 */
+	public double getDrainRate() {
+		if (pumpPipe instanceof BudgetedProxyPipe)
+			return ((BudgetedProxyPipe) pumpPipe).getDrainRate();
+
+		return 0;
+	}
+
 	/**
 	 * Create a new instance of the default graph renderer.
 	 */
@@ -244,6 +348,50 @@ public class SwingViewer extends Viewer implements ActionListener {
 	}
 
 	// Command
+
+	/**
+	 * Limit the time in milliseconds and the number of events the viewer loop spends
+	 * pumping the graph pipe at each tick, zero for no limit. The events left are pumped
+	 * at the next ticks, so a burst of events does not freeze the Swing thread. Only
+	 * applies to a {@link BudgetedProxyPipe}, like the pipe the viewer creates for a graph
+	 * in another thread, other pipes are pumped entirely. By default the time is limited
+	 * to 20 milliseconds, half a frame at the default rate.
+	 */
+	public void setPumpBudget(int milliseconds, int events) {
+		pumpTimeBudget = Math.max(0, milliseconds) * 1000000L;
+		pumpEventBudget = Math.max(0, events);
+	}
+
+	/**
+	 * Launch the layout in its own thread. The events of the layout are posted in a pipe
+	 * that wakes the viewer loop, like the pipe created for a graph in another thread.
+	 */
+	@Override
+	public void enableAutoLayout(Layout layoutAlgorithm) {
+		synchronized (views) {
+			if (optLayout == null) {
+				optLayout = new LayoutRunner(graph, layoutAlgorithm, true, false);
+				graph.replay();
+
+				ThreadProxyPipe pipe = new WakingProxyPipe();
+				pipe.init(layoutAlgorithm);
+				layoutPipeIn = pipe;
+				layoutPipeIn.addAttributeSink(graph);
+			}
+		}
+	}
+
+	/**
+	 * Replace the scheduler of the viewer loop, the previous one is stopped. Call it in
+	 * the Swing thread.
+	 */
+	public void setFrameScheduler(FrameScheduler scheduler) {
+		this.scheduler.stop();
+		this.scheduler = scheduler;
+
+		if (graph != null)
+			scheduler.start(this);
+	}
 	
 	/**
 	 * Build the default graph view and insert it. The view identifier is
@@ -269,44 +417,164 @@ public class SwingViewer extends Viewer implements ActionListener {
 	}
 
 	/**
-	 * Called on a regular basis by the timer. Checks if some events occurred
-	 * from the graph pipe or from the layout pipe, and if the graph changed,
-	 * triggers a repaint. Never call this method, it is called by a Swing Timer
-	 * automatically.
+	 * Checks if some events occurred from the graph pipe or from the layout pipe, and
+	 * if the graph changed, triggers a repaint. Never call this method, it was called by
+	 * the Swing timer of the viewer, the viewer loop now runs in {@link #tick()}.
 	 */
 	@Override
 	public void actionPerformed(ActionEvent arg0) {
-		// TODO Auto-generated method stub
+		tick();
+	}
+
+	/**
+	 * One run of the viewer loop, called by the frame scheduler in the Swing thread.
+	 * Checks if some events occurred from the graph pipe or from the layout pipe, and if
+	 * the graph changed, triggers a repaint.
+	 * 
+	 * @return True if the graph changed, if events are left in the graph pipe, or if it
+	 *         could not be pumped because another thread holds it.
+	 */
+	public boolean tick() {
 		synchronized (views) {
-			// long t1=System.currentTimeMillis();
-			// long gsize1=graph.getNodeCount();
-			if (pumpPipe != null)
-				pumpPipe.pump();
-			// long gsize2=graph.getNodeCount();
-			// long t2=System.currentTimeMillis();
-
-			if (layoutPipeIn != null)
-				layoutPipeIn.pump();
-			// long t3=System.currentTimeMillis();
-			// Prevent the timer from using a empty graph to display
-			if(graph != null){
-				boolean changed = graph.graphChangedFlag();
-
-				if (changed) {
-					computeGraphMetrics();
-					// long t4=System.currentTimeMillis();
-
-					for (View view : views.values())
-						view.display(graph, changed);
-				}
-				// long t5=System.currentTimeMillis();
-
-				graph.resetGraphChangedFlag();
+			// Another thread holds the graph, pump at the next tick.
+			if (! graphLock.tryLock())
+				return true;
+			
+			try {
+				return pumpAndDisplay() || getBacklog() > 0;
+			} finally {
+				graphLock.unlock();
+			}
+		}
+	}
+	
+	/**
+	 * Pump the graph pipe and the layout pipe, and display the views if the graph
+	 * changed.
+	 * 
+	 * @return True if the graph changed.
+	 */
+	protected boolean pumpAndDisplay() {
+		boolean changed = false;
+
+		// long t1=System.currentTimeMillis();
+		// long gsize1=graph.getNodeCount();
+		if (pumpPipe instanceof BudgetedProxyPipe)
+			((BudgetedProxyPipe) pumpPipe).pump(pumpTimeBudget, pumpEventBudget);
+		else if (pumpPipe != null)
+			pumpPipe.pump();
+		// long gsize2=graph.getNodeCount();
+		// long t2=System.currentTimeMillis();
+
+		if (layoutPipeIn != null)
+			layoutPipeIn.pump();
+		// long t3=System.currentTimeMillis();
+		// Prevent the timer from using a empty graph to display
+		if(graph != null){
+			changed = graph.graphChangedFlag();
+
+			if (changed) {
+				computeGraphMetrics();
+				// long t4=System.currentTimeMillis();
+
+				for (View view : views.values())
+					view.display(graph, changed);
 			}
-			// System.err.printf("display pump=%f layoutPump=%f metrics=%f
-			// display=%f (size delta=%d size1=%d size2=%d)%n",
-			// (t2-t1)/1000.0, (t3-t2)/1000.0, (t4-t3)/1000.0, (t5-t4)/1000.0,
-			// (gsize2-gsize1), gsize1, gsize2);
+			// long t5=System.currentTimeMillis();
+
+			graph.resetGraphChangedFlag();
+		}
+		// System.err.printf("display pump=%f layoutPump=%f metrics=%f
+		// display=%f (size delta=%d size1=%d size2=%d)%n",
+		// (t2-t1)/1000.0, (t3-t2)/1000.0, (t4-t3)/1000.0, (t5-t4)/1000.0,
+		// (gsize2-gsize1), gsize1, gsize2);
+
+		return changed;
+	}
+
+	/**
+	 * Pipe waking the frame scheduler each time an event is posted in it.
+	 */
+	protected class WakingProxyPipe extends BudgetedProxyPipe {
+		@Override
+		protected void post(GraphEvents e, Object... data) {
+			super.post(e, data);
+			scheduler.wake();
+		}
+	}
+
+	/**
+	 * Sink of the graphic graph waking the frame scheduler on each change.
+	 */
+	protected class WakeUp extends SinkAdapter {
+		@Override
+		public void graphAttributeAdded(String sourceId, long timeId, String attribute, Object value) {
+			scheduler.wake();
+		}
+
+		@Override
+		public void graphAttributeChanged(String sourceId, long timeId, String attribute, Object oldValue, Object newValue) {
+			scheduler.wake();
+		}
+
+		@Override
+		public void graphAttributeRemoved(String sourceId, long timeId, String attribute) {
+			scheduler.wake();
+		}
+
+		@Override
+		public void nodeAttributeAdded(String sourceId, long timeId, String nodeId, String attribute, Object value) {
+			scheduler.wake();
+		}
+
+		@Override
+		public void nodeAttributeChanged(String sourceId, long timeId, String nodeId, String attribute, Object oldValue, Object newValue) {
+			scheduler.wake();
+		}
+
+		@Override
+		public void nodeAttributeRemoved(String sourceId, long timeId, String nodeId, String attribute) {
+			scheduler.wake();
+		}
+
+		@Override
+		public void edgeAttributeAdded(String sourceId, long timeId, String edgeId, String attribute, Object value) {
+			scheduler.wake();
+		}
+
+		@Override
+		public void edgeAttributeChanged(String sourceId, long timeId, String edgeId, String attribute, Object oldValue, Object newValue) {
+			scheduler.wake();
+		}
+
+		@Override
+		public void edgeAttributeRemoved(String sourceId, long timeId, String edgeId, String attribute) {
+			scheduler.wake();
+		}
+
+		@Override
+		public void nodeAdded(String sourceId, long timeId, String nodeId) {
+			scheduler.wake();
+		}
+
+		@Override
+		public void nodeRemoved(String sourceId, long timeId, String nodeId) {
+			scheduler.wake();
+		}
+
+		@Override
+		public void edgeAdded(String sourceId, long timeId, String edgeId, String fromNodeId, String toNodeId, boolean directed) {
+			scheduler.wake();
+		}
+
+		@Override
+		public void edgeRemoved(String sourceId, long timeId, String edgeId) {
+			scheduler.wake();
+		}
+
+		@Override
+		public void graphCleared(String sourceId, long timeId) {
+			scheduler.wake();
 		}
 	}
 }
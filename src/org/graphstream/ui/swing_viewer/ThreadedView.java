@@ -0,0 +1,686 @@
+/*
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ *
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ *
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+
+ /**
+  * @author Antoine Dutot <antoine.dutot@graphstream-project.org>
+  * @author Guilhelm Savin <guilhelm.savin@graphstream-project.org>
+  * @author Hicham Brahimi <hicham.brahimi@graphstream-project.org>
+  */
+
+
+
+package org.graphstream.ui.swing_viewer;
+
+import java.awt.AWTEvent;
+import java.awt.AlphaComposite;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.event.InputEvent;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.swing.SwingUtilities;
+
+import org.graphstream.stream.thread.ThreadProxyPipe;
+import org.graphstream.ui.geom.Point2;
+import org.graphstream.ui.graphicGraph.GraphicElement;
+import org.graphstream.ui.graphicGraph.GraphicGraph;
+import org.graphstream.ui.graphicGraph.stylesheet.Selector;
+import org.graphstream.ui.graphicGraph.stylesheet.StyleConstants;
+import org.graphstream.ui.swing.SwingCamera;
+import org.graphstream.ui.swing.SwingGraphRenderer;
+import org.graphstream.ui.swing.renderer.AreaSkeleton;
+import org.graphstream.ui.swing.renderer.SkeletonStore;
+import org.graphstream.ui.swing.util.ImageCache;
+import org.graphstream.ui.view.GraphRenderer;
+import org.graphstream.ui.view.LayerRenderer;
+import org.graphstream.ui.view.camera.Camera;
+import org.graphstream.ui.view.util.InteractiveElement;
+
+/**
+ * A view whose frames are rendered by a dedicated thread.
+ * 
+ * <p>
+ * The render thread renders the graph in a back image, then swaps it with the
+ * front image, the last completed frame. The {@link #paintComponent(Graphics)}
+ * method only draws the front image, therefore the Swing thread is never slowed
+ * down by a large graph. A frame is rendered each time the viewer displays the
+ * view, that is after it pumped the events of a changed graph, or when the size of
+ * the view changed.
+ * </p>
+ * 
+ * <p>
+ * The render thread does not read the graphic graph of the viewer. It draws a copy
+ * of it, fed by a pipe with the events of the graphic graph, and pumps the pipe at
+ * the start of each frame, so the frame shows a consistent state of the graph
+ * without holding the lock of the viewer (see {@link SwingViewer#getGraphLock()}).
+ * The viewer keeps pumping the events and the mouse and key events of the view are
+ * processed while a frame is rendered. The size of the view, the transform of its
+ * device, the view of the camera, the selection and the layer renderers are read
+ * in the Swing thread and handed to the render thread with each frame request.
+ * </p>
+ * 
+ * <p>
+ * The copy has a cost in memory: each node, edge and sprite of the graphic graph
+ * and their attributes exist twice, and the events of the graphic graph are queued
+ * in the pipe until the next frame. The skeletons, the spatial index and the frame
+ * snapshot of the renderer of the copy come in addition to those of the renderer
+ * of the view. A graph that does not fit twice in memory should be shown by a
+ * {@link DefaultView}, which draws in the Swing thread.
+ * </p>
+ * 
+ * <p>
+ * The camera of the view and the picking of the elements are those of a second
+ * renderer, working on the graphic graph of the viewer in the Swing thread. It does
+ * not draw, its camera is set up for the size of the view after each frame (see
+ * {@link SwingGraphRenderer#prepare(Graphics2D, int, int, int, int)}), so the picked
+ * elements and the camera given by {@link #getCamera()} are those of the graphic
+ * graph. The sizes of the nodes and sprites that fit their content are measured
+ * when they are drawn, they are handed to the Swing thread after each frame. The
+ * layer renderers are given the copy of the graph. The nodes drawn as Swing
+ * components are not supported by this view.
+ * </p>
+ * 
+ * <p>
+ * To use it, add it to a Swing viewer in place of the default view:
+ * <code>viewer.addView(new ThreadedView(viewer, id, new SwingGraphRenderer()))</code>.
+ * </p>
+ */
+public class ThreadedView extends DefaultView {
+	private static final long serialVersionUID = 6350420617352818613L;
+
+	private static final Logger logger = Logger.getLogger(ThreadedView.class.getSimpleName());
+
+	/**
+	 * Lock of the viewer on the graphic graph.
+	 */
+	protected ReentrantLock graphLock;
+
+	/**
+	 * Copy of the graphic graph drawn by the render thread, only used by this thread.
+	 */
+	protected GraphicGraph frameGraph;
+
+	/**
+	 * Events of the graphic graph, pumped in the copy by the render thread.
+	 */
+	protected ThreadProxyPipe frameEvents;
+
+	/**
+	 * Renderer of the copy of the graph, only used by the render thread.
+	 */
+	protected SwingGraphRenderer frameRenderer;
+
+	/**
+	 * Asks for a new frame when images read in the background arrive.
+	 */
+	protected ImageCache.Listener imageListener;
+
+	/**
+	 * Layer renderers given to the frame renderer, only used by the render thread.
+	 */
+	protected LayerRenderer<Graphics2D> frameBackLayer = null, frameForeLayer = null;
+
+	/**
+	 * The thread rendering the frames.
+	 */
+	protected RenderThread thread;
+
+	/**
+	 * The next frame request, only used in the Swing thread.
+	 */
+	protected FrameRequest next = new FrameRequest();
+
+	/**
+	 * Image the render thread draws in, and last completed frame.
+	 */
+	protected BufferedImage back = null, front = null;
+
+	/**
+	 * Size of the view when the front image was rendered.
+	 */
+	protected int frontWidth = 0, frontHeight = 0;
+
+	/**
+	 * Monitor of the front and back images, held while they are swapped or the front
+	 * image is drawn.
+	 */
+	protected Object buffers = new Object();
+
+	/**
+	 * Image whose graphics is given to the renderer of the view to set its camera up,
+	 * only used in the Swing thread.
+	 */
+	protected BufferedImage pickImage = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB_PRE);
+
+	/**
+	 * Input events received while another thread holds the graph, only used in the
+	 * Swing thread.
+	 */
+	protected ArrayDeque<AWTEvent> pendingEvents = new ArrayDeque<>();
+
+	// Construction
+
+	public ThreadedView(SwingViewer viewer, String identifier, GraphRenderer<?, ?> renderer) {
+		super(viewer, identifier, new SwingGraphRenderer());
+
+		graphLock = viewer.getGraphLock();
+		frameGraph = new GraphicGraph(graph.getId() + "-frame");
+		if (!(renderer instanceof SwingGraphRenderer))
+			throw new RuntimeException("the threaded view needs a SwingGraphRenderer, not a " + renderer.getClass().getName());
+
+		frameRenderer = (SwingGraphRenderer) renderer;
+		frameRenderer.open(frameGraph, this);
+
+		// The renderer only repaints the view when images arrive, which draws the last frame.
+		imageListener = url -> requestFrame();
+		ImageCache.addListener(imageListener);
+		frameEvents = new ThreadProxyPipe();
+		frameEvents.addSink(frameGraph);
+
+		locked(() -> {
+			frameEvents.init(graph, true);
+			return null;
+		});
+
+		thread = new RenderThread();
+		thread.start();
+	}
+
+	// Access
+
+	@Override
+	public Collection<GraphicElement> allGraphicElementsIn(EnumSet<InteractiveElement> types, double x1, double y1, double x2, double y2) {
+		return locked(() -> super.allGraphicElementsIn(types, x1, y1, x2, y2));
+	}
+
+	@Override
+	public GraphicElement findGraphicElementAt(EnumSet<InteractiveElement> types, double x, double y) {
+		return locked(() -> super.findGraphicElementAt(types, x, y));
+	}
+
+	// Command
+
+	/**
+	 * Ask the render thread for a new frame, with the size of the view, the transform
+	 * of its device and the view of the camera read in the Swing thread.
+	 */
+	public void requestFrame() {
+		if (!SwingUtilities.isEventDispatchThread()) {
+			SwingUtilities.invokeLater(this::requestFrame);
+			return;
+		}
+
+		Camera camera = renderer.getCamera();
+
+		// The view is closed.
+		if (camera == null)
+			return;
+
+		GraphicsConfiguration configuration = getGraphicsConfiguration();
+
+		next.width = getWidth();
+		next.height = getHeight();
+
+		if (configuration != null)
+			next.device.setTransform(configuration.getDefaultTransform());
+		else
+			next.device.setToIdentity();
+
+		((SwingCamera) camera).viewState(next.view);
+		thread.request(next);
+	}
+
+	@Override
+	public void display(GraphicGraph graph, boolean graphChanged) {
+		requestFrame();
+	}
+
+	@Override
+	public void paintComponent(Graphics g) {
+		boolean sizeChanged;
+
+		synchronized (buffers) {
+			if (front != null)
+				g.drawImage(front, 0, 0, frontWidth, frontHeight, null);
+
+			sizeChanged = front == null || frontWidth != getWidth() || frontHeight != getHeight();
+		}
+
+		if (sizeChanged)
+			requestFrame();
+	}
+
+	@Override
+	protected void processEvent(AWTEvent e) {
+		if (e instanceof InputEvent) {
+			if (pendingEvents.isEmpty() && graphLock.tryLock()) {
+				try {
+					super.processEvent(e);
+				} finally {
+					graphLock.unlock();
+				}
+			} else {
+				pendingEvents.add(e);
+			}
+		} else {
+			super.processEvent(e);
+		}
+	}
+
+	/**
+	 * Process the input events queued while another thread held the graph, if it does
+	 * not hold it again. Called in the Swing thread after each frame.
+	 */
+	protected void processPendingEvents() {
+		if (!pendingEvents.isEmpty() && graphLock.tryLock()) {
+			try {
+				while (!pendingEvents.isEmpty())
+					super.processEvent(pendingEvents.poll());
+			} finally {
+				graphLock.unlock();
+			}
+		}
+	}
+
+	@Override
+	public void close(GraphicGraph graph) {
+		thread.terminate();
+
+		locked(() -> {
+			frameEvents.unregisterFromSource();
+			return null;
+		});
+
+		ImageCache.removeListener(imageListener);
+		frameRenderer.close();
+		super.close(graph);
+	}
+
+	@Override
+	public void moveElementAtPx(GraphicElement element, double x, double y) {
+		locked(() -> {
+			super.moveElementAtPx(element, x, y);
+			return null;
+		});
+	}
+
+	@Override
+	public void freezeElement(GraphicElement element, boolean frozen) {
+		locked(() -> {
+			super.freezeElement(element, frozen);
+			return null;
+		});
+	}
+
+	@Override
+	public void setBackLayerRenderer(LayerRenderer<Graphics2D> renderer) {
+		inSwingThread(() -> {
+			next.backLayer = renderer;
+			requestFrame();
+		});
+	}
+
+	@Override
+	public void setForeLayoutRenderer(LayerRenderer<Graphics2D> renderer) {
+		inSwingThread(() -> {
+			next.foreLayer = renderer;
+			requestFrame();
+		});
+	}
+
+	// Selection
+
+	@Override
+	public void beginSelectionAt(double x1, double y1) {
+		super.beginSelectionAt(x1, y1);
+		inSwingThread(() -> {
+			next.selecting = true;
+			next.selection[0] = next.selection[2] = x1;
+			next.selection[1] = next.selection[3] = y1;
+			requestFrame();
+		});
+	}
+
+	@Override
+	public void selectionGrowsAt(double x, double y) {
+		super.selectionGrowsAt(x, y);
+		inSwingThread(() -> {
+			next.selection[2] = x;
+			next.selection[3] = y;
+			requestFrame();
+		});
+	}
+
+	@Override
+	public void endSelectionAt(double x2, double y2) {
+		super.endSelectionAt(x2, y2);
+		inSwingThread(() -> {
+			next.selecting = false;
+			next.selection[2] = x2;
+			next.selection[3] = y2;
+			requestFrame();
+		});
+	}
+
+	// Rendering
+
+	/**
+	 * Run the action holding the lock on the graph.
+	 */
+	protected <T> T locked(Supplier<T> action) {
+		graphLock.lock();
+
+		try {
+			return action.get();
+		} finally {
+			graphLock.unlock();
+		}
+	}
+
+	/**
+	 * Run the action in the Swing thread, at once if called in it.
+	 */
+	protected void inSwingThread(Runnable action) {
+		if (SwingUtilities.isEventDispatchThread())
+			action.run();
+		else
+			SwingUtilities.invokeLater(action);
+	}
+
+	/**
+	 * Render a frame of the copy of the graph in the back image, at the resolution of
+	 * the device, then swap the back and front images and repaint the view. Called by
+	 * the render thread.
+	 */
+	protected void renderFrame(FrameRequest frame) {
+		if (frame.width <= 0 || frame.height <= 0)
+			return;
+
+		long start = System.nanoTime();
+		int width = frame.width;
+		int height = frame.height;
+		AffineTransform device = new AffineTransform(frame.device);
+		int deviceWidth = (int) Math.ceil(width * device.getScaleX());
+		int deviceHeight = (int) Math.ceil(height * device.getScaleY());
+
+		if (back == null || back.getWidth() != deviceWidth || back.getHeight() != deviceHeight)
+			back = new BufferedImage(deviceWidth, deviceHeight, BufferedImage.TYPE_INT_ARGB_PRE);
+
+		Graphics2D g = back.createGraphics();
+
+		g.setComposite(AlphaComposite.Clear);
+		g.fillRect(0, 0, deviceWidth, deviceHeight);
+		g.setComposite(AlphaComposite.SrcOver);
+		g.scale(device.getScaleX(), device.getScaleY());
+
+		try {
+			frameEvents.pump();
+			setUpFrameRenderer(frame);
+			frameRenderer.render(g, 0, 0, width, height);
+
+			String screenshot = (String) frameGraph.getLabel("ui.screenshot");
+
+			if (screenshot != null) {
+				frameGraph.removeAttribute("ui.screenshot");
+				frameRenderer.screenshot(screenshot, width, height);
+			}
+		} catch (RuntimeException e) {
+			logger.log(Level.WARNING, "Cannot render the frame.", e);
+		} finally {
+			g.dispose();
+		}
+
+		synchronized (buffers) {
+			BufferedImage image = front;
+			front = back;
+			back = image;
+			frontWidth = width;
+			frontHeight = height;
+		}
+
+		((SwingViewer) viewer).getFrameScheduler().frameRendered(System.nanoTime() - start);
+		repaint();
+		HashMap<String, Point2> fitSizes = fitSizes();
+
+		SwingUtilities.invokeLater(() -> {
+			prepareView(width, height, device, fitSizes);
+			checkTitle();
+			processPendingEvents();
+		});
+	}
+
+	/**
+	 * Give the view of the camera, the selection and the layer renderers of the frame
+	 * to the frame renderer. Called by the render thread.
+	 */
+	protected void setUpFrameRenderer(FrameRequest frame) {
+		((SwingCamera) frameRenderer.getCamera()).setViewState(frame.view);
+
+		if (frame.selecting) {
+			frameRenderer.beginSelectionAt(frame.selection[0], frame.selection[1]);
+			frameRenderer.selectionGrowsAt(frame.selection[2], frame.selection[3]);
+		} else {
+			frameRenderer.endSelectionAt(frame.selection[2], frame.selection[3]);
+		}
+
+		if (frameBackLayer != frame.backLayer) {
+			frameBackLayer = frame.backLayer;
+			frameRenderer.setBackLayerRenderer(frameBackLayer);
+		}
+
+		if (frameForeLayer != frame.foreLayer) {
+			frameForeLayer = frame.foreLayer;
+			frameRenderer.setForeLayoutRenderer(frameForeLayer);
+		}
+	}
+
+	/**
+	 * The sizes in graph units of the nodes and sprites of the copy of the graph that fit
+	 * their content, by identifier, as measured by the last frame. Called by the render
+	 * thread.
+	 */
+	protected HashMap<String, Point2> fitSizes() {
+		HashMap<String, Point2> sizes = new HashMap<>();
+
+		if (frameRenderer.getCamera() instanceof SwingCamera) {
+			SkeletonStore skeletons = ((SwingCamera) frameRenderer.getCamera()).getSkeletons();
+
+			for (Selector.Type type : new Selector.Type[] { Selector.Type.NODE, Selector.Type.SPRITE }) {
+				for (int slot = 0; slot < skeletons.size(type); slot++) {
+					GraphicElement element = skeletons.elementAt(type, slot);
+
+					if (element.getStyle().getSizeMode() == StyleConstants.SizeMode.FIT
+							&& skeletons.skeletonAt(type, slot) instanceof AreaSkeleton)
+						sizes.put(element.getId(), new Point2(((AreaSkeleton) skeletons.skeletonAt(type, slot)).theSize));
+				}
+			}
+		}
+
+		return sizes;
+	}
+
+	/**
+	 * Set the camera of the view up for the size of the last frame, so that the picking
+	 * and the conversions between pixels and graph units match it, and give the nodes
+	 * and sprites that fit their content the sizes measured by the frame. Called in the
+	 * Swing thread after each frame.
+	 */
+	protected void prepareView(int width, int height, AffineTransform device, HashMap<String, Point2> fitSizes) {
+		// The view is closed.
+		if (renderer.getCamera() == null)
+			return;
+
+		Graphics2D g = pickImage.createGraphics();
+
+		g.scale(device.getScaleX(), device.getScaleY());
+
+		try {
+			locked(() -> {
+				SkeletonStore skeletons = ((SwingCamera) renderer.getCamera()).getSkeletons();
+
+				fitSizes.forEach((id, size) -> {
+					GraphicElement element = (GraphicElement) graph.getNode(id);
+
+					if (element == null)
+						element = graph.getSprite(id);
+
+					if (element != null) {
+						AreaSkeleton skeleton = (AreaSkeleton) skeletons.get(element);
+
+						if (skeleton == null) {
+							skeleton = new AreaSkeleton();
+							skeletons.put(element, skeleton);
+						}
+
+						skeleton.theSize.copy(size);
+					}
+				});
+
+				((SwingGraphRenderer) renderer).prepare(g, 0, 0, width, height);
+				return null;
+			});
+		} finally {
+			g.dispose();
+		}
+	}
+
+	/**
+	 * What the Swing thread hands to the render thread for a frame.
+	 */
+	protected static class FrameRequest {
+		/**
+		 * Size of the view.
+		 */
+		protected int width = 0, height = 0;
+
+		/**
+		 * Default transform of the device of the view.
+		 */
+		protected AffineTransform device = new AffineTransform();
+
+		/**
+		 * View of the camera, see {@link SwingCamera#viewState(double[])}.
+		 */
+		protected double view[] = new double[SwingCamera.VIEW_STATE_SIZE];
+
+		/**
+		 * Is a selection in progress, and its corners in pixels.
+		 */
+		protected boolean selecting = false;
+
+		protected double selection[] = new double[4];
+
+		protected LayerRenderer<Graphics2D> backLayer = null, foreLayer = null;
+
+		protected void copy(FrameRequest other) {
+			width = other.width;
+			height = other.height;
+			device.setTransform(other.device);
+			System.arraycopy(other.view, 0, view, 0, view.length);
+			selecting = other.selecting;
+			System.arraycopy(other.selection, 0, selection, 0, selection.length);
+			backLayer = other.backLayer;
+			foreLayer = other.foreLayer;
+		}
+	}
+
+	/**
+	 * Thread rendering a frame each time one is requested.
+	 */
+	protected class RenderThread extends Thread {
+		protected boolean requested = false;
+
+		protected boolean running = true;
+
+		/**
+		 * Last request, written by the Swing thread, and request of the frame being
+		 * rendered.
+		 */
+		protected FrameRequest pending = new FrameRequest(), current = new FrameRequest();
+
+		public RenderThread() {
+			super("GraphStream render " + getIdView());
+			setDaemon(true);
+		}
+
+		public synchronized void request(FrameRequest request) {
+			pending.copy(request);
+			requested = true;
+			notifyAll();
+		}
+
+		/**
+		 * Stop the thread and wait for the current frame to be completed.
+		 */
+		public void terminate() {
+			synchronized (this) {
+				running = false;
+				notifyAll();
+			}
+
+			if (Thread.currentThread() != this) {
+				try {
+					join();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+
+		/**
+		 * Wait for a frame request and copy it in {@link #current}, return false if the
+		 * thread is stopped.
+		 */
+		protected synchronized boolean awaitRequest() throws InterruptedException {
+			while (running && !requested)
+				wait();
+
+			requested = false;
+			current.copy(pending);
+
+			return running;
+		}
+
+		@Override
+		public void run() {
+			try {
+				while (awaitRequest())
+					renderFrame(current);
+			} catch (InterruptedException e) {
+				// Stop rendering.
+			}
+		}
+	}
+}
@@ -41,6 +41,7 @@ import java.awt.LinearGradientPaint;
 import java.awt.MultipleGradientPaint;
 import java.awt.Paint;
 import java.awt.RadialGradientPaint;
+import java.util.Arrays;
 
 public class GradientFactory {
 	/**
@@ -62,7 +63,21 @@ public class GradientFactory {
 	 */
 	public static Paint gradientInArea(int x0, int y0, int width, int height,
 			Style style) {
-		switch (style.getFillMode()) {
+		Color colors[] = createColors(style);
+		AreaGradient last = lastArea;
+
+		if (last != null && last.matches(x0, y0, width, height, style.getFillMode(), colors))
+			return last.paint;
+
+		Paint paint = gradientInArea(x0, y0, width, height, style, style.getFillMode());
+		lastArea = new AreaGradient(x0, y0, width, height, style.getFillMode(), colors, paint);
+
+		return paint;
+	}
+
+	protected static Paint gradientInArea(int x0, int y0, int width, int height,
+			Style style, FillMode mode) {
+		switch (mode) {
 		case GRADIENT_VERTICAL:
 			return linearGradientFromStyle(x0, y0, x0, y0 + height, style);
 		case GRADIENT_HORIZONTAL:
@@ -168,6 +183,38 @@ public class GradientFactory {
 		return paint;
 	}
 
+	/**
+	 * The last gradient made for an area, the area usually being the whole view, its
+	 * gradient is the same from one frame to the next.
+	 */
+	protected static volatile AreaGradient lastArea = null;
+
+	/** A gradient and the area and colors it was made for. */
+	protected static class AreaGradient {
+		protected final int x0, y0, width, height;
+
+		protected final FillMode mode;
+
+		protected final Color colors[];
+
+		protected final Paint paint;
+
+		protected AreaGradient(int x0, int y0, int width, int height, FillMode mode, Color colors[], Paint paint) {
+			this.x0 = x0;
+			this.y0 = y0;
+			this.width = width;
+			this.height = height;
+			this.mode = mode;
+			this.colors = colors;
+			this.paint = paint;
+		}
+
+		protected boolean matches(int x0, int y0, int width, int height, FillMode mode, Color colors[]) {
+			return this.x0 == x0 && this.y0 == y0 && this.width == width && this.height == height
+					&& this.mode == mode && Arrays.equals(this.colors, colors);
+		}
+	}
+
 	protected static float[] createFractions(Style style) {
 		int n = style.getFillColorCount();
 
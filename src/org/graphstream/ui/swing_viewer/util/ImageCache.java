@@ -31,38 +31,17 @@
   
 package org.graphstream.ui.swing_viewer.util;
 
-import javax.imageio.ImageIO;
-import java.awt.Color;
-import java.awt.Graphics2D;
 import java.awt.Image;
-import java.awt.image.BufferedImage;
-import java.io.File;
-import java.io.IOException;
-import java.net.URL;
-import java.util.Map;
-import java.util.TreeMap;
-import java.util.logging.Level;
-import java.util.logging.Logger;
 
 /**
  * A simple cache for images to avoid reloading them constantly and to allow
  * sharing.
  * 
- * TODO have a policy to release images if they have not been used for a given
- * time.
+ * The images are kept by the bounded cache shared with the Swing renderer,
+ * {@link org.graphstream.ui.swing.util.ImageCache}, whose budget, eviction policy
+ * and counters apply to this cache too.
  */
 public class ImageCache {
-
-    /**
-     * class level logger
-     */
-    private static final Logger logger = Logger.getLogger(DefaultCamera.class.getSimpleName());
-
-	/**
-	 * The image cache.
-	 */
-	protected final Map<String, Image> imageCache = new TreeMap<String, Image>();
-
 	/**
 	 * The dummy image used to mark a not found image (and avoid trying to
 	 * reload it again and again).
@@ -75,28 +54,18 @@ public class ImageCache {
 	protected static ImageCache defaultImageCache;
 
 	/**
-	 * New empty image cache.
+	 * New image cache, a view on the shared cache.
 	 */
 	public ImageCache() {
-		BufferedImage img = new BufferedImage(16, 16,
-				BufferedImage.TYPE_INT_RGB);
-		Graphics2D g2 = img.createGraphics();
-
-		g2.setColor(Color.RED);
-		g2.drawRect(0, 0, img.getWidth() - 1, img.getHeight() - 1);
-		g2.drawLine(0, 0, img.getWidth() - 1, img.getHeight() - 1);
-		g2.drawLine(0, img.getHeight() - 1, img.getWidth() - 1, 0);
-
-		dummy = img;
+		dummy = org.graphstream.ui.swing.util.ImageCache.dummyImage();
 	}
 
 	/**
-	 * Default singleton image cache instance that can be shared. This method
-	 * and singleton must be used only in the Swing thread.
+	 * Default singleton image cache instance that can be shared.
 	 * 
 	 * @return The default singleton image cache instance.
 	 */
-	public static ImageCache defaultImageCache() {
+	public static synchronized ImageCache defaultImageCache() {
 		if (defaultImageCache == null)
 			defaultImageCache = new ImageCache();
 
@@ -128,41 +97,9 @@ public class ImageCache {
 	 * @return An image or null if the image cannot be found.
 	 */
 	public Image getImage(String fileNameOrUrl, boolean forceTryReload) {
-		Image ii = imageCache.get(fileNameOrUrl);
-
-		if (ii == dummy && !forceTryReload)
-			return null;
-
-		if (ii == null) {
-			URL url = ImageCache.class.getClassLoader().getResource(
-					fileNameOrUrl);
-
-			if (url != null) {
-				try {
-					ii = ImageIO.read(url);
-					imageCache.put(fileNameOrUrl, ii);
-				} catch (IOException e) {
-					e.printStackTrace();
-				}
-			} else {
-				try {
-					url = new URL(fileNameOrUrl);
-
-					ii = ImageIO.read(url);
-					imageCache.put(fileNameOrUrl, ii);
-				} catch (Exception e) {
-					try {
-						ii = ImageIO.read(new File(fileNameOrUrl));
-						imageCache.put(fileNameOrUrl, ii);
-					} catch (IOException ee) {
-						imageCache.put(fileNameOrUrl, dummy);
-                        logger.log(Level.WARNING, String.format("Cannot read image '%s'.", fileNameOrUrl), e);
-					}
-				}
-			}
-		}
+		Image ii = org.graphstream.ui.swing.util.ImageCache.loadImage(fileNameOrUrl, forceTryReload);
 
-		return ii;
+		return ii == dummy ? null : ii;
 	}
 
 	/**
@@ -173,4 +110,4 @@ public class ImageCache {
 	public Image getDummyImage() {
 		return dummy;
 	}
-}
\ No newline at end of file
+}
@@ -36,6 +36,7 @@ import java.awt.Stroke;
 
 import org.graphstream.ui.graphicGraph.stylesheet.Style;
 import org.graphstream.ui.graphicGraph.stylesheet.StyleConstants.Units;
+import org.graphstream.ui.swing.util.StrokeCache;
 import org.graphstream.ui.view.util.GraphMetrics;
 
 /**
@@ -81,7 +82,7 @@ public class StrokeFactory {
 		 * return plainLine5px; else if( width == 10f ) return plainLine10px;
 		 * else
 		 */{
-			return new BasicStroke(width);
+			return StrokeCache.get(PLAIN, width, 0);
 		}
 	}
 
@@ -93,10 +94,7 @@ public class StrokeFactory {
 		 * width == 5f ) return dotsLine5px; else if( width == 10f ) return
 		 * dotsLine10px; else
 		 */{
-			dots[0] = (float)metrics.lengthToGu(1f, Units.PX);
-			dots[1] = dots[0];
-			return new BasicStroke(width, BasicStroke.CAP_BUTT,
-					BasicStroke.JOIN_MITER, 1f, dots, 0);
+			return StrokeCache.get(DASHED, width, metrics.lengthToGu(1f, Units.PX));
 		}
 	}
 
@@ -109,15 +107,16 @@ public class StrokeFactory {
 		 * width == 5f ) return dashesLine5px; else if( width == 10f ) return
 		 * dashesLine10px; else
 		 */{
-			dashes[0] = (float)metrics.lengthToGu(3f, Units.PX);
-			dashes[1] = dashes[0];
-			return new BasicStroke(width, BasicStroke.CAP_BUTT,
-					BasicStroke.JOIN_MITER, 1f, dashes, 0);
+			return StrokeCache.get(DASHED, width, metrics.lengthToGu(3f, Units.PX));
 		}
 	}
 
-	protected static float[] dots = { 1f, 1f };
-	protected static float[] dashes = { 3f, 3f };
+	/** Kinds of the strokes in the {@link StrokeCache}. */
+	protected static final StrokeCache.Maker PLAIN = (width, dash) -> new BasicStroke(width);
+
+	protected static final StrokeCache.Maker DASHED = (width, dash) -> new BasicStroke(width,
+			BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER, 1f, new float[] { dash, dash }, 0);
+
 	/*
 	 * protected static Stroke plainLine1px = new BasicStroke( 1 ); protected
 	 * static Stroke dotsLine1px = new BasicStroke( 1, BasicStroke.CAP_BUTT,